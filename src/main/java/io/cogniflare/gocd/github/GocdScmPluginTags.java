@@ -9,27 +9,50 @@ import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import com.tw.go.plugin.GitHelper;
 import com.tw.go.plugin.model.GitConfig;
-import com.tw.go.plugin.model.ModifiedFile;
 import com.tw.go.plugin.model.Revision;
-import com.tw.go.plugin.util.ListUtil;
 import com.tw.go.plugin.util.StringUtil;
-import in.ashwanthkumar.utils.collections.Lists;
 import io.cogniflare.gocd.github.gitRemoteProvider.GitRemoteProvider;
+import io.cogniflare.gocd.github.messages.LatestRevisionResponse;
+import io.cogniflare.gocd.github.messages.LatestRevisionsSinceResponse;
+import io.cogniflare.gocd.github.messages.PolledRevision;
+import io.cogniflare.gocd.github.messages.RevisionMessage;
+import io.cogniflare.gocd.github.messages.ScmRequest;
+import io.cogniflare.gocd.github.messages.StatusResponse;
+import io.cogniflare.gocd.github.settings.scm.DefaultScmPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.FetchMode;
 import io.cogniflare.gocd.github.settings.scm.PluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.ReleaseSource;
+import io.cogniflare.gocd.github.settings.scm.ScmPluginSettings;
+import io.cogniflare.gocd.github.util.BoundedHistory;
+import io.cogniflare.gocd.github.util.BranchMatcher;
+import io.cogniflare.gocd.github.util.FolderLocks;
+import io.cogniflare.gocd.github.util.GitCommand;
 import io.cogniflare.gocd.github.util.GitFactory;
 import io.cogniflare.gocd.github.util.GitFolderFactory;
+import io.cogniflare.gocd.github.util.GitTag;
 import io.cogniflare.gocd.github.util.JSONUtils;
+import io.cogniflare.gocd.github.util.LocalTags;
+import io.cogniflare.gocd.github.util.Metrics;
+import io.cogniflare.gocd.github.util.MetricsReporter;
+import io.cogniflare.gocd.github.util.PrefetchScheduler;
+import io.cogniflare.gocd.github.util.ReferenceRepositories;
+import io.cogniflare.gocd.github.util.RevisionLimits;
+import io.cogniflare.gocd.github.util.RevisionRangeCache;
+import io.cogniflare.gocd.github.util.SingleFlight;
+import io.cogniflare.gocd.github.util.Submodules;
+import io.cogniflare.gocd.github.util.TagFetch;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Constructor;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.*;
-
-import static io.cogniflare.gocd.github.util.JSONUtils.fromJSON;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
 
 @Extension
 public class GocdScmPluginTags implements GoPlugin {
@@ -50,16 +73,50 @@ public class GocdScmPluginTags implements GoPlugin {
     public static final String REQUEST_LATEST_REVISIONS_SINCE = "latest-revisions-since";
     public static final String REQUEST_CHECKOUT = "checkout";
 
-    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final String RELEASE_COMMIT = "RELEASE_COMMIT";
+    // added to a registered configuration, no SCM field is named like it
+    private static final String FLYWEIGHT_FOLDER = "flyweight-folder";
+    // set when a RevisionLimits cap left something out
+    private static final String REVISIONS_TRUNCATED = "REVISIONS_TRUNCATED";
+    private static final String MODIFIED_FILES_TRUNCATED = "MODIFIED_FILES_TRUNCATED";
+    private static final String COMMENT_TRUNCATED = "COMMENT_TRUNCATED";
+    private static final String RELEASE_BODY_TRUNCATED = "RELEASE_BODY_TRUNCATED";
+    private static final boolean REFERENCE_CACHE_ENABLED = Boolean.parseBoolean(System.getProperty("gocd.github.tags.reference-cache.enabled", "true"));
+    private static final String REFERENCE_CACHE_DIR = System.getProperty("gocd.github.tags.reference-cache.dir",
+            new File(System.getProperty("user.home"), ".gocd-scm-github-tags/reference").getPath());
+    private static final long REFERENCE_CACHE_MAX_IDLE_MILLIS = Long.getLong("gocd.github.tags.reference-cache.max-idle-days", 30L) * 24 * 60 * 60 * 1000;
+    private static final int FOLDER_LOCK_STRIPES = Integer.getInteger("gocd.github.tags.folder-lock.stripes", 256);
+    private static final long REVISION_RANGE_CACHE_MAX_BYTES = Long.getLong("gocd.github.tags.revision-range-cache.max-bytes", 32L * 1024 * 1024);
+    private static final boolean PREFETCH_ENABLED = Boolean.parseBoolean(System.getProperty("gocd.github.tags.prefetch.enabled", "true"));
+    private static final long PREFETCH_INTERVAL_MILLIS = Long.getLong("gocd.github.tags.prefetch.interval-seconds", 60L) * 1000;
+    private static final long PREFETCH_JITTER_MILLIS = Long.getLong("gocd.github.tags.prefetch.jitter-seconds", 15L) * 1000;
+    private static final int PREFETCH_MAX_CONCURRENT = Integer.getInteger("gocd.github.tags.prefetch.max-concurrent", 4);
+    private static final long PREFETCH_MAX_IDLE_MILLIS = Long.getLong("gocd.github.tags.prefetch.max-idle-minutes", 60L) * 60 * 1000;
+    private static final long PREFETCH_TICK_MILLIS = 1000;
+    private static final String METRICS_FILE = System.getProperty("gocd.github.tags.metrics.file", "");
+    private static final boolean METRICS_LOG = Boolean.parseBoolean(System.getProperty("gocd.github.tags.metrics.log", "false"));
+    private static final long METRICS_INTERVAL_MILLIS = Long.getLong("gocd.github.tags.metrics.interval-seconds", 300L) * 1000;
+    // one reporter per process, however many times the plugin is instantiated
+    private static final AtomicBoolean METRICS_REPORTING = new AtomicBoolean();
+    static final String REQUEST_SECONDS = "gocd_github_tags_request_seconds";
+    static final String GIT_SECONDS = "gocd_github_tags_git_seconds";
 
     public static final int SUCCESS_RESPONSE_CODE = 200;
     public static final int NOT_FOUND_RESPONSE_CODE = 404;
     public static final int INTERNAL_ERROR_RESPONSE_CODE = 500;
 
-    private GitRemoteProvider gitRemoteProvider;
+    // requests for different folders are handled concurrently; those for the same folder take turns
+    private volatile GitRemoteProvider gitRemoteProvider;
     private final GitFactory gitFactory;
     private final GitFolderFactory gitFolderFactory;
-    private GoApplicationAccessor goApplicationAccessor;
+    private final ReferenceRepositories referenceRepositories;
+    private final FolderLocks folderLocks = new FolderLocks(FOLDER_LOCK_STRIPES);
+    private final SingleFlight<String, GoPluginApiResponse> polls = new SingleFlight<>();
+    private final RevisionRangeCache revisionRanges = new RevisionRangeCache(REVISION_RANGE_CACHE_MAX_BYTES);
+    // flyweight folder -> configuration of the material polled into it
+    private final PrefetchScheduler<Map<String, String>> prefetches;
+    private final Metrics metrics;
+    private volatile GoApplicationAccessor goApplicationAccessor;
 
     public GocdScmPluginTags() {
         try {
@@ -71,6 +128,20 @@ public class GocdScmPluginTags implements GoPlugin {
             gitRemoteProvider = (GitRemoteProvider) constructor.newInstance();
             gitFactory = new GitFactory();
             gitFolderFactory = new GitFolderFactory();
+            referenceRepositories = REFERENCE_CACHE_ENABLED
+                    ? new ReferenceRepositories(new File(REFERENCE_CACHE_DIR), REFERENCE_CACHE_MAX_IDLE_MILLIS)
+                    : null;
+            prefetches = PREFETCH_ENABLED
+                    ? new PrefetchScheduler<>(this::prefetch, PREFETCH_INTERVAL_MILLIS, PREFETCH_JITTER_MILLIS, PREFETCH_MAX_CONCURRENT, PREFETCH_MAX_IDLE_MILLIS)
+                    : null;
+            if (prefetches != null) {
+                prefetches.start(PREFETCH_TICK_MILLIS);
+            }
+            metrics = Metrics.DEFAULT;
+            registerMetrics();
+            if ((METRICS_LOG || !METRICS_FILE.isEmpty()) && METRICS_REPORTING.compareAndSet(false, true)) {
+                new MetricsReporter(metrics, METRICS_FILE.isEmpty() ? null : new File(METRICS_FILE), METRICS_LOG).start(METRICS_INTERVAL_MILLIS);
+            }
         } catch (Exception e) {
             LOGGER.error("could not create provider", e);
             throw new RuntimeException("could not create provider", e);
@@ -81,7 +152,21 @@ public class GocdScmPluginTags implements GoPlugin {
         this.gitRemoteProvider = gitRemoteProvider;
         this.gitFactory = gitFactory;
         this.gitFolderFactory = gitFolderFactory;
+        this.referenceRepositories = null;
+        this.prefetches = null;
+        this.metrics = new Metrics();
         this.goApplicationAccessor = goApplicationAccessor;
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        metrics.counter("gocd_github_tags_polls_total", polls::getExecuted);
+        metrics.counter("gocd_github_tags_polls_coalesced_total", polls::getCoalesced);
+        if (prefetches != null) {
+            metrics.counter("gocd_github_tags_prefetches_total", prefetches::getPrefetched);
+            metrics.counter("gocd_github_tags_prefetch_failures_total", prefetches::getFailed);
+        }
+        gitRemoteProvider.registerMetrics(metrics);
     }
 
     @Override
@@ -91,6 +176,18 @@ public class GocdScmPluginTags implements GoPlugin {
 
     @Override
     public GoPluginApiResponse handle(GoPluginApiRequest goPluginApiRequest) {
+        long start = metrics.nanoTime();
+        GoPluginApiResponse response = null;
+        try {
+            response = dispatch(goPluginApiRequest);
+            return response;
+        } finally {
+            metrics.histogram(REQUEST_SECONDS, "request", goPluginApiRequest.requestName())
+                    .record(metrics.nanoTime() - start, response == null || response.responseCode() >= INTERNAL_ERROR_RESPONSE_CODE);
+        }
+    }
+
+    private GoPluginApiResponse dispatch(GoPluginApiRequest goPluginApiRequest) {
         switch (goPluginApiRequest.requestName()) {
             case REQUEST_SCM_CONFIGURATION:
                 return getPluginConfiguration(gitRemoteProvider.getScmConfigurationView());
@@ -131,8 +228,20 @@ public class GocdScmPluginTags implements GoPlugin {
         return new GoPluginIdentifier(EXTENSION_NAME, goSupportedVersions);
     }
 
+    /**
+     * Number of polls answered by the same poll another request already had in flight.
+     */
+    public long getCoalescedPolls() {
+        return polls.getCoalesced();
+    }
+
+    Metrics getMetrics() {
+        return metrics;
+    }
+
     void setGitRemoteProvider(GitRemoteProvider gitRemoteProvider) {
         this.gitRemoteProvider = gitRemoteProvider;
+        gitRemoteProvider.registerMetrics(metrics);
     }
 
     private GoPluginApiResponse getPluginView(GitRemoteProvider gitRemoteProvider, PluginConfigurationView view) throws IOException {
@@ -152,18 +261,21 @@ public class GocdScmPluginTags implements GoPlugin {
     }
 
     private GoPluginApiResponse handleSCMValidation(GoPluginApiRequest goPluginApiRequest) {
-        Map<String, Object> requestBodyMap = (Map<String, Object>) fromJSON(goPluginApiRequest.requestBody());
-        final Map<String, String> configuration = keyValuePairs(requestBodyMap, "scm-configuration");
+        ScmRequest request = JSONUtils.fromJSON(goPluginApiRequest.requestBody(), ScmRequest.class);
+        final Map<String, String> configuration = request.getConfiguration();
         final GitConfig gitConfig = getGitConfig(configuration);
 
         List<Map<String, Object>> response = new ArrayList<>();
         validate(response, (fieldValidation) -> validateUrl(gitConfig, fieldValidation));
+        validate(response, (fieldValidation) -> validateTagFilter(configuration, DefaultScmPluginConfigurationView.TAG_WHITELIST, fieldValidation));
+        validate(response, (fieldValidation) -> validateTagFilter(configuration, DefaultScmPluginConfigurationView.TAG_BLACKLIST, fieldValidation));
+        validate(response, (fieldValidation) -> validateMajorVersion(configuration, fieldValidation));
         return renderJSON(SUCCESS_RESPONSE_CODE, response);
     }
 
     private GoPluginApiResponse handleSCMCheckConnection(GoPluginApiRequest goPluginApiRequest) {
-        Map<String, Object> requestBodyMap = (Map<String, Object>) fromJSON(goPluginApiRequest.requestBody());
-        Map<String, String> configuration = keyValuePairs(requestBodyMap, "scm-configuration");
+        ScmRequest request = JSONUtils.fromJSON(goPluginApiRequest.requestBody(), ScmRequest.class);
+        Map<String, String> configuration = request.getConfiguration();
         GitConfig gitConfig = getGitConfig(configuration);
 
         Map<String, Object> response = new HashMap<>();
@@ -180,29 +292,33 @@ public class GocdScmPluginTags implements GoPlugin {
     }
 
     GoPluginApiResponse handleGetLatestRevision(GoPluginApiRequest goPluginApiRequest) {
-        Map<String, Object> requestBodyMap = (Map<String, Object>) fromJSON(goPluginApiRequest.requestBody());
-        Map<String, String> configuration = keyValuePairs(requestBodyMap, "scm-configuration");
-        GitConfig gitConfig = getGitConfig(configuration);
-        String flyweightFolder = (String) requestBodyMap.get("flyweight-folder");
+        ScmRequest request = JSONUtils.fromJSON(goPluginApiRequest.requestBody(), ScmRequest.class);
+        Map<String, String> configuration = request.getConfiguration();
+        String flyweightFolder = request.getFlyweightFolder();
+        GitConfig gitConfig = getGitConfig(configuration, flyweightFolder);
         LOGGER.info(String.format("Flyweight: %s", flyweightFolder));
 
         try {
-            GitHelper git = gitFactory.create(gitConfig, gitFolderFactory.create(flyweightFolder));
-            git.cloneOrFetch(gitRemoteProvider.getRefSpec());
-            String tag = gitRemoteProvider.getLatestRelease(gitConfig, git);
-            git.resetHard(tag);
-            Revision revision = git.getLatestRevision();
-            git.submoduleUpdate();
-
-            Map<String, Object> revisionMap = getRevisionMap(gitConfig, revision, tag);
-            Map<String, Object> response = new HashMap<>();
-            Map<String, String> scmDataMap = new HashMap<>();
-
-            response.put("revision", revisionMap);
-            response.put("scm-data", scmDataMap);
-
-            LOGGER.info(String.format("Triggered build for %s with head at %s", tag, revision.getRevision()));
-            return renderJSON(SUCCESS_RESPONSE_CODE, response);
+            ScmPluginSettings settings = gitRemoteProvider.getScmConfigurationView().getSettings(configuration);
+            File workingDir = gitFolderFactory.create(flyweightFolder);
+            Optional<GitTag> latest = peekLatestRelease(gitConfig, settings, false);
+            return polls.execute(pollKey(REQUEST_LATEST_REVISION, workingDir, gitConfig, null, null), () -> {
+                // fetched and resolved in one go, so the release reported is the one fetched
+                try (FolderLocks.Held ignored = folderLocks.lock(workingDir)) {
+                    GitHelper git = gitFactory.create(gitConfig, workingDir, settings.getGitBackend());
+                    fetch(git, workingDir, gitConfig, settings, null, latest);
+                    String tag = latestRelease(git, workingDir, gitConfig, settings, latest);
+                    gitStep("resetHard", gitConfig).run(() -> git.resetHard(tag));
+                    Revision revision = gitStep("getLatestRevision", gitConfig).time(git::getLatestRevision);
+                    if (settings.isPollSubmodules()) {
+                        gitStep("submoduleUpdate", gitConfig).run(git::submoduleUpdate);
+                    }
+                    PolledRevision polledRevision = toPolledRevision(gitConfig, settings, workingDir, BoundedHistory.Entry.of(revision, RevisionLimits.DEFAULT), tag);
+
+                    LOGGER.info(String.format("Triggered build for %s with head at %s", tag, revision.getRevision()));
+                    return renderJSON(SUCCESS_RESPONSE_CODE, new LatestRevisionResponse(polledRevision));
+                }
+            });
         } catch (Throwable t) {
             LOGGER.error("get latest revision: ", t);
             return renderJSON(INTERNAL_ERROR_RESPONSE_CODE, maskSecretsInString(t.getMessage(), gitConfig));
@@ -210,89 +326,266 @@ public class GocdScmPluginTags implements GoPlugin {
     }
 
     GoPluginApiResponse handleLatestRevisionSince(GoPluginApiRequest goPluginApiRequest) {
-        Map<String, Object> requestBodyMap = (Map<String, Object>) fromJSON(goPluginApiRequest.requestBody());
-        Map<String, String> configuration = keyValuePairs(requestBodyMap, "scm-configuration");
-        Map<String, String> previousRevision = (Map<String, String>) requestBodyMap.get("previous-revision");
-        final GitConfig gitConfig = getGitConfig(configuration);
-        String flyweightFolder = (String) requestBodyMap.get("flyweight-folder");
+        ScmRequest request = JSONUtils.fromJSON(goPluginApiRequest.requestBody(), ScmRequest.class);
+        Map<String, String> configuration = request.getConfiguration();
+        RevisionMessage previousRevision = request.getPreviousRevision();
+        String flyweightFolder = request.getFlyweightFolder();
+        final GitConfig gitConfig = getGitConfig(configuration, flyweightFolder);
         LOGGER.debug(String.format("Fetching latest for: %s", gitConfig.getUrl()));
 
         try {
-            GitHelper git = gitFactory.create(gitConfig, gitFolderFactory.create(flyweightFolder));
-            git.cloneOrFetch(gitRemoteProvider.getRefSpec());
-            String tag = gitRemoteProvider.getLatestRelease(gitConfig, git);
-            git.resetHard(tag); // we can use tag name instead of SHA
-            Revision revision = git.getLatestRevision();
-            git.submoduleUpdate();
-
-            String prevSHA = previousRevision.get("revision");
-            List<Revision> allRevisionsSince;
-            try {
-                allRevisionsSince = git.getRevisionsSince(prevSHA);
-            } catch (Exception e) {
-                LOGGER.warn(String.format("Failed to get revisions since: %s for tag: %s", prevSHA, tag));
-                allRevisionsSince = Collections.singletonList(revision);
+            final ScmPluginSettings settings = gitRemoteProvider.getScmConfigurationView().getSettings(configuration);
+            Map<String, String> previousData = previousRevision.getData();
+            String previousCommit = previousData == null ? null : previousData.get(RELEASE_COMMIT);
+            Optional<GitTag> latest = peekLatestRelease(gitConfig, settings, previousCommit != null);
+            if (latest.isPresent() && latest.get().getName().equals(previousRevision.getRevision()) && latest.get().getCommit().equals(previousCommit)) {
+                LOGGER.debug(String.format("Latest release of %s has not moved", gitConfig.getUrl()));
+                return renderJSON(SUCCESS_RESPONSE_CODE, new LatestRevisionsSinceResponse(Collections.emptyList()));
             }
 
-            List<Map<String, Object>> revisions = Lists.map(
-                    allRevisionsSince,
-                    rev -> getRevisionMap(gitConfig, rev, null)
-            );
-
-            revisions.add(0, getRevisionMap(gitConfig, revision, tag));
-
-            Map<String, Object> response = new HashMap<>();
-            Map<String, String> scmDataMap = new HashMap<>();
-
-            response.put("revisions", revisions);
-            response.put("scm-data", scmDataMap);
-            return renderJSON(SUCCESS_RESPONSE_CODE, response);
+            final File workingDir = gitFolderFactory.create(flyweightFolder);
+            String prevSHA = previousRevision.getRevision();
+            return polls.execute(pollKey(REQUEST_LATEST_REVISIONS_SINCE, workingDir, gitConfig, prevSHA, previousCommit), () -> {
+                // fetched and resolved in one go, so the release reported is the one fetched
+                try (FolderLocks.Held ignored = folderLocks.lock(workingDir)) {
+                    GitHelper git = gitFactory.create(gitConfig, workingDir, settings.getGitBackend());
+                    fetch(git, workingDir, gitConfig, settings, prevSHA, latest);
+                    String tag = latestRelease(git, workingDir, gitConfig, settings, latest);
+                    gitStep("resetHard", gitConfig).run(() -> git.resetHard(tag)); // we can use tag name instead of SHA
+                    Revision revision = gitStep("getLatestRevision", gitConfig).time(git::getLatestRevision);
+                    if (settings.isPollSubmodules()) {
+                        gitStep("submoduleUpdate", gitConfig).run(git::submoduleUpdate);
+                    }
+
+                    RevisionRangeCache.Range range;
+                    Optional<RevisionRangeCache.Range> cached = previousCommit == null
+                            ? Optional.empty()
+                            : revisionRanges.get(gitConfig.getUrl(), previousCommit, revision.getRevision());
+                    if (cached.isPresent()) {
+                        range = cached.get();
+                    } else {
+                        BoundedHistory history = null;
+                        try {
+                            history = gitStep("getRevisionsSince", gitConfig).time(() -> gitFactory.createLog(git, workingDir).since(prevSHA, RevisionLimits.DEFAULT));
+                        } catch (Exception e) {
+                            LOGGER.warn(String.format("Failed to get revisions since: %s for tag: %s", prevSHA, tag));
+                        }
+                        if (history == null) {
+                            range = serialize(gitConfig, settings, workingDir, BoundedHistory.of(revision, RevisionLimits.DEFAULT));
+                        } else {
+                            range = serialize(gitConfig, settings, workingDir, history);
+                            if (previousCommit != null) {
+                                revisionRanges.put(gitConfig.getUrl(), previousCommit, revision.getRevision(), range);
+                            }
+                        }
+                    }
+
+                    PolledRevision release = toPolledRevision(gitConfig, settings, workingDir, BoundedHistory.Entry.of(revision, RevisionLimits.DEFAULT), tag);
+                    if (range.isTruncated()) {
+                        release.getData().put(REVISIONS_TRUNCATED, "true");
+                    }
+                    return renderJSON(SUCCESS_RESPONSE_CODE, new LatestRevisionsSinceResponse(Collections.singletonList(release), range.getJson()));
+                }
+            });
         } catch (Throwable t) {
             LOGGER.error("get latest revisions since: ", t);
             return renderJSON(INTERNAL_ERROR_RESPONSE_CODE, maskSecretsInString(t.getMessage(), gitConfig));
         }
     }
 
+    /**
+     * Polls of the same folder with the same previous release get the same answer, so
+     * one arriving while another is in flight shares it. The folder holds the working
+     * copy of one material, whose credentials it was fetched with.
+     */
+    private static String pollKey(String request, File workingDir, GitConfig gitConfig, @Nullable String previousRelease, @Nullable String previousCommit) {
+        return String.format("%s#%s#%s#%s#%s", request, workingDir.getAbsolutePath(), gitConfig.getUrl(), previousRelease, previousCommit);
+    }
+
+    /**
+     * Serializes the commits of a range; none of them depends on the release, so the
+     * result can be cached for the next poll of the same range.
+     */
+    private RevisionRangeCache.Range serialize(GitConfig gitConfig, ScmPluginSettings settings, File workingDir, BoundedHistory history) throws IOException {
+        StringWriter json = new StringWriter();
+        String separator = "";
+        for (BoundedHistory.Entry entry : history.getEntries()) {
+            json.write(separator);
+            JSONUtils.toJSON(toPolledRevision(gitConfig, settings, workingDir, entry, null), json);
+            separator = ",";
+        }
+        return new RevisionRangeCache.Range(json.toString(), history.isTruncated());
+    }
+
+    /**
+     * Does in the background what the next poll of a flyweight folder would do over the
+     * network: resolve the latest release, which refreshes the provider's release index,
+     * and fetch its objects. The poll then finds the release in the working copy already,
+     * waiting for the folder if the prefetch is still at it.
+     */
+    void prefetch(Map<String, String> configuration) throws IOException {
+        GitConfig gitConfig = getGitConfig(configuration);
+        try {
+            ScmPluginSettings settings = gitRemoteProvider.getScmConfigurationView().getSettings(configuration);
+            // release fetch mode needs the latest release to fetch; otherwise tags are read from the working copy
+            Optional<GitTag> latest = settings.getFetchMode() == FetchMode.RELEASE || settings.getReleaseSource() != ReleaseSource.TAGS
+                    ? gitRemoteProvider.peekLatestRelease(gitConfig, settings)
+                    : Optional.empty();
+            File workingDir = gitFolderFactory.create(configuration.get(FLYWEIGHT_FOLDER));
+            try (FolderLocks.Held ignored = folderLocks.lock(workingDir)) {
+                fetch(gitFactory.create(gitConfig, workingDir, settings.getGitBackend()), workingDir, gitConfig, settings, null, latest);
+            }
+        } catch (IOException | RuntimeException e) {
+            // the scheduler logs the message, which git fills in with the url it was given
+            throw new IOException(maskSecretsInString(String.valueOf(e.getMessage()), gitConfig), e);
+        }
+    }
+
+    /**
+     * Latest release resolved remotely, once per poll: in release fetch mode to fetch just
+     * that release, and when the previous release commit is known to tell whether it moved.
+     * Empty when neither applies or it cannot be resolved, in which case every tag is fetched.
+     */
+    private Optional<GitTag> peekLatestRelease(GitConfig gitConfig, ScmPluginSettings settings, boolean knowsPreviousCommit) {
+        if (settings.getFetchMode() != FetchMode.RELEASE && !knowsPreviousCommit) {
+            return Optional.empty();
+        }
+        try {
+            return gitRemoteProvider.peekLatestRelease(gitConfig, settings);
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Cannot resolve latest release remotely, fetching instead: %s", maskSecretsInString(String.valueOf(e.getMessage()), gitConfig)));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The release to report: in release fetch mode the one that was fetched, otherwise
+     * the latest one the provider finds in the working copy or remotely.
+     */
+    private String latestRelease(GitHelper git, File workingDir, GitConfig gitConfig, ScmPluginSettings settings, Optional<GitTag> latest) throws IOException {
+        if (settings.getFetchMode() == FetchMode.RELEASE && latest.isPresent()) {
+            return latest.get().getName();
+        }
+        return gitRemoteProvider.getLatestRelease(gitConfig, settings, git, workingDir);
+    }
+
+    /**
+     * Fetches every tag, or in release fetch mode only the latest {@code release} and the previous one, if any.
+     */
+    private void fetch(GitHelper git, File workingDir, GitConfig gitConfig, ScmPluginSettings settings, @Nullable String previousRelease, Optional<GitTag> release) throws IOException {
+        if (settings.getFetchMode() == FetchMode.RELEASE) {
+            if (release.isPresent()) {
+                if (isFetched(workingDir, release.get().getName(), release.get().getCommit())
+                        && (previousRelease == null || previousRelease.equals(release.get().getName()) || isFetched(workingDir, previousRelease, null))) {
+                    LOGGER.debug(String.format("Release %s of %s is in the working copy already", release.get().getName(), gitConfig.getUrl()));
+                    return;
+                }
+                String refSpec = gitRemoteProvider.getRefSpec(release.get().getName());
+                TagFetch tagFetch = new TagFetch(new GitCommand(workingDir));
+                if (previousRelease != null && !previousRelease.equals(release.get().getName())) {
+                    try {
+                        gitStep("fetchRelease", gitConfig).run(() -> tagFetch.fetch(gitConfig.getEffectiveUrl(),
+                                Arrays.asList(refSpec, gitRemoteProvider.getRefSpec(previousRelease)), settings.getFetchDepth(), settings.getShallowSince()));
+                        return;
+                    } catch (IOException e) {
+                        // the previous release may be gone, or a commit rather than a tag
+                        LOGGER.debug(String.format("Cannot fetch previous release %s, fetching latest release only", previousRelease));
+                    }
+                }
+                gitStep("fetchRelease", gitConfig).run(() -> tagFetch.fetch(gitConfig.getEffectiveUrl(),
+                        Collections.singletonList(refSpec), settings.getFetchDepth(), settings.getShallowSince()));
+                return;
+            }
+            LOGGER.info(String.format("Cannot resolve latest release of %s remotely, fetching all tags", gitConfig.getUrl()));
+        }
+        gitStep("cloneOrFetch", gitConfig).run(() -> git.cloneOrFetch(gitRemoteProvider.getRefSpec()));
+    }
+
+    /**
+     * Latencies of a git step on the repository of {@code gitConfig}, credentials left out.
+     */
+    private Metrics.Histogram gitStep(String step, GitConfig gitConfig) {
+        String url = gitConfig.getUrl();
+        return metrics.histogram(GIT_SECONDS, "step", step, "repository", url == null ? "" : url.replaceFirst("//[^/@]*@", "//"));
+    }
+
+    /**
+     * @param commit commit the tag must point to, or null for any
+     */
+    private static boolean isFetched(File workingDir, String tag, @Nullable String commit) throws IOException {
+        if (!new File(workingDir, ".git").isDirectory()) {
+            return false;
+        }
+        Optional<GitTag> local = new LocalTags(new GitCommand(workingDir)).get(tag);
+        return local.isPresent() && (commit == null || commit.equals(local.get().getCommit()));
+    }
+
     private String maskSecretsInString(String message, GitConfig gitConfig) {
         String messageForDisplay = message;
         String password = gitConfig.getPassword();
         if (StringUtils.isNotBlank(password)) {
-            messageForDisplay = message.replaceAll(password, "****");
+            messageForDisplay = message.replace(password, "****");
         }
         String username = gitConfig.getUsername();
         if (StringUtils.isNotBlank(username)) {
-            messageForDisplay = messageForDisplay.replaceAll(username, "****");
+            messageForDisplay = messageForDisplay.replace(username, "****");
         }
         return messageForDisplay;
     }
 
 
     private GoPluginApiResponse handleCheckout(GoPluginApiRequest goPluginApiRequest) {
-        Map<String, Object> requestBodyMap = (Map<String, Object>) fromJSON(goPluginApiRequest.requestBody());
-        Map<String, String> configuration = keyValuePairs(requestBodyMap, "scm-configuration");
+        ScmRequest request = JSONUtils.fromJSON(goPluginApiRequest.requestBody(), ScmRequest.class);
+        Map<String, String> configuration = request.getConfiguration();
         GitConfig gitConfig = getGitConfig(configuration);
-        String destinationFolder = (String) requestBodyMap.get("destination-folder");
-        Map<String, Object> revisionMap = (Map<String, Object>) requestBodyMap.get("revision");
-        String revision = (String) revisionMap.get("revision");
+        String destinationFolder = request.getDestinationFolder();
+        String revision = request.getRevision().getRevision();
         LOGGER.info(String.format("destination: %s. commit: %s", destinationFolder, revision));
 
         try {
-            GitHelper git = gitFactory.create(gitConfig, gitFolderFactory.create(destinationFolder));
-            git.cloneOrFetch(gitRemoteProvider.getRefSpec());
-            git.resetHard(revision);
-            git.submoduleUpdate();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("messages", Collections.singletonList(String.format("Checked out to revision %s", revision)));
+            ScmPluginSettings settings = gitRemoteProvider.getScmConfigurationView().getSettings(configuration);
+            File destination = gitFolderFactory.create(destinationFolder);
+            try (FolderLocks.Held ignored = folderLocks.lock(destination)) {
+                if (referenceRepositories != null) {
+                    try {
+                        referenceRepositories.prepare(gitConfig.getUrl(), gitConfig.getEffectiveUrl(), gitRemoteProvider.getRefSpec(), destination);
+                    } catch (IOException e) {
+                        LOGGER.warn(String.format("Cannot use reference repository, checking out without it: %s", maskSecretsInString(String.valueOf(e.getMessage()), gitConfig)));
+                    }
+                }
+                Submodules submodules = new Submodules(new GitCommand(destination));
+                Optional<String> previousHead = submodules.head();
+                GitHelper git = gitFactory.create(gitConfig, destination, settings.getGitBackend());
+                gitStep("cloneOrFetch", gitConfig).run(() -> git.cloneOrFetch(gitRemoteProvider.getRefSpec()));
+                gitStep("resetHard", gitConfig).run(() -> git.resetHard(revision));
+                if (previousHead.isPresent()) {
+                    gitStep("submoduleUpdate", gitConfig).run(() -> submodules.update(submodules.changedPaths(previousHead.get(), "HEAD")));
+                } else {
+                    gitStep("submoduleUpdate", gitConfig).run(git::submoduleUpdate);
+                }
+            }
 
-            return renderJSON(SUCCESS_RESPONSE_CODE, response);
+            return renderJSON(SUCCESS_RESPONSE_CODE, StatusResponse.success(Collections.singletonList(String.format("Checked out to revision %s", revision))));
         } catch (Throwable t) {
             LOGGER.warn("checkout: ", t);
             return renderJSON(INTERNAL_ERROR_RESPONSE_CODE, t.getMessage());
         }
     }
 
+    /**
+     * Like {@link #getGitConfig(Map)}, for a poll into {@code flyweightFolder}; the
+     * material is prefetched from now on, until it has not been polled for a while.
+     */
+    GitConfig getGitConfig(Map<String, String> configuration, String flyweightFolder) {
+        GitConfig gitConfig = getGitConfig(configuration);
+        if (prefetches != null && flyweightFolder != null && gitConfig.getUrl() != null && !gitRemoteProvider.isInvalidURL(gitConfig.getUrl())) {
+            Map<String, String> target = new HashMap<>(configuration);
+            target.put(FLYWEIGHT_FOLDER, flyweightFolder);
+            prefetches.register(flyweightFolder, target);
+        }
+        return gitConfig;
+    }
+
     GitConfig getGitConfig(Map<String, String> configuration) {
         GitConfig gitConfig = new GitConfig(
                 configuration.get("url"),
@@ -314,45 +607,33 @@ public class GocdScmPluginTags implements GoPlugin {
         }
     }
 
-    Map<String, Object> getRevisionMap(GitConfig gitConfig, Revision revision, @Nullable String tag) {
-        List<Map<String, String>> modifiedFilesMapList = new ArrayList<>();
-        if (!ListUtil.isEmpty(revision.getModifiedFiles())) {
-            for (ModifiedFile modifiedFile : revision.getModifiedFiles()) {
-                Map<String, String> modifiedFileMap = new HashMap<>();
-                modifiedFileMap.put("fileName", modifiedFile.getFileName());
-                modifiedFileMap.put("action", modifiedFile.getAction());
-                modifiedFilesMapList.add(modifiedFileMap);
-            }
+    PolledRevision toPolledRevision(GitConfig gitConfig, ScmPluginSettings settings, File workingDir, BoundedHistory.Entry entry, @Nullable String tag) {
+        Revision revision = entry.getRevision();
+        if (tag == null && !entry.isFilesTruncated() && !entry.isCommentTruncated()) {
+            // the commits between two releases, of which there can be thousands
+            return new PolledRevision(revision.getRevision(), revision, Collections.emptyMap());
         }
 
         Map<String, String> customDataBag = new HashMap<>();
-
-        String revisionSHA = revision.getRevision();
-        if (tag != null) {
-            revisionSHA = tag;
-            customDataBag.put("RELEASE_TAG", tag);
-            gitRemoteProvider.populateReleaseData(gitConfig, revision, tag, customDataBag);
+        if (entry.isFilesTruncated()) {
+            customDataBag.put(MODIFIED_FILES_TRUNCATED, "true");
+        }
+        if (entry.isCommentTruncated()) {
+            customDataBag.put(COMMENT_TRUNCATED, "true");
+        }
+        if (tag == null) {
+            return new PolledRevision(revision.getRevision(), revision, customDataBag);
         }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("revision", revisionSHA);
-        response.put("user", revision.getUser());
-        response.put("timestamp", new SimpleDateFormat(DATE_PATTERN).format(revision.getTimestamp()));
-        response.put("revisionComment", revision.getComment());
-        response.put("modifiedFiles", modifiedFilesMapList);
-        response.put("data", customDataBag);
-        return response;
-    }
-
-    private Map<String, String> keyValuePairs(Map<String, Object> requestBodyMap, String mainKey) {
-        Map<String, String> keyValuePairs = new HashMap<>();
-        Map<String, Object> fieldsMap = (Map<String, Object>) requestBodyMap.get(mainKey);
-        for (String field : fieldsMap.keySet()) {
-            Map<String, Object> fieldProperties = (Map<String, Object>) fieldsMap.get(field);
-            String value = (String) fieldProperties.get("value");
-            keyValuePairs.put(field, value);
+        customDataBag.put("RELEASE_TAG", tag);
+        customDataBag.put(RELEASE_COMMIT, revision.getRevision());
+        gitRemoteProvider.populateReleaseData(gitConfig, settings, workingDir, revision, tag, customDataBag);
+        String releaseBody = customDataBag.get("RELEASE_BODY");
+        if (releaseBody != null && releaseBody.length() > RevisionLimits.DEFAULT.getMaxCommentLength()) {
+            customDataBag.put("RELEASE_BODY", releaseBody.substring(0, RevisionLimits.DEFAULT.getMaxCommentLength()));
+            customDataBag.put(RELEASE_BODY_TRUNCATED, "true");
         }
-        return keyValuePairs;
+        return new PolledRevision(tag, revision, customDataBag);
     }
 
     public void validateUrl(GitConfig gitConfig, Map<String, Object> fieldMap) {
@@ -365,6 +646,24 @@ public class GocdScmPluginTags implements GoPlugin {
         }
     }
 
+    public void validateTagFilter(Map<String, String> configuration, String key, Map<String, Object> fieldMap) {
+        try {
+            new BranchMatcher(configuration.get(key), BranchMatcher.Mode.PASS_EMPTY);
+        } catch (PatternSyntaxException e) {
+            fieldMap.put("key", key);
+            fieldMap.put("message", String.format("Invalid pattern %s: %s", e.getPattern(), e.getDescription()));
+        }
+    }
+
+    public void validateMajorVersion(Map<String, String> configuration, Map<String, Object> fieldMap) {
+        try {
+            DefaultScmPluginConfigurationView.parseMajorVersion(configuration.get(DefaultScmPluginConfigurationView.PIN_MAJOR_VERSION));
+        } catch (NumberFormatException e) {
+            fieldMap.put("key", DefaultScmPluginConfigurationView.PIN_MAJOR_VERSION);
+            fieldMap.put("message", "Major version must be a number, such as 2");
+        }
+    }
+
     public void checkConnection(GitConfig gitConfig, Map<String, Object> response, List<String> messages) {
         LOGGER.info("Checking SCM connection...");
         if (StringUtil.isEmpty(gitConfig.getUrl())) {
@@ -5,9 +5,14 @@ import com.tw.go.plugin.model.GitConfig;
 import com.tw.go.plugin.model.Revision;
 import io.cogniflare.gocd.github.settings.general.GeneralPluginConfigurationView;
 import io.cogniflare.gocd.github.settings.scm.ScmPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.ScmPluginSettings;
+import io.cogniflare.gocd.github.util.GitTag;
+import io.cogniflare.gocd.github.util.Metrics;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
 
 public interface GitRemoteProvider {
     String getName();
@@ -20,11 +25,28 @@ public interface GitRemoteProvider {
 
     String getRefSpec();
 
-    void populateReleaseData(GitConfig gitConfig, Revision prSHA, String tag, Map<String, String> data);
+    /**
+     * Refspec fetching only the given release.
+     */
+    String getRefSpec(String release);
+
+    void populateReleaseData(GitConfig gitConfig, ScmPluginSettings settings, File workingDir, Revision prSHA, String tag, Map<String, String> data);
 
     ScmPluginConfigurationView getScmConfigurationView();
 
     GeneralPluginConfigurationView getGeneralConfigurationView();
 
-    String getLatestRelease(GitConfig gitConfig, GitHelper git) throws IOException;
+    String getLatestRelease(GitConfig gitConfig, ScmPluginSettings settings, GitHelper git, File workingDir) throws IOException;
+
+    /**
+     * Latest release and the commit it points to, resolved without touching a working copy.
+     * Empty when that cannot be done cheaply.
+     */
+    Optional<GitTag> peekLatestRelease(GitConfig gitConfig, ScmPluginSettings settings) throws IOException;
+
+    /**
+     * Exposes the provider's own counters, such as cache hits, through {@code metrics}.
+     */
+    default void registerMetrics(Metrics metrics) {
+    }
 }
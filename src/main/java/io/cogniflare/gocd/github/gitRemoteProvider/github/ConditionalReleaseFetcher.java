@@ -0,0 +1,173 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lists a repository's releases. The first page is fetched with conditional requests.
+ * <p>
+ * The ETag/Last-Modified of the last successful listing is kept per repository
+ * (and credential), so an unchanged listing is answered with a 304 that GitHub
+ * does not count against the rate limit. While the {@link RateLimitBudget} of the
+ * credential is low the cached listing is served without asking at all. Listings
+ * are kept in a {@link ReleaseStore} too, so they are revalidated rather than
+ * transferred again after a restart.
+ */
+public class ConditionalReleaseFetcher {
+    /**
+     * Releases on a page of a listing, GitHub's default; a shorter page is the last one.
+     */
+    public static final int PAGE_SIZE = 30;
+    private static final Logger LOGGER = Logger.getLoggerFor(ConditionalReleaseFetcher.class);
+    private static final Gson GSON = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+    private static final Type RELEASE_LIST_TYPE = new TypeToken<List<GitHubRelease>>() {
+    }.getType();
+
+    private final GitHubRestClient client;
+    private final RateLimitBudget budget;
+    private final ReleaseStore store;
+    private final Map<String, ReleaseStore.Listing> listings = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ConditionalReleaseFetcher(GitHubRestClient client, RateLimitBudget budget) {
+        this(client, budget, ReleaseStore.NONE);
+    }
+
+    public ConditionalReleaseFetcher(GitHubRestClient client, RateLimitBudget budget, ReleaseStore store) {
+        this.client = client;
+        this.budget = budget;
+        this.store = store;
+    }
+
+    public List<GitHubRelease> listReleases(String apiEndpoint, String repository, GitHubCredentials credentials) throws IOException {
+        String url = String.format("%srepos/%s/releases", apiEndpoint, repository);
+        GitHubClientPool.Key tenant = new GitHubClientPool.Key(apiEndpoint, credentials.fingerprint());
+        String key = GitHubCoordinates.key(apiEndpoint, repository) + "#" + credentials.fingerprint();
+        ReleaseStore.Listing cached = listings.get(key);
+        if (cached == null) {
+            cached = store.getListing(key).orElse(null);
+            if (cached != null) {
+                listings.putIfAbsent(key, cached);
+            }
+        }
+
+        if (cached != null && !budget.tryAcquire(tenant)) {
+            LOGGER.debug(String.format("API budget is low, serving cached releases of %s", repository));
+            return cached.getReleases();
+        }
+        if (cached == null) {
+            budget.checkNotExhausted(tenant);
+        }
+
+        Map<String, String> headers = headers(credentials);
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                headers.put("If-None-Match", cached.getEtag());
+            } else if (cached.getLastModified() != null) {
+                headers.put("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        GitHubRestClient.Response response = client.get(url, headers);
+        budget.observe(tenant, response);
+        if (response.getStatus() == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            hits.incrementAndGet();
+            // keeps a listing that does not change from expiring in the store
+            store.putListing(key, cached);
+            LOGGER.debug(String.format("Releases of %s not modified (hits: %d, misses: %d)", repository, hits.get(), misses.get()));
+            return cached.getReleases();
+        }
+        List<GitHubRelease> releases = parseReleases(repository, response);
+        misses.incrementAndGet();
+        ReleaseStore.Listing listing = new ReleaseStore.Listing(response.getHeader("ETag"), response.getHeader("Last-Modified"), releases);
+        listings.put(key, listing);
+        store.putListing(key, listing);
+        LOGGER.debug(String.format("Releases of %s fetched (hits: %d, misses: %d)", repository, hits.get(), misses.get()));
+        return releases;
+    }
+
+    /**
+     * Lists an older page of releases. Only the first page is worth revalidating,
+     * so this is a plain request.
+     */
+    public List<GitHubRelease> listReleases(String apiEndpoint, String repository, GitHubCredentials credentials, int page) throws IOException {
+        if (page == 1) {
+            return listReleases(apiEndpoint, repository, credentials);
+        }
+        String url = String.format("%srepos/%s/releases?page=%d", apiEndpoint, repository, page);
+        return parseReleases(repository, get(url, apiEndpoint, credentials));
+    }
+
+    public Optional<GitHubRelease> getRelease(String apiEndpoint, String repository, GitHubCredentials credentials, String tag) throws IOException {
+        String url = String.format("%srepos/%s/releases/tags/%s", apiEndpoint, repository, pathSegment(tag));
+        GitHubRestClient.Response response = get(url, apiEndpoint, credentials);
+        if (response.getStatus() == HttpURLConnection.HTTP_NOT_FOUND) {
+            return Optional.empty();
+        }
+        if (response.getStatus() != HttpURLConnection.HTTP_OK) {
+            throw new IOException(String.format("Cannot get release %s of %s: HTTP %d %s", tag, repository, response.getStatus(), response.getBody()));
+        }
+        return Optional.ofNullable(GSON.fromJson(response.getBody(), GitHubRelease.class));
+    }
+
+    // URLEncoder encodes forms, where a space is "+"; in a path GitHub takes "+" literally
+    private static String pathSegment(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+    }
+
+    private GitHubRestClient.Response get(String url, String apiEndpoint, GitHubCredentials credentials) throws IOException {
+        GitHubClientPool.Key tenant = new GitHubClientPool.Key(apiEndpoint, credentials.fingerprint());
+        budget.checkNotExhausted(tenant);
+        GitHubRestClient.Response response = client.get(url, headers(credentials));
+        budget.observe(tenant, response);
+        return response;
+    }
+
+    private static Map<String, String> headers(GitHubCredentials credentials) {
+        Map<String, String> headers = new HashMap<>();
+        String authorization = credentials.authorizationHeader();
+        if (authorization != null) {
+            headers.put("Authorization", authorization);
+        }
+        return headers;
+    }
+
+    private static List<GitHubRelease> parseReleases(String repository, GitHubRestClient.Response response) throws IOException {
+        if (response.getStatus() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            throw new GitHubAuthenticationException(String.format("Cannot list releases of %s: bad credentials", repository));
+        }
+        if (response.getStatus() != HttpURLConnection.HTTP_OK) {
+            throw new IOException(String.format("Cannot list releases of %s: HTTP %d %s", repository, response.getStatus(), response.getBody()));
+        }
+        List<GitHubRelease> releases = GSON.fromJson(response.getBody(), RELEASE_LIST_TYPE);
+        return releases == null ? Collections.emptyList() : Collections.unmodifiableList(releases);
+    }
+
+    /**
+     * Number of listings answered from the cache by a 304.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of listings that had to be transferred in full.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,557 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * {@link ReleaseStore} in an append-only journal file, read on first use.
+ * <p>
+ * The file starts with a magic number, a format version and a random salt; a file
+ * of another version is started over. Each record is its length, a CRC-32 and a
+ * JSON payload, later records replacing earlier ones with the same key and removals
+ * leaving a tombstone. A record cut short by a crash fails its checksum and is
+ * dropped, along with anything after it. A record still in use, i.e. read or put
+ * again, is written again once it is half way to the maximum age; records older
+ * than that are dropped when the file is read. Once most of the file is replaced,
+ * removed or expired records, the live ones are written to a new file that
+ * atomically takes its place.
+ * <p>
+ * Keys derived from credentials, those of listings and authentication methods, are
+ * written as an HMAC under the salt rather than as they are.
+ * <p>
+ * Failing to write is logged and turns persistence off; the plugin keeps working
+ * from memory.
+ */
+public class FileReleaseStore implements ReleaseStore {
+    private static final Logger LOGGER = Logger.getLoggerFor(FileReleaseStore.class);
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private static final byte[] MAGIC = {'G', 'H', 'R', 'S'};
+    static final int VERSION = 2;
+    private static final int SALT_LENGTH = 32;
+    private static final int HEADER_LENGTH = MAGIC.length + 4 + SALT_LENGTH;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    private static final long COMPACTION_MIN_BYTES = 1024 * 1024;
+    private static final long MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final String LISTING = "listing";
+    private static final String RELEASE = "release";
+    private static final String STRATEGY = "strategy";
+
+    private final File file;
+    private final long compactionMinBytes;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final Map<String, Listing> listings = new HashMap<>();
+    // repository -> tag -> release as JSON, so that an unchanged release is not written again
+    private final Map<String, Map<String, String>> releases = new HashMap<>();
+    private final Map<String, String> strategies = new HashMap<>();
+    // the record currently holding each key
+    private final Map<String, Slot> slots = new HashMap<>();
+    private long liveBytes;
+    private long length;
+    private byte[] salt;
+    private Mac hmac;
+    private FileChannel journal;
+    private boolean loaded;
+    private boolean failed;
+
+    public FileReleaseStore(File file) {
+        this(file, MAX_AGE_MILLIS);
+    }
+
+    /**
+     * @param maxAgeMillis how long a record not written again is kept
+     */
+    public FileReleaseStore(File file, long maxAgeMillis) {
+        this(file, COMPACTION_MIN_BYTES, maxAgeMillis, System::currentTimeMillis);
+    }
+
+    FileReleaseStore(File file, long compactionMinBytes, long maxAgeMillis, LongSupplier clock) {
+        this.file = file;
+        this.compactionMinBytes = compactionMinBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized Optional<Listing> getListing(String key) {
+        load();
+        String id = secret(key);
+        Listing listing = listings.get(id);
+        if (listing != null) {
+            renew(Record.listing(id, listing));
+        }
+        return Optional.ofNullable(listing);
+    }
+
+    @Override
+    public synchronized void putListing(String key, Listing listing) {
+        load();
+        Record record = Record.listing(secret(key), listing);
+        Listing stored = listings.get(record.key);
+        if (stored != null && isSame(stored, listing)) {
+            renew(record);
+        } else {
+            append(Collections.singletonList(record));
+        }
+    }
+
+    @Override
+    public synchronized List<GitHubRelease> getReleases(String repository) {
+        load();
+        Map<String, String> stored = releases.get(repository);
+        if (stored == null) {
+            return Collections.emptyList();
+        }
+        List<GitHubRelease> result = new ArrayList<>(stored.size());
+        for (String json : stored.values()) {
+            result.add(GSON.fromJson(json, GitHubRelease.class));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void putRelease(String repository, GitHubRelease release) {
+        putReleases(repository, Collections.singletonList(release));
+    }
+
+    @Override
+    public synchronized void putReleases(String repository, List<GitHubRelease> changed) {
+        load();
+        Map<String, String> stored = releases.getOrDefault(repository, Collections.emptyMap());
+        List<Record> records = new ArrayList<>(changed.size());
+        for (GitHubRelease release : changed) {
+            Record record = Record.release(repository, release);
+            if (!GSON.toJson(release).equals(stored.get(release.getTagName())) || isStale(record)) {
+                records.add(record);
+            }
+        }
+        append(records);
+    }
+
+    @Override
+    public synchronized void removeReleases(String repository, Collection<String> tags) {
+        load();
+        Map<String, String> stored = releases.getOrDefault(repository, Collections.emptyMap());
+        List<Record> records = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            if (stored.containsKey(tag)) {
+                records.add(Record.removal(repository, tag));
+            }
+        }
+        append(records);
+    }
+
+    @Override
+    public synchronized Optional<GitHubAuthenticator.Strategy> getStrategy(GitHubClientPool.Key key) {
+        load();
+        String id = secret(strategyKey(key));
+        String name = strategies.get(id);
+        if (name == null) {
+            return Optional.empty();
+        }
+        renew(Record.strategy(id, name));
+        try {
+            return Optional.of(GitHubAuthenticator.Strategy.valueOf(name));
+        } catch (IllegalArgumentException e) {
+            // a method this version no longer has
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public synchronized void putStrategy(GitHubClientPool.Key key, GitHubAuthenticator.Strategy strategy) {
+        load();
+        Record record = Record.strategy(secret(strategyKey(key)), strategy.name());
+        if (!strategy.name().equals(strategies.get(record.key)) || isStale(record)) {
+            append(Collections.singletonList(record));
+        }
+    }
+
+    @Override
+    public synchronized void removeStrategy(GitHubClientPool.Key key) {
+        load();
+        String id = secret(strategyKey(key));
+        if (strategies.containsKey(id)) {
+            append(Collections.singletonList(Record.strategy(id, null)));
+        }
+    }
+
+    synchronized long length() {
+        return length;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        if (!file.isFile()) {
+            return;
+        }
+        long started = clock.getAsLong();
+        long valid = 0;
+        int records = 0;
+        int expired = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            int version = in.readInt();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                LOGGER.warn(String.format("Release store %s has an unsupported format, starting over", file));
+                return;
+            }
+            byte[] stored = new byte[SALT_LENGTH];
+            in.readFully(stored);
+            salt = stored;
+            valid = HEADER_LENGTH;
+            while (true) {
+                int recordLength = in.readInt();
+                int checksum = in.readInt();
+                if (recordLength <= 0 || recordLength > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                byte[] payload = new byte[recordLength];
+                in.readFully(payload);
+                if (checksum != checksum(payload)) {
+                    break;
+                }
+                Record record = GSON.fromJson(new String(payload, StandardCharsets.UTF_8), Record.class);
+                valid += RECORD_HEADER_LENGTH + recordLength;
+                records++;
+                // records of a key are in the order written, so the ones it replaced expired too
+                if (started - record.storedAt > maxAgeMillis) {
+                    expired++;
+                    continue;
+                }
+                apply(record, RECORD_HEADER_LENGTH + recordLength);
+            }
+        } catch (EOFException e) {
+            // end of the journal, or of a record cut short
+        } catch (IOException | JsonParseException e) {
+            LOGGER.warn(String.format("Cannot read release store %s past byte %d: %s", file, valid, e.getMessage()));
+        }
+        length = valid;
+        if (valid < file.length()) {
+            LOGGER.warn(String.format("Dropping %d bytes of incomplete records from release store %s", file.length() - valid, file));
+        }
+        LOGGER.debug(String.format("Loaded %d records, %d of them expired, from release store %s in %d ms",
+                records, expired, file, clock.getAsLong() - started));
+        if (expired > 0 || isMostlyDead()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code records} and syncs the file once for all of them.
+     */
+    private void append(List<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        for (Record record : records) {
+            record.storedAt = now;
+            byte[] payload = GSON.toJson(record).getBytes(StandardCharsets.UTF_8);
+            apply(record, RECORD_HEADER_LENGTH + payload.length);
+            payloads.add(payload);
+        }
+        if (failed) {
+            return;
+        }
+        try {
+            FileChannel channel = journal();
+            for (byte[] payload : payloads) {
+                write(channel, payload);
+                length += RECORD_HEADER_LENGTH + payload.length;
+            }
+            channel.force(false);
+            if (isMostlyDead()) {
+                compact();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes {@code record}, unchanged, again when it is half way to expiring.
+     */
+    private void renew(Record record) {
+        if (isStale(record)) {
+            append(Collections.singletonList(record));
+        }
+    }
+
+    private boolean isStale(Record record) {
+        Slot slot = slots.get(record.id());
+        return slot != null && clock.getAsLong() - slot.storedAt > maxAgeMillis / 2;
+    }
+
+    // the validators stand for the content; without any, it is compared as is
+    private static boolean isSame(Listing stored, Listing listing) {
+        if (stored.getEtag() != null || stored.getLastModified() != null) {
+            return Objects.equals(stored.getEtag(), listing.getEtag()) && Objects.equals(stored.getLastModified(), listing.getLastModified());
+        }
+        return listing.getEtag() == null && listing.getLastModified() == null
+                && GSON.toJson(stored.getReleases()).equals(GSON.toJson(listing.getReleases()));
+    }
+
+    private boolean isMostlyDead() {
+        return length > compactionMinBytes && length > 2 * (HEADER_LENGTH + liveBytes);
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        LOGGER.warn(String.format("Cannot write release store %s, releases are no longer kept across restarts: %s", file, e.getMessage()));
+        closeJournal();
+    }
+
+    private void apply(Record record, int recordLength) {
+        String id = record.id();
+        Slot previous = slots.remove(id);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        // a removal is not worth keeping once the record it removes is gone
+        boolean live = true;
+        switch (String.valueOf(record.type)) {
+            case LISTING:
+                listings.put(record.key, new Listing(record.etag, record.lastModified,
+                        record.releases == null ? Collections.emptyList() : Collections.unmodifiableList(record.releases)));
+                break;
+            case RELEASE:
+                if (record.release == null) {
+                    Map<String, String> stored = releases.get(record.key);
+                    if (stored != null) {
+                        stored.remove(record.tag);
+                        if (stored.isEmpty()) {
+                            releases.remove(record.key);
+                        }
+                    }
+                    live = false;
+                } else {
+                    releases.computeIfAbsent(record.key, repository -> new HashMap<>()).put(record.release.getTagName(), GSON.toJson(record.release));
+                }
+                break;
+            case STRATEGY:
+                if (record.strategy == null) {
+                    strategies.remove(record.key);
+                    live = false;
+                } else {
+                    strategies.put(record.key, record.strategy);
+                }
+                break;
+            default:
+                // written by a later version
+                live = false;
+        }
+        if (live) {
+            slots.put(id, new Slot(recordLength, record.storedAt));
+            liveBytes += recordLength;
+        }
+    }
+
+    // as strategies were stored before keys printed a label rather than the fingerprint
+    private static String strategyKey(GitHubClientPool.Key key) {
+        return key.getApiEndpoint() + " (" + key.getCredentialFingerprint() + ")";
+    }
+
+    private String secret(String key) {
+        try {
+            if (hmac == null) {
+                hmac = Mac.getInstance("HmacSHA256");
+                hmac.init(new SecretKeySpec(salt, "HmacSHA256"));
+            }
+            byte[] digest = hmac.doFinal(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private FileChannel journal() throws IOException {
+        if (journal == null) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException(String.format("Cannot create folder %s", parent));
+            }
+            journal = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (length == 0) {
+                writeHeader(journal, salt);
+                length = HEADER_LENGTH;
+            }
+            // drops an incomplete record, or one of an unsupported format
+            journal.truncate(length);
+            journal.position(length);
+        }
+        return journal;
+    }
+
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+        long compactedLength = HEADER_LENGTH;
+        try (FileChannel channel = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(channel, salt);
+            for (Record record : liveRecords()) {
+                byte[] payload = GSON.toJson(record).getBytes(StandardCharsets.UTF_8);
+                write(channel, payload);
+                compactedLength += RECORD_HEADER_LENGTH + payload.length;
+            }
+            channel.force(true);
+        }
+        closeJournal();
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.debug(String.format("Compacted release store %s from %d to %d bytes", file, length, compactedLength));
+        length = compactedLength;
+    }
+
+    private List<Record> liveRecords() {
+        List<Record> records = new ArrayList<>();
+        for (Map.Entry<String, Listing> listing : listings.entrySet()) {
+            records.add(Record.listing(listing.getKey(), listing.getValue()));
+        }
+        for (Map.Entry<String, Map<String, String>> repository : releases.entrySet()) {
+            for (String json : repository.getValue().values()) {
+                records.add(Record.release(repository.getKey(), GSON.fromJson(json, GitHubRelease.class)));
+            }
+        }
+        for (Map.Entry<String, String> strategy : strategies.entrySet()) {
+            records.add(Record.strategy(strategy.getKey(), strategy.getValue()));
+        }
+        // rewriting a record does not make it any younger
+        for (Record record : records) {
+            record.storedAt = slots.get(record.id()).storedAt;
+        }
+        return records;
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                // nothing left to lose
+            }
+            journal = null;
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, byte[] salt) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.put(MAGIC).putInt(VERSION).put(salt).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + payload.length);
+        record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static class Record {
+        private String type;
+        private String key;
+        private String etag;
+        private String lastModified;
+        private List<GitHubRelease> releases;
+        private GitHubRelease release;
+        // tag of a removed release
+        private String tag;
+        private String strategy;
+        private long storedAt;
+
+        private static Record listing(String key, Listing listing) {
+            Record record = new Record();
+            record.type = LISTING;
+            record.key = key;
+            record.etag = listing.getEtag();
+            record.lastModified = listing.getLastModified();
+            record.releases = listing.getReleases();
+            return record;
+        }
+
+        private static Record release(String repository, GitHubRelease release) {
+            Record record = new Record();
+            record.type = RELEASE;
+            record.key = repository;
+            record.release = release;
+            return record;
+        }
+
+        private static Record removal(String repository, String tag) {
+            Record record = new Record();
+            record.type = RELEASE;
+            record.key = repository;
+            record.tag = tag;
+            return record;
+        }
+
+        private static Record strategy(String key, String strategy) {
+            Record record = new Record();
+            record.type = STRATEGY;
+            record.key = key;
+            record.strategy = strategy;
+            return record;
+        }
+
+        private String id() {
+            return RELEASE.equals(type) ? type + '#' + key + '#' + (release == null ? tag : release.getTagName()) : type + '#' + key;
+        }
+    }
+
+    private static class Slot {
+        private final int length;
+        private final long storedAt;
+
+        private Slot(int length, long storedAt) {
+            this.length = length;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import java.io.IOException;
+
+/**
+ * GitHub rejected the credentials of a request (HTTP 401).
+ */
+public class GitHubAuthenticationException extends IOException {
+    public GitHubAuthenticationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,135 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import com.tw.go.plugin.model.GitConfig;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs in to GitHub by probing the supported authentication methods in turn.
+ * <p>
+ * The method that worked is remembered per (endpoint, credential) so later logins
+ * try it first and need a single round trip. It is forgotten as soon as it fails.
+ * Remembered methods are kept in a {@link ReleaseStore}, so they outlive a restart.
+ */
+public class GitHubAuthenticator {
+    private static final Logger LOGGER = Logger.getLoggerFor(GitHubAuthenticator.class);
+
+    public enum Strategy {
+        ENTERPRISE_PASSWORD(true, "GitHub enterprise using password") {
+            @Override
+            GitHub connect(String apiEndpoint, GitConfig gitConfig) throws IOException {
+                return GitHub.connectToEnterprise(apiEndpoint, gitConfig.getUsername(), gitConfig.getPassword());
+            }
+        },
+        ENTERPRISE_OAUTH(true, "GitHub enterprise using oAuth") {
+            @Override
+            GitHub connect(String apiEndpoint, GitConfig gitConfig) throws IOException {
+                return GitHub.connectToEnterprise(apiEndpoint, gitConfig.getPassword());
+            }
+        },
+        CLOUD_PASSWORD(false, "GitHub cloud using password") {
+            @Override
+            GitHub connect(String apiEndpoint, GitConfig gitConfig) throws IOException {
+                return GitHub.connectUsingPassword(gitConfig.getUsername(), gitConfig.getPassword());
+            }
+        },
+        CLOUD_OAUTH(false, "GitHub cloud using oAuth") {
+            @Override
+            GitHub connect(String apiEndpoint, GitConfig gitConfig) throws IOException {
+                return GitHub.connect(gitConfig.getUsername(), gitConfig.getPassword());
+            }
+        };
+
+        private final boolean enterprise;
+        private final String description;
+
+        Strategy(boolean enterprise, String description) {
+            this.enterprise = enterprise;
+            this.description = description;
+        }
+
+        abstract GitHub connect(String apiEndpoint, GitConfig gitConfig) throws IOException;
+
+        boolean appliesTo(GitHubCoordinates coordinates) {
+            return !enterprise || coordinates.isEnterprise();
+        }
+    }
+
+    interface Connector {
+        GitHub connect(Strategy strategy, String apiEndpoint, GitConfig gitConfig) throws IOException;
+    }
+
+    private final Map<GitHubClientPool.Key, Strategy> strategies = new ConcurrentHashMap<>();
+    private final Connector connector;
+    private final ReleaseStore store;
+
+    public GitHubAuthenticator() {
+        this(ReleaseStore.NONE);
+    }
+
+    public GitHubAuthenticator(ReleaseStore store) {
+        this(Strategy::connect, store);
+    }
+
+    GitHubAuthenticator(Connector connector) {
+        this(connector, ReleaseStore.NONE);
+    }
+
+    GitHubAuthenticator(Connector connector, ReleaseStore store) {
+        this.connector = connector;
+        this.store = store;
+    }
+
+    public GitHub login(GitHubClientPool.Key key, GitHubCoordinates coordinates, GitConfig gitConfig) throws IOException {
+        Strategy remembered = strategies.get(key);
+        if (remembered == null) {
+            remembered = store.getStrategy(key).orElse(null);
+        }
+        List<Strategy> candidates = new ArrayList<>();
+        if (remembered != null) {
+            candidates.add(remembered);
+        }
+        for (Strategy strategy : Strategy.values()) {
+            if (strategy != remembered && strategy.appliesTo(coordinates)) {
+                candidates.add(strategy);
+            }
+        }
+
+        for (Strategy strategy : candidates) {
+            try {
+                GitHub gitHub = connector.connect(strategy, coordinates.getApiEndpoint(), gitConfig);
+                gitHub.getRepository(coordinates.getRepository()); // test connection
+                if (strategy != remembered) {
+                    LOGGER.info(String.format("Successfully authenticated to %s (%s)", strategy.description, coordinates.getApiEndpoint()));
+                }
+                // put even when unchanged, so that the store keeps a strategy in use
+                strategies.put(key, strategy);
+                store.putStrategy(key, strategy);
+                return gitHub;
+            } catch (Exception e) {
+                if (strategy == remembered) {
+                    strategies.remove(key, strategy);
+                    store.removeStrategy(key);
+                }
+                LOGGER.warn(String.format("Cannot authenticate to %s (%s): %s", strategy.description, coordinates.getApiEndpoint(), e.getMessage()));
+                LOGGER.debug(String.format("Authentication to %s failed", strategy.description), e);
+            }
+        }
+
+        throw new IOException("Cannot authenticate to github repository.");
+    }
+
+    public Optional<Strategy> strategyFor(GitHubClientPool.Key key) {
+        Strategy strategy = strategies.get(key);
+        return strategy == null ? store.getStrategy(key) : Optional.of(strategy);
+    }
+
+    public void forget(GitHubClientPool.Key key) {
+        strategies.remove(key);
+        store.removeStrategy(key);
+    }
+}
@@ -0,0 +1,163 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.kohsuke.github.GitHub;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Authenticated GitHub clients shared by every SCM talking to the same API
+ * endpoint with the same credentials. Clients unused for longer than the idle
+ * timeout are dropped.
+ */
+public class GitHubClientPool {
+    private static final Logger LOGGER = Logger.getLoggerFor(GitHubClientPool.class);
+
+    private final Map<Key, PooledClient> clients = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final LongSupplier clock;
+    private volatile long lastEvictionMillis;
+
+    public GitHubClientPool(long idleTimeoutMillis) {
+        this(idleTimeoutMillis, System::currentTimeMillis);
+    }
+
+    GitHubClientPool(long idleTimeoutMillis, LongSupplier clock) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.clock = clock;
+        this.lastEvictionMillis = clock.getAsLong();
+    }
+
+    public GitHub get(Key key, Connector connector) throws IOException {
+        long now = clock.getAsLong();
+        evictIdle(now);
+
+        PooledClient pooled = clients.get(key);
+        if (pooled == null) {
+            // Two racing callers may both connect; the first one to register wins.
+            PooledClient connected = new PooledClient(connector.connect(), now);
+            pooled = clients.putIfAbsent(key, connected);
+            if (pooled == null) {
+                pooled = connected;
+            }
+        }
+        pooled.lastUsedMillis = now;
+        return pooled.client;
+    }
+
+    public void invalidate(Key key) {
+        clients.remove(key);
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    private void evictIdle(long now) {
+        if (now - lastEvictionMillis < idleTimeoutMillis / 2) {
+            return;
+        }
+        lastEvictionMillis = now;
+        Iterator<Map.Entry<Key, PooledClient>> iterator = clients.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, PooledClient> entry = iterator.next();
+            if (now - entry.getValue().lastUsedMillis > idleTimeoutMillis) {
+                LOGGER.debug(String.format("Dropping idle GitHub client for %s", entry.getKey()));
+                iterator.remove();
+            }
+        }
+    }
+
+    public interface Connector {
+        GitHub connect() throws IOException;
+    }
+
+    public static class Key {
+        // labels credentials in logs and metrics; it never leaves the process, so neither can be checked against a guess
+        private static final byte[] LABEL_SECRET = new byte[32];
+
+        static {
+            new SecureRandom().nextBytes(LABEL_SECRET);
+        }
+
+        private final String apiEndpoint;
+        private final String credentialFingerprint;
+
+        public Key(String apiEndpoint, String credentialFingerprint) {
+            this.apiEndpoint = apiEndpoint;
+            this.credentialFingerprint = credentialFingerprint;
+        }
+
+        public static Key of(GitHubCoordinates coordinates, GitHubCredentials credentials) {
+            return new Key(coordinates.getApiEndpoint(), credentials.fingerprint());
+        }
+
+        public String getApiEndpoint() {
+            return apiEndpoint;
+        }
+
+        public String getCredentialFingerprint() {
+            return credentialFingerprint;
+        }
+
+        /**
+         * Tells the credentials apart in logs and metrics for the life of the process,
+         * without revealing anything about them.
+         */
+        public String getCredentialLabel() {
+            if (GitHubCredentials.ANONYMOUS.equals(credentialFingerprint)) {
+                return credentialFingerprint;
+            }
+            try {
+                Mac hmac = Mac.getInstance("HmacSHA256");
+                hmac.init(new SecretKeySpec(LABEL_SECRET, "HmacSHA256"));
+                byte[] digest = hmac.doFinal(credentialFingerprint.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder();
+                for (int i = 0; i < 6; i++) {
+                    hex.append(String.format("%02x", digest[i]));
+                }
+                return hex.toString();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(apiEndpoint, key.apiEndpoint) && Objects.equals(credentialFingerprint, key.credentialFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(apiEndpoint, credentialFingerprint);
+        }
+
+        @Override
+        public String toString() {
+            return apiEndpoint + " (" + getCredentialLabel() + ")";
+        }
+    }
+
+    private static class PooledClient {
+        private final GitHub client;
+        private volatile long lastUsedMillis;
+
+        private PooledClient(GitHub client, long lastUsedMillis) {
+            this.client = client;
+            this.lastUsedMillis = lastUsedMillis;
+        }
+    }
+}
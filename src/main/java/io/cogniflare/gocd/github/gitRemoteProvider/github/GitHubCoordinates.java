@@ -0,0 +1,106 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Where a repository URL points to: the repository id, its host and the API
+ * endpoint serving it. Parsed once per URL and memoized.
+ */
+public class GitHubCoordinates {
+    public static final String GITHUB_DOMAIN = "github.com";
+    public static final String GITHUB_CLOUD_API = "https://api.github.com/";
+    private static final Pattern SCP_LIKE_HOST = Pattern.compile("^(?:[^@/]+@)?([^:/]+):");
+    private static final int MAX_MEMOIZED_URLS = 10000;
+    private static final Map<String, GitHubCoordinates> MEMO = new ConcurrentHashMap<>();
+
+    private final String repository;
+    private final String domain;
+    private final String apiEndpoint;
+
+    GitHubCoordinates(String repository, String domain, String apiEndpoint) {
+        this.repository = repository;
+        this.domain = domain;
+        this.apiEndpoint = apiEndpoint;
+    }
+
+    public static GitHubCoordinates of(String url) {
+        GitHubCoordinates coordinates = MEMO.get(url);
+        if (coordinates == null) {
+            coordinates = parse(url);
+            if (MEMO.size() >= MAX_MEMOIZED_URLS) {
+                MEMO.clear();
+            }
+            MEMO.put(url, coordinates);
+        }
+        return coordinates;
+    }
+
+    static GitHubCoordinates parse(String url) {
+        String domain = getDomainName(url);
+        String apiEndpoint = domain == null || GITHUB_DOMAIN.equals(domain)
+                ? GITHUB_CLOUD_API
+                : String.format("https://%s/api/v3/", domain);
+        return new GitHubCoordinates(GHUtils.parseGithubUrl(url), domain, apiEndpoint);
+    }
+
+    private static String getDomainName(String url) {
+        String domain = null;
+        try {
+            domain = new URI(url).getHost();
+        } catch (URISyntaxException e) {
+            // scp-like syntax, e.g. git@github.com:owner/repo.git
+        }
+        if (domain == null && !url.contains("://")) {
+            Matcher matcher = SCP_LIKE_HOST.matcher(url);
+            if (!matcher.find()) {
+                return null;
+            }
+            domain = matcher.group(1);
+        }
+        if (domain == null) {
+            return null;
+        }
+        domain = domain.toLowerCase();
+        return domain.startsWith("www.") ? domain.substring(4) : domain;
+    }
+
+    /**
+     * Repository id in the form {@code owner/name}.
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public String getApiEndpoint() {
+        return apiEndpoint;
+    }
+
+    /**
+     * Key of the repository wherever releases are kept or looked up by repository.
+     */
+    public String getKey() {
+        return key(apiEndpoint, repository);
+    }
+
+    /**
+     * Key of a repository of {@code apiEndpoint}. GitHub repository names are case
+     * insensitive, so keys are lower case.
+     */
+    public static String key(String apiEndpoint, String repository) {
+        return (apiEndpoint + repository).toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isEnterprise() {
+        return domain != null && !GITHUB_DOMAIN.equals(domain);
+    }
+}
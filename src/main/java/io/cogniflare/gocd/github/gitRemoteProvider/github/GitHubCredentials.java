@@ -0,0 +1,83 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.tw.go.plugin.model.GitConfig;
+import in.ashwanthkumar.utils.lang.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Credentials used against the GitHub API for one SCM, either the ones configured
+ * on the material or the oauth token of {@code ~/.github}.
+ */
+public class GitHubCredentials {
+    static final String ANONYMOUS = "anonymous";
+
+    private final String username;
+    private final String password;
+    private final String oauth;
+    private final String fingerprint;
+
+    GitHubCredentials(String username, String password, String oauth) {
+        this.username = username;
+        this.password = password;
+        this.oauth = oauth;
+        this.fingerprint = computeFingerprint();
+    }
+
+    public static GitHubCredentials of(GitConfig gitConfig) {
+        if (StringUtils.isNotEmpty(gitConfig.getUsername()) && StringUtils.isNotEmpty(gitConfig.getPassword())) {
+            return new GitHubCredentials(gitConfig.getUsername(), gitConfig.getPassword(), null);
+        }
+        String oauth = null;
+        try {
+            oauth = GHUtils.readPropertyFile().getProperty("oauth");
+        } catch (IOException e) {
+            // ignore
+        }
+        return new GitHubCredentials(null, null, StringUtils.isNotEmpty(oauth) ? oauth : null);
+    }
+
+    public boolean hasPassword() {
+        return username != null && password != null;
+    }
+
+    /**
+     * Value of the Authorization header, or null for anonymous access.
+     */
+    public String authorizationHeader() {
+        if (hasPassword()) {
+            String credentials = username + ":" + password;
+            return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        }
+        return oauth == null ? null : "token " + oauth;
+    }
+
+    /**
+     * Stable identifier of these credentials, to key what is kept per credential by. It
+     * can be checked against a guessed password, so it is never logged or stored as is.
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    private String computeFingerprint() {
+        String authorization = authorizationHeader();
+        if (authorization == null) {
+            return ANONYMOUS;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -10,24 +10,79 @@ import io.cogniflare.gocd.github.gitRemoteProvider.GitRemoteProvider;
 import io.cogniflare.gocd.github.settings.general.DefaultGeneralPluginConfigurationView;
 import io.cogniflare.gocd.github.settings.general.GeneralPluginConfigurationView;
 import io.cogniflare.gocd.github.settings.scm.DefaultScmPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.ReleaseSource;
 import io.cogniflare.gocd.github.settings.scm.ScmPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.ScmPluginSettings;
+import io.cogniflare.gocd.github.util.GitCommand;
+import io.cogniflare.gocd.github.util.GitTag;
+import io.cogniflare.gocd.github.util.LocalTags;
+import io.cogniflare.gocd.github.util.Metrics;
+import io.cogniflare.gocd.github.util.RemoteTags;
+import io.cogniflare.gocd.github.util.SingleFlight;
 import io.cogniflare.gocd.github.util.URLUtils;
-import org.kohsuke.github.GHRelease;
 import org.kohsuke.github.GitHub;
-import org.kohsuke.github.PagedIterable;
 
+import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class GitHubGitRemoteProvider implements GitRemoteProvider {
     private static final Logger LOGGER = Logger.getLoggerFor(GitHubGitRemoteProvider.class);
     private static final String REF_SPEC = "refs/tags/*:refs/tags/*";
-    private GitHub github;
+    private static final long RELEASE_INDEX_MAX_BYTES = Long.getLong("gocd.github.tags.release-index.max-bytes", 16L * 1024 * 1024);
+    private static final long RELEASE_INDEX_MAX_AGE_MILLIS = Long.getLong("gocd.github.tags.release-index.max-age-seconds", 60L) * 1000;
+    private static final long CLIENT_IDLE_TIMEOUT_MILLIS = Long.getLong("gocd.github.tags.client.idle-timeout-millis", 30L * 60 * 1000);
+    private static final int RATE_LIMIT_RESERVE = Integer.getInteger("gocd.github.tags.rate-limit.reserve", 100);
+    private static final int RATE_LIMIT_BURST = Integer.getInteger("gocd.github.tags.rate-limit.burst", 20);
+    private static final boolean STORE_ENABLED = Boolean.parseBoolean(System.getProperty("gocd.github.tags.store.enabled", "true"));
+    private static final String STORE_DIR = System.getProperty("gocd.github.tags.store.dir",
+            new File(System.getProperty("user.home"), ".gocd-scm-github-tags/store").getPath());
+    private static final long STORE_MAX_AGE_MILLIS = Long.getLong("gocd.github.tags.store.max-age-days", 30L) * 24 * 60 * 60 * 1000;
+    private static final boolean WEBHOOK_ENABLED = Boolean.parseBoolean(System.getProperty("gocd.github.tags.webhook.enabled", "false"));
+    private static final String WEBHOOK_BIND_ADDRESS = System.getProperty("gocd.github.tags.webhook.bind", "127.0.0.1");
+    private static final int WEBHOOK_PORT = Integer.getInteger("gocd.github.tags.webhook.port", 8159);
+    private static final boolean GRAPHQL_ENABLED = Boolean.parseBoolean(System.getProperty("gocd.github.tags.graphql.enabled", "false"));
+    private static final int GRAPHQL_BATCH_SIZE = Integer.getInteger("gocd.github.tags.graphql.batch-size", 50);
+    private static final long GRAPHQL_BATCH_WINDOW_MILLIS = Long.getLong("gocd.github.tags.graphql.batch-window-millis", 50L);
+    private static final int GRAPHQL_SENDERS = Integer.getInteger("gocd.github.tags.graphql.senders", 4);
+    private static final long WEBHOOK_MAX_QUIET_MILLIS = Long.getLong("gocd.github.tags.webhook.max-quiet-minutes", 60L) * 60 * 1000;
+    private final RateLimitBudget rateLimitBudget = new RateLimitBudget(RATE_LIMIT_RESERVE, RATE_LIMIT_BURST);
+    private final ReleaseStore store = STORE_ENABLED ? new FileReleaseStore(new File(STORE_DIR, "releases.journal"), STORE_MAX_AGE_MILLIS) : ReleaseStore.NONE;
+    private final ConditionalReleaseFetcher releaseFetcher = new ConditionalReleaseFetcher(new GitHubRestClient(), rateLimitBudget, store);
+    private final ReleaseIndex releaseIndex = new ReleaseIndex(RELEASE_INDEX_MAX_BYTES);
+    // one query for the latest releases of many repositories, when enabled
+    private final GraphQLReleaseBatcher graphQLReleases = GRAPHQL_ENABLED
+            ? new GraphQLReleaseBatcher(new GitHubRestClient(), rateLimitBudget, GRAPHQL_BATCH_SIZE, GRAPHQL_BATCH_WINDOW_MILLIS, GRAPHQL_SENDERS)
+            : null;
+    // latest release of each repository with the commit of its tag, as the GraphQL query returned it
+    private final Map<String, GitTag> queriedReleases = new ConcurrentHashMap<>();
+    // repositories whose stored releases were put back into the index since the start
+    private final Set<String> restoredRepositories = ConcurrentHashMap.newKeySet();
+    private final ReleaseFeed releaseFeed = new ReleaseFeed(releaseIndex, store, WEBHOOK_MAX_QUIET_MILLIS);
+    private final GitHubClientPool clientPool = new GitHubClientPool(CLIENT_IDLE_TIMEOUT_MILLIS);
+    private final GitHubAuthenticator authenticator = new GitHubAuthenticator(store);
+    // concurrent polls of the same repository with the same credentials share one lookup
+    private final SingleFlight<String, String> latestReleaseLookups = new SingleFlight<>();
+    private final SingleFlight<String, Optional<GitTag>> latestReleasePeeks = new SingleFlight<>();
+    private final SingleFlight<String, Optional<GitHubRelease>> releaseLookups = new SingleFlight<>();
+    private WebhookReceiver webhookReceiver;
+
+    public GitHubGitRemoteProvider() {
+        if (WEBHOOK_ENABLED) {
+            startWebhookReceiver();
+        }
+    }
 
     @Override
     public String getName() {
@@ -56,56 +111,113 @@ public class GitHubGitRemoteProvider implements GitRemoteProvider {
 
     @Override
     public void checkConnection(GitConfig gitConfig) {
+        GitHubClientPool.Key key = null;
         try {
-
-            String repository = GHUtils.parseGithubUrl(gitConfig.getEffectiveUrl());
+            GitHubCoordinates coordinates = GitHubCoordinates.of(gitConfig.getUrl());
+            key = GitHubClientPool.Key.of(coordinates, GitHubCredentials.of(gitConfig));
+            String repository = coordinates.getRepository();
             LOGGER.info(String.format("checking connection to repository: %s", repository));
 
-            loginWith(gitConfig)
-                    .getRepository(repository);
+            // the pooled login may have been made for another repository of the same credential
+            loginWith(gitConfig).getRepository(repository);
         } catch (Exception e) {
+            if (key != null) {
+                forgetAuthentication(key);
+            }
             String message = String.format("check connection failed. %s", e.getMessage());
             LOGGER.info(message);
             throw new RuntimeException(message, e);
         }
     }
 
-    private static String getDomainName(String url) throws URISyntaxException {
-        URI uri = new URI(url);
-        String domain = uri.getHost();
-        return domain.startsWith("www.") ? domain.substring(4) : domain;
-    }
-
     @Override
     public String getRefSpec() {
         return REF_SPEC;
     }
 
     @Override
-    public void populateReleaseData(GitConfig gitConfig, Revision prSHA, String tag, Map<String, String> data) {
+    public String getRefSpec(String release) {
+        return String.format("+refs/tags/%1$s:refs/tags/%1$s", release);
+    }
+
+    @Override
+    public void populateReleaseData(GitConfig gitConfig, ScmPluginSettings settings, File workingDir, Revision prSHA, String tag, Map<String, String> data) {
         try {
-            Optional<GHRelease> release = getGithubReleaseForTag(gitConfig, tag);
+            if (settings.getReleaseSource() == ReleaseSource.TAGS) {
+                populateTagData(workingDir, tag, data);
+                return;
+            }
+            Optional<GitHubRelease> release = releaseLookups.execute(flightKey(gitConfig, tag), () -> getGithubReleaseForTag(gitConfig, tag));
 
             if (!release.isPresent()) {
                 LOGGER.error(String.format("Cannot find release: %s", tag));
                 return;
             }
 
-            data.put("RELEASE_NAME", String.valueOf(release.get().getName()));
-            data.put("RELEASE_BODY", String.valueOf(release.get().getBody()));
+            putIfPresent(data, "RELEASE_NAME", release.get().getName());
+            putIfPresent(data, "RELEASE_BODY", release.get().getBody());
+            putIfPresent(data, "RELEASE_PUBLISHED_AT", release.get().getPublishedAt());
+            data.put("RELEASE_ASSETS", release.get().getAssets().stream()
+                    .map(GitHubRelease.Asset::getBrowserDownloadUrl)
+                    .collect(Collectors.joining(",")));
         } catch (IOException e) {
             LOGGER.error(String.format("Cannot populate release data for tag: %s", tag), e);
         }
     }
 
-    private Optional<GHRelease> getGithubReleaseForTag(GitConfig gitConfig, String tag) throws IOException {
-        return loginWith(gitConfig)
-                .getRepository(GHUtils.parseGithubUrl(gitConfig.getEffectiveUrl()))
-                .listReleases()
-                .asList()
-                .stream()
-                .filter(rel -> Objects.equals(rel.getTagName(), tag))
-                .findAny();
+    // GitHub sends null for a release without a name, notes or (as a draft) publication date
+    private static void putIfPresent(Map<String, String> data, String key, String value) {
+        if (value != null) {
+            data.put(key, value);
+        }
+    }
+
+    private void populateTagData(File workingDir, String tag, Map<String, String> data) throws IOException {
+        Optional<GitTag> gitTag = new LocalTags(new GitCommand(workingDir)).get(tag);
+        if (!gitTag.isPresent()) {
+            LOGGER.error(String.format("Cannot find tag: %s", tag));
+            return;
+        }
+
+        data.put("RELEASE_NAME", gitTag.get().getSubject());
+        data.put("RELEASE_BODY", gitTag.get().getBody());
+        data.put("RELEASE_PUBLISHED_AT", Instant.ofEpochSecond(gitTag.get().getCreatorDate()).toString());
+    }
+
+    private Optional<GitHubRelease> getGithubReleaseForTag(GitConfig gitConfig, String tag) throws IOException {
+        GitHubCoordinates coordinates = GitHubCoordinates.of(gitConfig.getUrl());
+        String apiEndpoint = coordinates.getApiEndpoint();
+        String repository = coordinates.getRepository();
+        GitHubCredentials credentials = GitHubCredentials.of(gitConfig);
+        String indexKey = coordinates.getKey();
+        if (restoredRepositories.add(indexKey)) {
+            releaseIndex.putAll(indexKey, store.getReleases(indexKey));
+        }
+
+        Optional<GitHubRelease> release = releaseIndex.get(indexKey, tag);
+        if (release.isPresent()) {
+            return release;
+        }
+
+        releaseIndex.refresh(indexKey, page -> {
+            List<GitHubRelease> releases = releaseFetcher.listReleases(apiEndpoint, repository, credentials, page);
+            if (page > 1) {
+                // the first page is stored with its listing
+                store.putReleases(indexKey, releases);
+            }
+            return releases;
+        });
+        release = releaseIndex.get(indexKey, tag);
+        if (release.isPresent()) {
+            return release;
+        }
+
+        release = releaseFetcher.getRelease(apiEndpoint, repository, credentials, tag);
+        release.ifPresent(found -> {
+            releaseIndex.put(indexKey, found);
+            store.putRelease(indexKey, found);
+        });
+        return release;
     }
 
     @Override
@@ -119,83 +231,236 @@ public class GitHubGitRemoteProvider implements GitRemoteProvider {
     }
 
     @Override
-    public String getLatestRelease(GitConfig gitConfig, GitHelper git) throws IOException {
-        PagedIterable<GHRelease> releases = loginWith(gitConfig)
-                .getRepository(GHUtils.parseGithubUrl(gitConfig.getEffectiveUrl()))
-                .listReleases();
+    public String getLatestRelease(GitConfig gitConfig, ScmPluginSettings settings, GitHelper git, File workingDir) throws IOException {
+        if (settings.getReleaseSource() == ReleaseSource.TAGS) {
+            return new LocalTags(new GitCommand(workingDir)).list().stream()
+                    .filter(tag -> qualifies(settings, tag.getName(), false, false))
+                    .min(LocalTags.LATEST_FIRST)
+                    .orElseThrow(() -> new IOException(String.format("No tags found for repository: %s", gitConfig.getUrl())))
+                    .getName();
+        }
+        return latestReleaseTag(gitConfig, settings);
+    }
 
-        // assumes github api order to present latest release first
-        GHRelease latestRelease = releases.iterator().next();
-        return latestRelease.getTagName();
+    @Override
+    public Optional<GitTag> peekLatestRelease(GitConfig gitConfig, ScmPluginSettings settings) throws IOException {
+        return latestReleasePeeks.execute(flightKey(gitConfig, settings.getReleaseSource().getValue(), settings.getTagFilter().toString(), settings.getReleasePolicy().toString()),
+                () -> peek(gitConfig, settings));
     }
 
-    private GitHub loginWith(GitConfig gitConfig) throws IOException {
-        if (github == null) {
-            github = _loginWith(gitConfig);
+    private Optional<GitTag> peek(GitConfig gitConfig, ScmPluginSettings settings) throws IOException {
+        RemoteTags remoteTags = new RemoteTags(new GitCommand(null));
+        if (settings.getReleaseSource() == ReleaseSource.TAGS) {
+            // without tag dates only semver tags can be ordered the way the working copy would
+            List<GitTag> tags = remoteTags.list(gitConfig.getEffectiveUrl()).entrySet().stream()
+                    .filter(tag -> qualifies(settings, tag.getKey(), false, false))
+                    .map(tag -> new GitTag(tag.getKey(), tag.getValue(), 0, false, null, null))
+                    .filter(tag -> tag.getVersion().isPresent())
+                    .sorted(Comparator.comparing((GitTag tag) -> tag.getVersion().get()).reversed())
+                    .limit(2)
+                    .collect(Collectors.toList());
+            if (tags.isEmpty() || (tags.size() > 1 && tags.get(0).getVersion().equals(tags.get(1).getVersion()))) {
+                return Optional.empty();
+            }
+            return Optional.of(tags.get(0));
+        }
+
+        String tag = latestReleaseTag(gitConfig, settings);
+        GitHubCoordinates coordinates = GitHubCoordinates.of(gitConfig.getUrl());
+        GitTag queried = queriedReleases.get(coordinates.getKey());
+        if (queried != null && queried.getName().equals(tag)) {
+            return Optional.of(queried);
         }
-        return github;
+        String commit = remoteTags.list(gitConfig.getEffectiveUrl(), tag).get(tag);
+        return commit == null ? Optional.empty() : Optional.of(new GitTag(tag, commit, 0, false, null, null));
     }
 
-    private GitHub _loginWith(GitConfig gitConfig) throws IOException {
-        LOGGER.debug("Login to github, env:");
-        LOGGER.debug(String.format("https.proxyHost: %s", System.getProperty("https.proxyHost")));
-        LOGGER.debug(String.format("https.proxyPort: %s", System.getProperty("https.proxyPort")));
-        LOGGER.debug(String.format("http.nonProxyHosts: %s", System.getProperty("http.nonProxyHosts")));
+    private String latestReleaseTag(GitConfig gitConfig, ScmPluginSettings settings) throws IOException {
+        return latestReleaseLookups.execute(flightKey(gitConfig, settings.getTagFilter().toString(), settings.getReleasePolicy().toString()),
+                () -> getLatestReleaseTag(gitConfig, settings));
+    }
 
-        if (!hasCredentials(gitConfig)) {
-            LOGGER.info("Github credentials not provided, using config file");
-            return GitHub.connect();
+    /**
+     * Latest release that qualifies under the material's tag filter and release policy,
+     * from the release index. The index is brought up to date first, unless it was
+     * listed recently or webhooks keep it current. An index that is not complete, i.e.
+     * cold, partly evicted or restored from the store, is rebuilt from a full listing.
+     * Where GraphQL is used, a complete index is only listed again once its newest
+     * release changed.
+     */
+    private String getLatestReleaseTag(GitConfig gitConfig, ScmPluginSettings settings) throws IOException {
+        GitHubCoordinates coordinates = GitHubCoordinates.of(gitConfig.getUrl());
+        String repository = coordinates.getRepository();
+        GitHubCredentials credentials = GitHubCredentials.of(gitConfig);
+        String indexKey = coordinates.getKey();
+        Integer major = settings.getReleasePolicy().getPinnedMajor();
+        Predicate<GitHubRelease> qualifies = release -> qualifies(settings, release.getTagName(), release.isDraft(), release.isPrerelease());
+        boolean complete = releaseIndex.isComplete(indexKey);
+        if (complete && (releaseFeed.latestRelease(indexKey).isPresent() || releaseIndex.isListedWithin(indexKey, RELEASE_INDEX_MAX_AGE_MILLIS))) {
+            Optional<GitHubRelease> latest = releaseIndex.latest(indexKey, major, qualifies);
+            if (latest.isPresent()) {
+                LOGGER.debug(String.format("Latest release of %s is %s, from the release index", repository, latest.get().getTagName()));
+                return latest.get().getTagName();
+            }
         }
 
-        String repositoryId = GHUtils.parseGithubUrl(gitConfig.getEffectiveUrl());
-
-        // Enterprise auth methods
-        try {
-            String url = gitConfig.getUrl();
-            String domain = getDomainName(url);
-            String apiEndpoint = String.format("https://%s/api/v3/", domain);
-
-            if (!Objects.equals(domain, "github.com")) {
-                try {
-                    GitHub gitHub = GitHub.connectToEnterprise(apiEndpoint, gitConfig.getUsername(), gitConfig.getPassword());
-                    gitHub.getRepository(repositoryId); // test connection
-                    LOGGER.info("Successfully authenticated to GitHub enterprise using password");
-                    return gitHub;
-                } catch (Exception t) {
-                    LOGGER.error(String.format("Cannot authenticate to GitHub enterprise (%s) using password", apiEndpoint), t);
-                }
-                try {
-                    GitHub gitHub = GitHub.connectToEnterprise(apiEndpoint, gitConfig.getPassword());
-                    gitHub.getRepository(repositoryId); // test connection
-                    LOGGER.info("Successfully authenticated to GitHub enterprise using oAuth");
-                    return gitHub;
-                } catch (Exception t) {
-                    LOGGER.error(String.format("Cannot authenticate to GitHub enterprise (%s) using oAuth", apiEndpoint), t);
+        long generation = releaseFeed.generation(indexKey);
+        boolean confirmed = false;
+        // the newest release only tells whether anything was published since the last listing
+        if (complete && graphQLReleases != null && credentials.authorizationHeader() != null && settings.getTagFilter().isEmpty() && settings.getReleasePolicy().isAny()) {
+            String newest = queryLatestRelease(coordinates, credentials, indexKey);
+            confirmed = releaseIndex.confirmListing(indexKey, newest);
+            if (confirmed) {
+                releaseFeed.observe(indexKey, newest, generation);
+            } else {
+                LOGGER.debug(String.format("Newest release of %s is %s, listing its releases again", repository, newest));
+            }
+        }
+        if (!confirmed) {
+            List<GitHubRelease> releases;
+            try {
+                releases = releaseFetcher.listReleases(coordinates.getApiEndpoint(), repository, credentials);
+                if (complete) {
+                    store.removeReleases(indexKey, releaseIndex.putListing(indexKey, releases));
+                } else {
+                    relist(coordinates, credentials, indexKey, releases);
                 }
+            } catch (GitHubAuthenticationException e) {
+                forgetAuthentication(GitHubClientPool.Key.of(coordinates, credentials));
+                throw e;
+            }
+            if (releases.isEmpty()) {
+                throw new IOException(String.format("No releases found for repository: %s", repository));
             }
-        } catch (URISyntaxException e) {
-            LOGGER.error("Cannot get repository domain name", e);
+            // the listing is newest first
+            releaseFeed.observe(indexKey, releases.get(0).getTagName(), generation);
         }
+        return releaseIndex.latest(indexKey, major, qualifies)
+                .map(GitHubRelease::getTagName)
+                .orElseThrow(() -> new IOException(String.format("No releases qualifying under the tag filter and release policy found for repository: %s", repository)));
+    }
+
+    /**
+     * Rebuilds the index of a repository from all its releases, reading pages after
+     * {@code firstPage} until a short one. A repository with more than
+     * {@link ReleaseIndex#MAX_REFRESH_PAGES} pages is indexed as far as they go.
+     */
+    private void relist(GitHubCoordinates coordinates, GitHubCredentials credentials, String indexKey, List<GitHubRelease> firstPage) throws IOException {
+        List<GitHubRelease> releases = new ArrayList<>(firstPage);
+        List<GitHubRelease> page = firstPage;
+        int pages = 1;
+        while (page.size() >= ConditionalReleaseFetcher.PAGE_SIZE && pages < ReleaseIndex.MAX_REFRESH_PAGES) {
+            page = releaseFetcher.listReleases(coordinates.getApiEndpoint(), coordinates.getRepository(), credentials, ++pages);
+            // the first page is stored with its listing
+            store.putReleases(indexKey, page);
+            releases.addAll(page);
+        }
+        boolean complete = page.size() < ConditionalReleaseFetcher.PAGE_SIZE;
+        LOGGER.debug(String.format("Listed %d releases of %s in %d pages", releases.size(), coordinates.getRepository(), pages));
+        store.removeReleases(indexKey, releaseIndex.putListing(indexKey, releases, complete));
+    }
+
+    private static boolean qualifies(ScmPluginSettings settings, String tag, boolean draft, boolean preRelease) {
+        return settings.getTagFilter().isBranchValid(tag) && settings.getReleasePolicy().accepts(tag, draft, preRelease);
+    }
 
-        // Cloud auth methods
+    /**
+     * Tag of the newest release by GraphQL, batched with the lookups of other repositories.
+     * Its commit is kept, so peeking at the release takes no other call.
+     */
+    private String queryLatestRelease(GitHubCoordinates coordinates, GitHubCredentials credentials, String indexKey) throws IOException {
+        String repository = coordinates.getRepository();
+        Optional<GraphQLReleaseBatcher.LatestRelease> latest;
         try {
-            GitHub gitHub = GitHub.connectUsingPassword(gitConfig.getUsername(), gitConfig.getPassword());
-            gitHub.getRepository(repositoryId); // test connection
-            LOGGER.info("Successfully authenticated to GitHub cloud using password");
-            return gitHub;
-        } catch (Exception t) {
-            LOGGER.error("Cannot authenticate to GitHub cloud using password", t);
+            latest = graphQLReleases.latestRelease(coordinates.getApiEndpoint(), repository, credentials);
+        } catch (GitHubAuthenticationException e) {
+            forgetAuthentication(GitHubClientPool.Key.of(coordinates, credentials));
+            throw e;
+        }
+        if (!latest.isPresent()) {
+            throw new IOException(String.format("No releases found for repository: %s", repository));
+        }
+        GitHubRelease release = latest.get().getRelease();
+        if (latest.get().getCommit() != null) {
+            queriedReleases.put(indexKey, new GitTag(release.getTagName(), latest.get().getCommit(), 0, false, null, null));
+        }
+        return release.getTagName();
+    }
+
+    /**
+     * Number of release lookups answered by a lookup another poll already had in flight.
+     */
+    public long getCoalescedLookups() {
+        return latestReleaseLookups.getCoalesced() + latestReleasePeeks.getCoalesced() + releaseLookups.getCoalesced();
+    }
+
+    /**
+     * Number of release lookups actually made.
+     */
+    public long getExecutedLookups() {
+        return latestReleaseLookups.getExecuted() + latestReleasePeeks.getExecuted() + releaseLookups.getExecuted();
+    }
+
+    @Override
+    public void registerMetrics(Metrics metrics) {
+        metrics.counter("gocd_github_tags_release_lookups_total", this::getExecutedLookups);
+        metrics.counter("gocd_github_tags_release_lookups_coalesced_total", this::getCoalescedLookups);
+        metrics.counter("gocd_github_tags_release_listings_not_modified_total", releaseFetcher::getHits);
+        metrics.counter("gocd_github_tags_release_listings_modified_total", releaseFetcher::getMisses);
+        rateLimitBudget.registerMetrics(metrics);
+        if (graphQLReleases != null) {
+            metrics.counter("gocd_github_tags_graphql_queries_total", graphQLReleases::getQueries);
+            metrics.counter("gocd_github_tags_graphql_lookups_total", graphQLReleases::getLookups);
+        }
+        WebhookReceiver receiver = webhookReceiver;
+        if (receiver != null) {
+            metrics.counter("gocd_github_tags_webhook_deliveries_total", receiver::getAccepted, "outcome", "accepted");
+            metrics.counter("gocd_github_tags_webhook_deliveries_total", receiver::getRejected, "outcome", "rejected");
         }
+    }
+
+    private void startWebhookReceiver() {
+        String secret = System.getProperty("gocd.github.tags.webhook.secret", System.getenv("GOCD_GITHUB_TAGS_WEBHOOK_SECRET"));
         try {
-            GitHub gitHub = GitHub.connect(gitConfig.getUsername(), gitConfig.getPassword());
-            gitHub.getRepository(repositoryId); // test connection
-            LOGGER.info("Successfully authenticated to GitHub cloud using oAuth");
-            return gitHub;
-        } catch (Exception t) {
-            LOGGER.error("Cannot authenticate to GitHub cloud using oAuth", t);
+            WebhookReceiver receiver = new WebhookReceiver(new InetSocketAddress(WEBHOOK_BIND_ADDRESS, WEBHOOK_PORT), secret, releaseFeed);
+            receiver.start();
+            webhookReceiver = receiver;
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error(String.format("Cannot receive GitHub webhooks, polling the API instead: %s", e.getMessage()), e);
+        }
+    }
+
+    private static String flightKey(GitConfig gitConfig, String... qualifiers) {
+        StringBuilder key = new StringBuilder(gitConfig.getUrl()).append('#').append(GitHubCredentials.of(gitConfig).fingerprint());
+        for (String qualifier : qualifiers) {
+            key.append('#').append(qualifier);
         }
+        return key.toString();
+    }
+
+    private GitHub loginWith(GitConfig gitConfig) throws IOException {
+        GitHubCoordinates coordinates = GitHubCoordinates.of(gitConfig.getUrl());
+        GitHubClientPool.Key key = GitHubClientPool.Key.of(coordinates, GitHubCredentials.of(gitConfig));
+        return clientPool.get(key, () -> _loginWith(gitConfig, key, coordinates));
+    }
+
+    private GitHub _loginWith(GitConfig gitConfig, GitHubClientPool.Key key, GitHubCoordinates coordinates) throws IOException {
+        LOGGER.debug("Login to github, env:");
+        LOGGER.debug(String.format("https.proxyHost: %s", System.getProperty("https.proxyHost")));
+        LOGGER.debug(String.format("https.proxyPort: %s", System.getProperty("https.proxyPort")));
+        LOGGER.debug(String.format("http.nonProxyHosts: %s", System.getProperty("http.nonProxyHosts")));
+
+        if (!hasCredentials(gitConfig)) {
+            LOGGER.info("Github credentials not provided, using config file");
+            return GitHub.connect();
+        }
+
+        return authenticator.login(key, coordinates, gitConfig);
+    }
 
-        throw new IOException("Cannot authenticate to github repository.");
+    private void forgetAuthentication(GitHubClientPool.Key key) {
+        clientPool.invalidate(key);
+        authenticator.forget(key);
     }
 
     private boolean hasCredentials(GitConfig gitConfig) {
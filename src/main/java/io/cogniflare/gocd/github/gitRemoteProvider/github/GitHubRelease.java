@@ -0,0 +1,89 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Release as returned by {@code GET /repos/:owner/:repo/releases}, limited to the
+ * fields the plugin uses.
+ */
+public class GitHubRelease {
+    private String tagName;
+    private String name;
+    private String body;
+    private boolean draft;
+    private boolean prerelease;
+    private String publishedAt;
+    private List<Asset> assets;
+
+    public GitHubRelease() {
+    }
+
+    public GitHubRelease(String tagName, String name, String body, boolean draft, boolean prerelease, String publishedAt, List<Asset> assets) {
+        this.tagName = tagName;
+        this.name = name;
+        this.body = body;
+        this.draft = draft;
+        this.prerelease = prerelease;
+        this.publishedAt = publishedAt;
+        this.assets = assets;
+    }
+
+    public String getTagName() {
+        return tagName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public boolean isDraft() {
+        return draft;
+    }
+
+    public boolean isPrerelease() {
+        return prerelease;
+    }
+
+    /**
+     * ISO-8601 UTC timestamp, so it orders correctly as a string.
+     */
+    public String getPublishedAt() {
+        return publishedAt;
+    }
+
+    public List<Asset> getAssets() {
+        return assets == null ? Collections.emptyList() : assets;
+    }
+
+    public static class Asset {
+        private String name;
+        private long size;
+        private String browserDownloadUrl;
+
+        public Asset() {
+        }
+
+        public Asset(String name, long size, String browserDownloadUrl) {
+            this.name = name;
+            this.size = size;
+            this.browserDownloadUrl = browserDownloadUrl;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getBrowserDownloadUrl() {
+            return browserDownloadUrl;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import io.cogniflare.gocd.github.util.Metrics;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal HTTP access to the GitHub REST API for the calls the plugin needs
+ * to control on the wire (conditional headers, response headers).
+ * <p>
+ * Every call is timed per repository, GraphQL queries spanning repositories under
+ * none; a failed call, or an error status other than 404, counts as an error.
+ */
+public class GitHubRestClient {
+    static final String API_SECONDS = "gocd_github_tags_github_api_seconds";
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+    private static final Pattern REPOSITORY = Pattern.compile("/repos/([^/?]+/[^/?]+)");
+
+    private final Metrics metrics;
+
+    public GitHubRestClient() {
+        this(Metrics.DEFAULT);
+    }
+
+    public GitHubRestClient(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        return send(url, headers, null);
+    }
+
+    /**
+     * Posts a JSON body, such as a GraphQL query.
+     */
+    public Response post(String url, Map<String, String> headers, String body) throws IOException {
+        return send(url, headers, body);
+    }
+
+    private Response send(String url, Map<String, String> headers, String requestBody) throws IOException {
+        Matcher repository = REPOSITORY.matcher(url);
+        Metrics.Histogram latencies = metrics.histogram(API_SECONDS, "method", requestBody == null ? "GET" : "POST",
+                "repository", repository.find() ? repository.group(1) : "");
+        long start = metrics.nanoTime();
+        Response response = null;
+        try {
+            response = call(url, headers, requestBody);
+            return response;
+        } finally {
+            latencies.record(metrics.nanoTime() - start,
+                    response == null || (response.getStatus() >= 400 && response.getStatus() != HttpURLConnection.HTTP_NOT_FOUND));
+        }
+    }
+
+    private Response call(String url, Map<String, String> headers, String requestBody) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        if (requestBody != null) {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(requestBody.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        Map<String, String> responseHeaders = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (header.getKey() != null && !header.getValue().isEmpty()) {
+                responseHeaders.put(header.getKey().toLowerCase(), header.getValue().get(0));
+            }
+        }
+
+        String body = null;
+        InputStream stream = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (stream != null) {
+            try {
+                body = IOUtils.toString(stream, StandardCharsets.UTF_8);
+            } finally {
+                IOUtils.closeQuietly(stream);
+            }
+        }
+        return new Response(status, responseHeaders, body);
+    }
+
+    public static class Response {
+        private final int status;
+        private final Map<String, String> headers;
+        private final String body;
+
+        public Response(int status, Map<String, String> headers, String body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase());
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
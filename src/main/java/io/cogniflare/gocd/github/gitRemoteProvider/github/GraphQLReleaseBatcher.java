@@ -0,0 +1,325 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Looks up the latest release of many repositories with one GraphQL query.
+ * <p>
+ * Lookups for the same API endpoint and credential arriving within the batch
+ * window are sent together, one aliased {@code repository} field each, as soon as
+ * the window closes or the batch is full. Each caller waits for the answer about
+ * its own repository; a failed query fails all of its callers.
+ * <p>
+ * The scheduler only closes windows. Queries of batches whose window closed are
+ * sent by a bounded pool of senders, so a slow query does not hold back the
+ * batches closing after it; a full batch is sent by the caller filling it.
+ */
+public class GraphQLReleaseBatcher {
+    private static final Logger LOGGER = Logger.getLoggerFor(GraphQLReleaseBatcher.class);
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final int DEFAULT_SENDERS = 4;
+    // newest first, like the REST listing
+    private static final String RELEASE_FIELDS = "releases(first: 1, orderBy: {field: CREATED_AT, direction: DESC}) { nodes { "
+            + "tagName name description isDraft isPrerelease publishedAt tagCommit { oid } "
+            + "releaseAssets(first: 100) { nodes { name size downloadUrl } } } }";
+
+    private final GitHubRestClient client;
+    private final RateLimitBudget budget;
+    private final int maxBatchSize;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor senders;
+    private final Map<String, Batch> open = new HashMap<>();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    public GraphQLReleaseBatcher(GitHubRestClient client, RateLimitBudget budget, int maxBatchSize, long windowMillis) {
+        this(client, budget, maxBatchSize, windowMillis, DEFAULT_SENDERS);
+    }
+
+    /**
+     * @param senders how many queries of closed windows are sent at a time
+     */
+    public GraphQLReleaseBatcher(GitHubRestClient client, RateLimitBudget budget, int maxBatchSize, long windowMillis, int senders) {
+        this.client = client;
+        this.budget = budget;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMillis = windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "github-graphql-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders = new ThreadPoolExecutor(senders, senders, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "github-graphql-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * GraphQL endpoint next to a REST API endpoint: {@code https://api.github.com/graphql}
+     * for GitHub, {@code https://<host>/api/graphql} for GitHub Enterprise.
+     */
+    static String graphQLEndpoint(String apiEndpoint) {
+        return apiEndpoint.endsWith("/api/v3/")
+                ? apiEndpoint.substring(0, apiEndpoint.length() - "v3/".length()) + "graphql"
+                : apiEndpoint + "graphql";
+    }
+
+    /**
+     * @param repository {@code owner/name}
+     * @return the newest release, or empty when the repository has none
+     */
+    public Optional<LatestRelease> latestRelease(String apiEndpoint, String repository, GitHubCredentials credentials) throws IOException {
+        if (repository.indexOf('/') < 0) {
+            throw new IOException(String.format("Not a GitHub repository: %s", repository));
+        }
+        lookups.incrementAndGet();
+        String key = apiEndpoint + "#" + credentials.fingerprint();
+        CompletableFuture<Optional<LatestRelease>> result;
+        Batch full = null;
+        synchronized (open) {
+            Batch batch = open.get(key);
+            if (batch == null) {
+                Batch created = new Batch(apiEndpoint, credentials);
+                open.put(key, created);
+                scheduler.schedule(() -> flush(key, created), windowMillis, TimeUnit.MILLISECONDS);
+                batch = created;
+            }
+            result = batch.add(repository);
+            if (batch.size() >= maxBatchSize) {
+                open.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return await(result);
+    }
+
+    /**
+     * Number of queries sent.
+     */
+    public long getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * Number of repositories looked up.
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private void flush(String key, Batch batch) {
+        synchronized (open) {
+            if (!open.remove(key, batch)) {
+                // sent already, because it filled up
+                return;
+            }
+        }
+        try {
+            senders.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            batch.fail(new IOException("Release queries are shut down", e));
+        }
+    }
+
+    private void send(Batch batch) {
+        queries.incrementAndGet();
+        try {
+            String endpoint = graphQLEndpoint(batch.apiEndpoint);
+            GitHubClientPool.Key tenant = new GitHubClientPool.Key(endpoint, batch.credentials.fingerprint());
+            budget.checkNotExhausted(tenant);
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Authorization", batch.credentials.authorizationHeader());
+            GitHubRestClient.Response response = client.post(endpoint, headers, GSON.toJson(Collections.singletonMap("query", batch.query())));
+            budget.observe(tenant, response);
+            if (response.getStatus() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                throw new GitHubAuthenticationException(String.format("Cannot query releases from %s: bad credentials", endpoint));
+            }
+            if (response.getStatus() != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Cannot query releases from %s: HTTP %d %s", endpoint, response.getStatus(), response.getBody()));
+            }
+            LOGGER.debug(String.format("Queried latest releases of %d repositories from %s", batch.size(), endpoint));
+            batch.complete(new JsonParser().parse(response.getBody()).getAsJsonObject());
+        } catch (IOException e) {
+            batch.fail(e);
+        } catch (RuntimeException e) {
+            batch.fail(new IOException(String.format("Unexpected GraphQL response: %s", e.getMessage()), e));
+        }
+    }
+
+    private static Optional<LatestRelease> await(CompletableFuture<Optional<LatestRelease>> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a release query");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static GitHubRelease toRelease(JsonObject node) {
+        List<GitHubRelease.Asset> assets = new ArrayList<>();
+        JsonObject releaseAssets = object(node, "releaseAssets");
+        JsonElement nodes = releaseAssets == null ? null : releaseAssets.get("nodes");
+        if (nodes != null && nodes.isJsonArray()) {
+            for (JsonElement asset : nodes.getAsJsonArray()) {
+                JsonObject fields = asset.getAsJsonObject();
+                assets.add(new GitHubRelease.Asset(string(fields, "name"),
+                        fields.has("size") ? fields.get("size").getAsLong() : 0, string(fields, "downloadUrl")));
+            }
+        }
+        return new GitHubRelease(string(node, "tagName"), string(node, "name"), string(node, "description"),
+                node.has("isDraft") && node.get("isDraft").getAsBoolean(), node.has("isPrerelease") && node.get("isPrerelease").getAsBoolean(),
+                string(node, "publishedAt"), assets);
+    }
+
+    private static JsonObject object(JsonObject parent, String name) {
+        JsonElement element = parent.get(name);
+        return element == null || !element.isJsonObject() ? null : element.getAsJsonObject();
+    }
+
+    private static String string(JsonObject parent, String name) {
+        JsonElement element = parent.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    /**
+     * Newest release of a repository, with the commit its tag points to.
+     */
+    public static class LatestRelease {
+        private final GitHubRelease release;
+        private final String commit;
+
+        public LatestRelease(GitHubRelease release, String commit) {
+            this.release = release;
+            this.commit = commit;
+        }
+
+        public GitHubRelease getRelease() {
+            return release;
+        }
+
+        /**
+         * @return null when the tag is gone
+         */
+        public String getCommit() {
+            return commit;
+        }
+    }
+
+    private static class Batch {
+        private final String apiEndpoint;
+        private final GitHubCredentials credentials;
+        private final Map<String, CompletableFuture<Optional<LatestRelease>>> repositories = new LinkedHashMap<>();
+
+        private Batch(String apiEndpoint, GitHubCredentials credentials) {
+            this.apiEndpoint = apiEndpoint;
+            this.credentials = credentials;
+        }
+
+        private CompletableFuture<Optional<LatestRelease>> add(String repository) {
+            return repositories.computeIfAbsent(repository, key -> new CompletableFuture<>());
+        }
+
+        private int size() {
+            return repositories.size();
+        }
+
+        private String query() {
+            StringBuilder query = new StringBuilder("query {");
+            int alias = 0;
+            for (String repository : repositories.keySet()) {
+                int separator = repository.indexOf('/');
+                query.append(" r").append(alias++).append(": repository(owner: ").append(GSON.toJson(repository.substring(0, separator)))
+                        .append(", name: ").append(GSON.toJson(repository.substring(separator + 1))).append(") { ")
+                        .append(RELEASE_FIELDS).append(" }");
+            }
+            return query.append(" }").toString();
+        }
+
+        private void complete(JsonObject response) {
+            JsonObject data = object(response, "data");
+            int alias = 0;
+            for (Map.Entry<String, CompletableFuture<Optional<LatestRelease>>> entry : repositories.entrySet()) {
+                String name = "r" + alias++;
+                JsonObject repository = data == null ? null : object(data, name);
+                if (repository == null) {
+                    entry.getValue().completeExceptionally(new IOException(String.format("Cannot query releases of %s: %s",
+                            entry.getKey(), errorOf(response, name))));
+                    continue;
+                }
+                JsonObject releases = object(repository, "releases");
+                JsonElement nodes = releases == null ? null : releases.get("nodes");
+                if (nodes == null || !nodes.isJsonArray()) {
+                    entry.getValue().completeExceptionally(new IOException(String.format("Unexpected GraphQL response for %s", entry.getKey())));
+                    continue;
+                }
+                if (nodes.getAsJsonArray().size() == 0) {
+                    entry.getValue().complete(Optional.empty());
+                    continue;
+                }
+                JsonObject node = nodes.getAsJsonArray().get(0).getAsJsonObject();
+                JsonObject tagCommit = object(node, "tagCommit");
+                entry.getValue().complete(Optional.of(new LatestRelease(toRelease(node), tagCommit == null ? null : string(tagCommit, "oid"))));
+            }
+        }
+
+        private void fail(Throwable cause) {
+            for (CompletableFuture<Optional<LatestRelease>> result : repositories.values()) {
+                result.completeExceptionally(cause);
+            }
+        }
+
+        private static String errorOf(JsonObject response, String alias) {
+            JsonElement errors = response.get("errors");
+            if (errors != null && errors.isJsonArray()) {
+                for (JsonElement error : errors.getAsJsonArray()) {
+                    JsonElement path = error.getAsJsonObject().get("path");
+                    if (path != null && path.isJsonArray() && path.getAsJsonArray().size() > 0
+                            && alias.equals(path.getAsJsonArray().get(0).getAsString())) {
+                        return string(error.getAsJsonObject(), "message");
+                    }
+                }
+            }
+            return "repository not found";
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import io.cogniflare.gocd.github.util.Metrics;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the GitHub API quota left per tenant (API endpoint and credential), as
+ * reported by the {@code X-RateLimit-*} response headers.
+ * <p>
+ * Each tenant gets a token bucket refilled so that its remaining quota, minus a
+ * reserve, is spread evenly until the quota resets. Calls that have a cached
+ * answer to fall back on only go out when a token is available; calls without
+ * one always go out unless the quota is exhausted.
+ */
+public class RateLimitBudget {
+    private static final Logger LOGGER = Logger.getLoggerFor(RateLimitBudget.class);
+
+    private final int reserve;
+    private final int burst;
+    private final LongSupplier clock;
+    private final Map<GitHubClientPool.Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong throttled = new AtomicLong();
+    private volatile Metrics metrics;
+
+    public RateLimitBudget(int reserve, int burst) {
+        this(reserve, burst, System::currentTimeMillis);
+    }
+
+    RateLimitBudget(int reserve, int burst, LongSupplier clock) {
+        this.reserve = reserve;
+        this.burst = burst;
+        this.clock = clock;
+    }
+
+    public void observe(GitHubClientPool.Key tenant, GitHubRestClient.Response response) {
+        String remaining = response.getHeader("X-RateLimit-Remaining");
+        String limit = response.getHeader("X-RateLimit-Limit");
+        String reset = response.getHeader("X-RateLimit-Reset");
+        if (remaining == null || limit == null || reset == null) {
+            return;
+        }
+        try {
+            Bucket bucket = buckets.get(tenant);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(tenant, key -> new Bucket(burst, clock.getAsLong()));
+                Metrics metrics = this.metrics;
+                if (metrics != null) {
+                    registerGauges(metrics, tenant, bucket);
+                }
+            }
+            boolean crossedReserve = bucket.update(Integer.parseInt(remaining), Integer.parseInt(limit), Long.parseLong(reset) * 1000, reserve);
+            if (crossedReserve) {
+                LOGGER.warn(String.format("GitHub API budget of %s is down to %s/%s, serving cached releases until %s", tenant, remaining, limit, new Date(Long.parseLong(reset) * 1000)));
+            }
+        } catch (NumberFormatException e) {
+            LOGGER.debug(String.format("Ignoring malformed rate limit headers: %s/%s reset %s", remaining, limit, reset));
+        }
+    }
+
+    /**
+     * For calls that can fall back on a cached answer.
+     *
+     * @return false when the call should be skipped and the cached answer served instead
+     */
+    public boolean tryAcquire(GitHubClientPool.Key tenant) {
+        Bucket bucket = buckets.get(tenant);
+        if (bucket == null || bucket.tryAcquire(clock.getAsLong(), reserve, burst)) {
+            return true;
+        }
+        throttled.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * For calls without a cached answer to fall back on.
+     */
+    public void checkNotExhausted(GitHubClientPool.Key tenant) throws IOException {
+        Bucket bucket = buckets.get(tenant);
+        if (bucket != null && bucket.isExhausted(clock.getAsLong())) {
+            throw new IOException(String.format("GitHub API rate limit of %s exhausted until %s", tenant, new Date(bucket.resetMillis)));
+        }
+    }
+
+    /**
+     * Number of calls answered from a cache because the budget was low.
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    /**
+     * Exposes the throttled calls, and the quota and what is left of it per tenant as
+     * last reported by GitHub, including tenants seen later on.
+     */
+    public void registerMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        metrics.counter("gocd_github_tags_github_api_throttled_total", this::getThrottled);
+        for (Map.Entry<GitHubClientPool.Key, Bucket> entry : buckets.entrySet()) {
+            registerGauges(metrics, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void registerGauges(Metrics metrics, GitHubClientPool.Key tenant, Bucket bucket) {
+        String[] labels = {"endpoint", tenant.getApiEndpoint(), "credential", tenant.getCredentialLabel()};
+        metrics.gauge("gocd_github_tags_github_api_remaining", () -> bucket.remaining, labels);
+        metrics.gauge("gocd_github_tags_github_api_limit", () -> bucket.limit, labels);
+    }
+
+    private static class Bucket {
+        private volatile int remaining = -1;
+        private volatile int limit = -1;
+        private volatile long resetMillis;
+        private double tokens;
+        private long lastRefillMillis;
+
+        private Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.lastRefillMillis = now;
+        }
+
+        private synchronized boolean update(int remaining, int limit, long resetMillis, int reserve) {
+            boolean crossedReserve = remaining <= reserve && (this.remaining < 0 || this.remaining > reserve);
+            this.remaining = remaining;
+            this.limit = limit;
+            this.resetMillis = resetMillis;
+            return crossedReserve;
+        }
+
+        private synchronized boolean tryAcquire(long now, int reserve, int burst) {
+            if (remaining < 0 || now >= resetMillis) {
+                return true;
+            }
+            if (remaining <= reserve) {
+                return false;
+            }
+            double tokensPerMilli = (double) (remaining - reserve) / (resetMillis - now);
+            tokens = Math.min(burst, tokens + tokensPerMilli * (now - lastRefillMillis));
+            lastRefillMillis = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean isExhausted(long now) {
+            return remaining == 0 && now < resetMillis;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Latest release of each repository as told by its webhook deliveries, on top of
+ * what the last API listing said.
+ * <p>
+ * A repository's feed is healthy while deliveries for it, of any event, keep
+ * arriving within the quiet period. Only then is its latest release answered from
+ * memory; otherwise, or after an event that may have changed the latest release
+ * in a way the payload does not tell, the API is asked again.
+ */
+public class ReleaseFeed implements WebhookReceiver.Listener {
+    private static final Logger LOGGER = Logger.getLoggerFor(ReleaseFeed.class);
+    // actions after which the release of the payload is the newest one
+    private static final Set<String> PUBLISHING_ACTIONS = new HashSet<>(Arrays.asList("created", "published", "prereleased", "released"));
+    private static final Set<String> REMOVING_ACTIONS = new HashSet<>(Arrays.asList("deleted", "unpublished"));
+
+    private final ReleaseIndex index;
+    private final ReleaseStore store;
+    private final long maxQuietMillis;
+    private final LongSupplier clock;
+    private final Map<String, State> repositories = new ConcurrentHashMap<>();
+
+    public ReleaseFeed(ReleaseIndex index, long maxQuietMillis) {
+        this(index, ReleaseStore.NONE, maxQuietMillis);
+    }
+
+    /**
+     * @param store where deleted releases are forgotten too
+     */
+    public ReleaseFeed(ReleaseIndex index, ReleaseStore store, long maxQuietMillis) {
+        this(index, store, maxQuietMillis, System::currentTimeMillis);
+    }
+
+    ReleaseFeed(ReleaseIndex index, long maxQuietMillis, LongSupplier clock) {
+        this(index, ReleaseStore.NONE, maxQuietMillis, clock);
+    }
+
+    ReleaseFeed(ReleaseIndex index, ReleaseStore store, long maxQuietMillis, LongSupplier clock) {
+        this.index = index;
+        this.store = store;
+        this.maxQuietMillis = maxQuietMillis;
+        this.clock = clock;
+    }
+
+    public Optional<String> latestRelease(String repository) {
+        State state = repositories.get(repository);
+        return state == null ? Optional.empty() : state.latestRelease(clock.getAsLong() - maxQuietMillis);
+    }
+
+    /**
+     * Changes each time an event arrives for the repository. Taken before listing
+     * releases, it tells whether the listing may already be outdated.
+     */
+    public long generation(String repository) {
+        return state(repository).generation();
+    }
+
+    /**
+     * Records the latest release an API listing started at {@code generation} returned,
+     * unless an event arrived in the meantime.
+     */
+    public void observe(String repository, String tag, long generation) {
+        state(repository).observe(tag, generation);
+    }
+
+    @Override
+    public void onDelivery(String repository) {
+        state(repository).heard(clock.getAsLong());
+    }
+
+    @Override
+    public void onRelease(String repository, String action, GitHubRelease release) {
+        if (REMOVING_ACTIONS.contains(action)) {
+            index.remove(repository, release.getTagName());
+            store.removeReleases(repository, Collections.singleton(release.getTagName()));
+        } else {
+            index.put(repository, release);
+        }
+        if (PUBLISHING_ACTIONS.contains(action) && !release.isDraft()) {
+            LOGGER.debug(String.format("Release %s of %s was %s", release.getTagName(), repository, action));
+            state(repository).released(release.getTagName());
+        } else {
+            state(repository).invalidate();
+        }
+    }
+
+    @Override
+    public void onTagPush(String repository, String tag) {
+        // a release can be made from the tag later, or the tag of one moved
+        state(repository).invalidate();
+    }
+
+    private State state(String repository) {
+        return repositories.computeIfAbsent(repository, key -> new State());
+    }
+
+    private static class State {
+        private String latestRelease;
+        private long lastDeliveryMillis = Long.MIN_VALUE;
+        private long generation;
+
+        private synchronized Optional<String> latestRelease(long quietSinceMillis) {
+            return lastDeliveryMillis >= quietSinceMillis ? Optional.ofNullable(latestRelease) : Optional.empty();
+        }
+
+        private synchronized long generation() {
+            return generation;
+        }
+
+        private synchronized void observe(String tag, long listedAt) {
+            if (generation == listedAt) {
+                latestRelease = tag;
+            }
+        }
+
+        private synchronized void heard(long now) {
+            lastDeliveryMillis = now;
+        }
+
+        private synchronized void released(String tag) {
+            generation++;
+            latestRelease = tag;
+        }
+
+        private synchronized void invalidate() {
+            generation++;
+            latestRelease = null;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import io.cogniflare.gocd.github.util.SemanticVersion;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory index of releases keyed by (repository, tag).
+ * <p>
+ * Each repository's releases are also kept sorted newest first: semver tags by
+ * precedence, then the others, ties broken by publication date. The latest release
+ * that satisfies a policy is found from the top, or from the first release of a
+ * pinned major version, without going through the rest.
+ * <p>
+ * Entries are evicted least recently used first once their estimated size
+ * exceeds the configured budget. A repository is complete while everything it had
+ * in its last full listing is indexed; after an eviction, or with releases restored
+ * from a {@link ReleaseStore} that may have been deleted since, its latest release
+ * has to be listed again.
+ */
+public class ReleaseIndex {
+    static final int MAX_REFRESH_PAGES = 10;
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+    private static final int ASSET_OVERHEAD_BYTES = 64;
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing((Entry entry) -> entry.version, Comparator.nullsLast(Comparator.<SemanticVersion>reverseOrder()))
+            .thenComparing(entry -> entry.publishedAt, Comparator.nullsLast(Comparator.<String>reverseOrder()))
+            .thenComparing(entry -> entry.key.tag);
+
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, NavigableSet<Entry>> releasesPerRepository = new HashMap<>();
+    // when the newest releases of a repository were last listed
+    private final Map<String, Long> listedAtMillis = new HashMap<>();
+    // first release of a repository's last listing, i.e. the most recently created one
+    private final Map<String, String> newestListed = new HashMap<>();
+    private final Set<String> completeRepositories = new HashSet<>();
+    private long sizeInBytes;
+
+    public ReleaseIndex(long maxBytes) {
+        this(maxBytes, System::currentTimeMillis);
+    }
+
+    ReleaseIndex(long maxBytes, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    public synchronized Optional<GitHubRelease> get(String repository, String tag) {
+        Entry entry = entries.get(new Key(repository, tag));
+        return entry == null ? Optional.empty() : Optional.of(entry.release);
+    }
+
+    public synchronized boolean contains(String repository, String tag) {
+        return entries.containsKey(new Key(repository, tag));
+    }
+
+    public synchronized void put(String repository, GitHubRelease release) {
+        Key key = new Key(repository, release.getTagName());
+        Entry entry = new Entry(key, release);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            sizeInBytes -= previous.sizeInBytes;
+            releasesPerRepository.get(repository).remove(previous);
+        }
+        releasesPerRepository.computeIfAbsent(repository, ignored -> new TreeSet<>(NEWEST_FIRST)).add(entry);
+        sizeInBytes += entry.sizeInBytes;
+        evict();
+    }
+
+    public synchronized void remove(String repository, String tag) {
+        Entry removed = entries.remove(new Key(repository, tag));
+        if (removed != null) {
+            forget(removed);
+        }
+    }
+
+    /**
+     * Indexes the first page of a repository's listing, newest releases first. Indexed
+     * releases published since the oldest one on the page but missing from it were
+     * deleted, and are dropped.
+     *
+     * @return tags of the dropped releases
+     */
+    public Set<String> putListing(String repository, List<GitHubRelease> releases) {
+        return putListing(repository, releases, false);
+    }
+
+    /**
+     * Indexes a repository's listing, newest releases first.
+     * <p>
+     * A listing of all releases replaces what is indexed: releases missing from it were
+     * deleted and are dropped, and the repository is complete. Otherwise only releases
+     * published since the oldest listed one are known to be deleted when missing, and a
+     * complete repository stays so only if the listing reaches an indexed release.
+     *
+     * @param complete whether {@code releases} are all releases of the repository
+     * @return tags of the dropped releases
+     */
+    public synchronized Set<String> putListing(String repository, List<GitHubRelease> releases, boolean complete) {
+        String oldest = null;
+        Set<String> listed = new HashSet<>();
+        for (GitHubRelease release : releases) {
+            listed.add(release.getTagName());
+            if (release.getPublishedAt() != null && (oldest == null || release.getPublishedAt().compareTo(oldest) < 0)) {
+                oldest = release.getPublishedAt();
+            }
+        }
+        Set<String> deleted = new HashSet<>();
+        boolean reachesIndexed = false;
+        NavigableSet<Entry> indexed = releasesPerRepository.get(repository);
+        if (indexed != null) {
+            for (Entry entry : new ArrayList<>(indexed)) {
+                if (listed.contains(entry.key.tag)) {
+                    reachesIndexed = true;
+                } else if (complete || (oldest != null && entry.publishedAt != null && entry.publishedAt.compareTo(oldest) >= 0)) {
+                    remove(repository, entry.key.tag);
+                    deleted.add(entry.key.tag);
+                }
+            }
+        }
+        if (complete || (reachesIndexed && completeRepositories.contains(repository))) {
+            completeRepositories.add(repository);
+        } else {
+            completeRepositories.remove(repository);
+        }
+        // evicting any of the listing takes completeness away again
+        for (GitHubRelease release : releases) {
+            put(repository, release);
+        }
+        listedAtMillis.put(repository, clock.getAsLong());
+        if (releases.isEmpty()) {
+            newestListed.remove(repository);
+        } else {
+            newestListed.put(repository, releases.get(0).getTagName());
+        }
+        return deleted;
+    }
+
+    /**
+     * Whether the newest releases of {@code repository} were listed less than {@code maxAgeMillis} ago.
+     */
+    public synchronized boolean isListedWithin(String repository, long maxAgeMillis) {
+        Long listedAt = listedAtMillis.get(repository);
+        return listedAt != null && clock.getAsLong() - listedAt < maxAgeMillis;
+    }
+
+    /**
+     * Renews the listing of {@code repository} when {@code newestTag} still is the newest
+     * release it listed, i.e. nothing was published since.
+     *
+     * @return whether the listing was renewed; if not, it has to be listed again
+     */
+    public synchronized boolean confirmListing(String repository, String newestTag) {
+        if (!newestTag.equals(newestListed.get(repository)) || !entries.containsKey(new Key(repository, newestTag))) {
+            return false;
+        }
+        listedAtMillis.put(repository, clock.getAsLong());
+        return true;
+    }
+
+    /**
+     * Whether everything of {@code repository}'s last full listing is still indexed,
+     * and nothing was restored into it since.
+     */
+    public synchronized boolean isComplete(String repository) {
+        return completeRepositories.contains(repository);
+    }
+
+    /**
+     * Latest indexed release that {@code accepts} takes.
+     *
+     * @param major major version the release must have, or null for any; only semver tags have one
+     */
+    public synchronized Optional<GitHubRelease> latest(String repository, Integer major, Predicate<GitHubRelease> accepts) {
+        NavigableSet<Entry> indexed = releasesPerRepository.get(repository);
+        if (indexed == null) {
+            return Optional.empty();
+        }
+        Iterable<Entry> candidates = major == null
+                ? indexed
+                : indexed.tailSet(Entry.probe(SemanticVersion.of(major, Integer.MAX_VALUE, Integer.MAX_VALUE)), true);
+        for (Entry entry : candidates) {
+            if (major != null && (entry.version == null || entry.version.getMajor() != major)) {
+                break;
+            }
+            if (accepts.test(entry.release)) {
+                // keeps the answer from being evicted first
+                entries.get(entry.key);
+                return Optional.of(entry.release);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Indexes releases restored from a store. They may have been deleted since, so the
+     * repository is not complete anymore.
+     */
+    public synchronized void putAll(String repository, List<GitHubRelease> releases) {
+        if (releases.isEmpty()) {
+            return;
+        }
+        completeRepositories.remove(repository);
+        for (GitHubRelease release : releases) {
+            put(repository, release);
+        }
+    }
+
+    /**
+     * Reads release pages newest first until a page contains an already indexed
+     * release. A repository with nothing indexed yet only has its first page read,
+     * older releases are looked up one by one when asked for.
+     */
+    public void refresh(String repository, ReleasePages pages) throws IOException {
+        boolean cold = !hasReleases(repository);
+        for (int page = 1; page <= MAX_REFRESH_PAGES; page++) {
+            List<GitHubRelease> releases = pages.fetch(page);
+            boolean reachedKnownRelease = false;
+            for (GitHubRelease release : releases) {
+                reachedKnownRelease |= contains(repository, release.getTagName());
+                put(repository, release);
+            }
+            if (cold || reachedKnownRelease || releases.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    public synchronized boolean hasReleases(String repository) {
+        return releasesPerRepository.containsKey(repository);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (sizeInBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            forget(eldest);
+            completeRepositories.remove(eldest.key.repository);
+        }
+    }
+
+    private void forget(Entry entry) {
+        sizeInBytes -= entry.sizeInBytes;
+        NavigableSet<Entry> indexed = releasesPerRepository.get(entry.key.repository);
+        indexed.remove(entry);
+        if (indexed.isEmpty()) {
+            releasesPerRepository.remove(entry.key.repository);
+            listedAtMillis.remove(entry.key.repository);
+            newestListed.remove(entry.key.repository);
+            completeRepositories.remove(entry.key.repository);
+        }
+    }
+
+    private static long estimateSize(String repository, GitHubRelease release) {
+        long chars = length(repository) + length(release.getTagName()) + length(release.getName())
+                + length(release.getBody()) + length(release.getPublishedAt());
+        long size = ENTRY_OVERHEAD_BYTES + 2 * chars;
+        for (GitHubRelease.Asset asset : release.getAssets()) {
+            size += ASSET_OVERHEAD_BYTES + 2 * (length(asset.getName()) + length(asset.getBrowserDownloadUrl()));
+        }
+        return size;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    public interface ReleasePages {
+        /**
+         * @param page 1-based page number, newest releases first
+         */
+        List<GitHubRelease> fetch(int page) throws IOException;
+    }
+
+    private static class Key {
+        private final String repository;
+        private final String tag;
+
+        private Key(String repository, String tag) {
+            this.repository = repository;
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(repository, key.repository) && Objects.equals(tag, key.tag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, tag);
+        }
+    }
+
+    private static class Entry {
+        private final Key key;
+        private final GitHubRelease release;
+        private final SemanticVersion version;
+        private final String publishedAt;
+        private final long sizeInBytes;
+
+        private Entry(Key key, GitHubRelease release) {
+            this.key = key;
+            this.release = release;
+            this.version = SemanticVersion.parse(key.tag).orElse(null);
+            this.publishedAt = release.getPublishedAt();
+            this.sizeInBytes = estimateSize(key.repository, release);
+        }
+
+        private Entry(SemanticVersion version) {
+            this.key = new Key(null, "");
+            this.release = null;
+            this.version = version;
+            this.publishedAt = null;
+            this.sizeInBytes = 0;
+        }
+
+        /**
+         * Sorts before every release of {@code version} and the older ones.
+         */
+        private static Entry probe(SemanticVersion version) {
+            return new Entry(version);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * What the plugin learned from GitHub and wants to keep across restarts: release
+ * listings with their validators, releases of the index and the authentication
+ * method that worked per (endpoint, credential).
+ */
+public interface ReleaseStore {
+    ReleaseStore NONE = new ReleaseStore() {
+        @Override
+        public Optional<Listing> getListing(String key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void putListing(String key, Listing listing) {
+        }
+
+        @Override
+        public List<GitHubRelease> getReleases(String repository) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void putRelease(String repository, GitHubRelease release) {
+        }
+
+        @Override
+        public void putReleases(String repository, List<GitHubRelease> releases) {
+        }
+
+        @Override
+        public void removeReleases(String repository, Collection<String> tags) {
+        }
+
+        @Override
+        public Optional<GitHubAuthenticator.Strategy> getStrategy(GitHubClientPool.Key key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void putStrategy(GitHubClientPool.Key key, GitHubAuthenticator.Strategy strategy) {
+        }
+
+        @Override
+        public void removeStrategy(GitHubClientPool.Key key) {
+        }
+    };
+
+    /**
+     * @param key {@link GitHubCoordinates#getKey() repository key} and credential fingerprint
+     */
+    Optional<Listing> getListing(String key);
+
+    void putListing(String key, Listing listing);
+
+    List<GitHubRelease> getReleases(String repository);
+
+    void putRelease(String repository, GitHubRelease release);
+
+    /**
+     * Keeps all of {@code releases} at once, which is cheaper than one by one.
+     */
+    void putReleases(String repository, List<GitHubRelease> releases);
+
+    /**
+     * Forgets releases that were deleted.
+     */
+    void removeReleases(String repository, Collection<String> tags);
+
+    Optional<GitHubAuthenticator.Strategy> getStrategy(GitHubClientPool.Key key);
+
+    void putStrategy(GitHubClientPool.Key key, GitHubAuthenticator.Strategy strategy);
+
+    void removeStrategy(GitHubClientPool.Key key);
+
+    /**
+     * First page of a release listing with the validators GitHub sent along.
+     */
+    class Listing {
+        private final String etag;
+        private final String lastModified;
+        private final List<GitHubRelease> releases;
+
+        public Listing(String etag, String lastModified, List<GitHubRelease> releases) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.releases = releases;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public List<GitHubRelease> getReleases() {
+            return releases;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP endpoint for GitHub webhook deliveries, meant to be bound to
+ * localhost or an internal interface behind whatever forwards the deliveries.
+ * <p>
+ * Only deliveries signed with the shared secret ({@code X-Hub-Signature-256}) are
+ * accepted. Every accepted delivery that names a repository counts as a sign of
+ * life of that repository's feed; {@code release} events and pushes of tags are
+ * passed on to the {@link Listener}.
+ */
+public class WebhookReceiver {
+    private static final Logger LOGGER = Logger.getLoggerFor(WebhookReceiver.class);
+    private static final Gson GSON = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+    public static final String PATH = "/webhook";
+    private static final String SIGNATURE_HEADER = "X-Hub-Signature-256";
+    private static final String EVENT_HEADER = "X-GitHub-Event";
+    private static final String TAG_REF_PREFIX = "refs/tags/";
+    private static final int MAX_BODY_BYTES = 5 * 1024 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] secret;
+    private final Listener listener;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public WebhookReceiver(InetSocketAddress address, String secret, Listener listener) throws IOException {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("A webhook secret is required");
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.listener = listener;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "github-webhook-receiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info(String.format("Receiving GitHub webhooks on %s%s", server.getAddress(), PATH));
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Number of deliveries with a valid signature.
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /**
+     * Number of requests turned away, most of them for a missing or wrong signature.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Signature GitHub sends along a delivery of {@code body}.
+     */
+    static String sign(byte[] secret, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            StringBuilder signature = new StringBuilder("sha256=");
+            for (byte b : mac.doFinal(body)) {
+                signature.append(String.format("%02x", b));
+            }
+            return signature.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                reject(exchange, HttpURLConnection.HTTP_BAD_METHOD);
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                reject(exchange, HttpURLConnection.HTTP_ENTITY_TOO_LARGE);
+                return;
+            }
+            String signature = exchange.getRequestHeaders().getFirst(SIGNATURE_HEADER);
+            if (signature == null || !MessageDigest.isEqual(signature.getBytes(StandardCharsets.UTF_8), sign(secret, body).getBytes(StandardCharsets.UTF_8))) {
+                LOGGER.warn(String.format("Rejecting webhook delivery from %s with a bad signature", exchange.getRemoteAddress()));
+                reject(exchange, HttpURLConnection.HTTP_UNAUTHORIZED);
+                return;
+            }
+            Payload payload = GSON.fromJson(new String(body, StandardCharsets.UTF_8), Payload.class);
+            accepted.incrementAndGet();
+            dispatch(exchange.getRequestHeaders().getFirst(EVENT_HEADER), payload);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT, -1);
+        } catch (JsonParseException e) {
+            LOGGER.warn(String.format("Rejecting malformed webhook delivery: %s", e.getMessage()));
+            reject(exchange, HttpURLConnection.HTTP_BAD_REQUEST);
+        } catch (RuntimeException e) {
+            LOGGER.error("Cannot handle webhook delivery", e);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_INTERNAL_ERROR, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void dispatch(String event, Payload payload) {
+        String repository = payload == null || payload.repository == null ? null : payload.repository.key();
+        if (repository == null) {
+            return;
+        }
+        listener.onDelivery(repository);
+        if ("release".equals(event) && payload.release != null && payload.release.getTagName() != null) {
+            listener.onRelease(repository, String.valueOf(payload.action), payload.release);
+        } else if ("push".equals(event) && payload.ref != null && payload.ref.startsWith(TAG_REF_PREFIX)) {
+            listener.onTagPush(repository, payload.ref.substring(TAG_REF_PREFIX.length()));
+        }
+    }
+
+    private void reject(HttpExchange exchange, int status) throws IOException {
+        rejected.incrementAndGet();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    /**
+     * @return the body, or null when it is larger than {@link #MAX_BODY_BYTES}
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (body.size() + read > MAX_BODY_BYTES) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    public interface Listener {
+        /**
+         * Any accepted delivery about {@code repository}.
+         */
+        void onDelivery(String repository);
+
+        void onRelease(String repository, String action, GitHubRelease release);
+
+        void onTagPush(String repository, String tag);
+    }
+
+    private static class Payload {
+        private String action;
+        private String ref;
+        private GitHubRelease release;
+        private Repository repository;
+    }
+
+    private static class Repository {
+        private String fullName;
+        private String url;
+
+        /**
+         * Key of the repository, from its API url, {@code <api endpoint>repos/<full name>}.
+         */
+        private String key() {
+            String suffix = "repos/" + fullName;
+            if (fullName == null || url == null || !url.endsWith(suffix)) {
+                return null;
+            }
+            return GitHubCoordinates.key(url.substring(0, url.length() - suffix.length()), fullName);
+        }
+    }
+}
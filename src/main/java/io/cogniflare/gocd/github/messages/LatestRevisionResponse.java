@@ -0,0 +1,20 @@
+package io.cogniflare.gocd.github.messages;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class LatestRevisionResponse {
+    private final PolledRevision revision;
+    @SerializedName("scm-data")
+    private final Map<String, String> scmData = Collections.emptyMap();
+
+    public LatestRevisionResponse(PolledRevision revision) {
+        this.revision = revision;
+    }
+
+    public PolledRevision getRevision() {
+        return revision;
+    }
+}
@@ -0,0 +1,53 @@
+package io.cogniflare.gocd.github.messages;
+
+import io.cogniflare.gocd.github.util.JSONUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * The revisions of a poll, newest first. The commits following the release can be
+ * passed already serialized, as cached from an earlier poll of the same range.
+ */
+public class LatestRevisionsSinceResponse implements JSONUtils.Streamed {
+    private final List<PolledRevision> revisions;
+    private final String serializedRevisions;
+
+    public LatestRevisionsSinceResponse(List<PolledRevision> revisions) {
+        this(revisions, "");
+    }
+
+    /**
+     * @param serializedRevisions revisions written after {@code revisions}, as comma separated JSON objects
+     */
+    public LatestRevisionsSinceResponse(List<PolledRevision> revisions, String serializedRevisions) {
+        this.revisions = revisions;
+        this.serializedRevisions = serializedRevisions;
+    }
+
+    public List<PolledRevision> getRevisions() {
+        return revisions;
+    }
+
+    public String getSerializedRevisions() {
+        return serializedRevisions;
+    }
+
+    @Override
+    public void toJSON(Writer out) throws IOException {
+        out.write("{\"revisions\":[");
+        String separator = "";
+        for (PolledRevision revision : revisions) {
+            out.write(separator);
+            JSONUtils.toJSON(revision, out);
+            separator = ",";
+        }
+        if (!serializedRevisions.isEmpty()) {
+            out.write(separator);
+            out.write(serializedRevisions);
+        }
+        out.write("],\"scm-data\":{}}");
+        out.flush();
+    }
+}
@@ -0,0 +1,19 @@
+package io.cogniflare.gocd.github.messages;
+
+public class ModifiedFileMessage {
+    private String fileName;
+    private String action;
+
+    public ModifiedFileMessage(String fileName, String action) {
+        this.fileName = fileName;
+        this.action = action;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getAction() {
+        return action;
+    }
+}
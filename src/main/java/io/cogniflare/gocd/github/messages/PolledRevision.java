@@ -0,0 +1,86 @@
+package io.cogniflare.gocd.github.messages;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+
+import java.lang.reflect.Type;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * A revision a poll reports to GoCD. It is written straight from the git
+ * {@link Revision}, modified files included, without copying it into an
+ * intermediate message first.
+ */
+public class PolledRevision {
+    // GoCD reads the timestamp as UTC, the plugin has always written local time
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneId.systemDefault());
+
+    private final String revision;
+    private final Revision commit;
+    private final Map<String, String> data;
+
+    /**
+     * @param revision what GoCD knows the revision as, the release tag or the commit
+     */
+    public PolledRevision(String revision, Revision commit, Map<String, String> data) {
+        this.revision = revision;
+        this.commit = commit;
+        this.data = data;
+    }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public Revision getCommit() {
+        return commit;
+    }
+
+    public Map<String, String> getData() {
+        return data;
+    }
+
+    public static String formatTimestamp(Revision commit) {
+        return commit.getTimestamp() == null ? null : TIMESTAMP.format(commit.getTimestamp().toInstant());
+    }
+
+    /**
+     * Writes polled revisions; GoCD sends them back as a {@link RevisionMessage}, so they are never read.
+     */
+    public static class Serializer implements JsonSerializer<PolledRevision> {
+        @Override
+        public JsonElement serialize(PolledRevision polled, Type type, JsonSerializationContext context) {
+            Revision commit = polled.commit;
+            JsonObject json = new JsonObject();
+            json.addProperty("revision", polled.revision);
+            json.addProperty("user", commit.getUser());
+            json.addProperty("timestamp", formatTimestamp(commit));
+            json.addProperty("revisionComment", commit.getComment());
+            JsonArray modifiedFiles = new JsonArray();
+            if (commit.getModifiedFiles() != null) {
+                for (ModifiedFile file : commit.getModifiedFiles()) {
+                    JsonObject modifiedFile = new JsonObject();
+                    modifiedFile.addProperty("fileName", file.getFileName());
+                    modifiedFile.addProperty("action", file.getAction());
+                    modifiedFiles.add(modifiedFile);
+                }
+            }
+            json.add("modifiedFiles", modifiedFiles);
+            JsonObject data = new JsonObject();
+            if (polled.data != null) {
+                for (Map.Entry<String, String> entry : polled.data.entrySet()) {
+                    data.addProperty(entry.getKey(), entry.getValue());
+                }
+            }
+            json.add("data", data);
+            return json;
+        }
+    }
+}
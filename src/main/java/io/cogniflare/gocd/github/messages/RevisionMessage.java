@@ -0,0 +1,49 @@
+package io.cogniflare.gocd.github.messages;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A revision GoCD sends: the previous revision of a poll, or the one to check out.
+ */
+public class RevisionMessage {
+    private String revision;
+    private String user;
+    private String timestamp;
+    private String revisionComment;
+    private List<ModifiedFileMessage> modifiedFiles;
+    private Map<String, String> data;
+
+    public RevisionMessage(String revision, String user, String timestamp, String revisionComment, List<ModifiedFileMessage> modifiedFiles, Map<String, String> data) {
+        this.revision = revision;
+        this.user = user;
+        this.timestamp = timestamp;
+        this.revisionComment = revisionComment;
+        this.modifiedFiles = modifiedFiles;
+        this.data = data;
+    }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public String getRevisionComment() {
+        return revisionComment;
+    }
+
+    public List<ModifiedFileMessage> getModifiedFiles() {
+        return modifiedFiles;
+    }
+
+    public Map<String, String> getData() {
+        return data;
+    }
+}
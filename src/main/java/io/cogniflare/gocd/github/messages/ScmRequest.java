@@ -0,0 +1,56 @@
+package io.cogniflare.gocd.github.messages;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Body of the SCM requests GoCD sends; each request only fills the fields it needs.
+ */
+public class ScmRequest {
+    @SerializedName("scm-configuration")
+    private Map<String, ConfigurationValue> scmConfiguration;
+    @SerializedName("flyweight-folder")
+    private String flyweightFolder;
+    @SerializedName("destination-folder")
+    private String destinationFolder;
+    @SerializedName("previous-revision")
+    private RevisionMessage previousRevision;
+    private RevisionMessage revision;
+
+    /**
+     * Values of the SCM configuration, by field.
+     */
+    public Map<String, String> getConfiguration() {
+        if (scmConfiguration == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> configuration = new HashMap<>();
+        for (Map.Entry<String, ConfigurationValue> field : scmConfiguration.entrySet()) {
+            configuration.put(field.getKey(), field.getValue() == null ? null : field.getValue().value);
+        }
+        return configuration;
+    }
+
+    public String getFlyweightFolder() {
+        return flyweightFolder;
+    }
+
+    public String getDestinationFolder() {
+        return destinationFolder;
+    }
+
+    public RevisionMessage getPreviousRevision() {
+        return previousRevision;
+    }
+
+    public RevisionMessage getRevision() {
+        return revision;
+    }
+
+    private static class ConfigurationValue {
+        private String value;
+    }
+}
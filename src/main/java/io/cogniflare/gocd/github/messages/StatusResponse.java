@@ -0,0 +1,32 @@
+package io.cogniflare.gocd.github.messages;
+
+import java.util.List;
+
+/**
+ * Outcome of a connection check or a checkout.
+ */
+public class StatusResponse {
+    private final String status;
+    private final List<String> messages;
+
+    private StatusResponse(String status, List<String> messages) {
+        this.status = status;
+        this.messages = messages;
+    }
+
+    public static StatusResponse success(List<String> messages) {
+        return new StatusResponse("success", messages);
+    }
+
+    public static StatusResponse failure(List<String> messages) {
+        return new StatusResponse("failure", messages);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+}
@@ -1,6 +1,4 @@
 package io.cogniflare.gocd.github.settings.general;
 
-import io.cogniflare.gocd.github.settings.scm.ScmPluginSettings;
-
-public class DefaultGeneralPluginSettings implements ScmPluginSettings {
+public class DefaultGeneralPluginSettings implements GeneralPluginSettings {
 }
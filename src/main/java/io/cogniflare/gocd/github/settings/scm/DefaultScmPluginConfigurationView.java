@@ -2,12 +2,21 @@ package io.cogniflare.gocd.github.settings.scm;
 
 import io.cogniflare.gocd.github.util.BranchFilter;
 import io.cogniflare.gocd.github.util.FieldFactory;
+import org.apache.commons.lang.StringUtils;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultScmPluginConfigurationView implements ScmPluginConfigurationView {
-
+    public static final String TAG_WHITELIST = "tagWhitelist";
+    public static final String TAG_BLACKLIST = "tagBlacklist";
+    public static final String PIN_MAJOR_VERSION = "pinMajorVersion";
+    private static final int MAX_CACHED_FILTERS = 256;
+    // compiled filters by (blacklist, whitelist), shared by every request of a material
+    private static final Map<List<String>, BranchFilter> FILTERS = new ConcurrentHashMap<>();
 
     @Override
     public String templateName() {
@@ -22,12 +31,73 @@ public class DefaultScmPluginConfigurationView implements ScmPluginConfiguration
         response.put("password", FieldFactory.createForScm("Password", null, false, false, true, "2"));
         response.put("defaultBranch", FieldFactory.createForScm("Default Branch", "master", false, false, false, "3"));
         response.put("shallowClone", FieldFactory.createForScm("Default Clone Behavior", "false", false, false, false, "4"));
+        response.put("releaseSource", FieldFactory.createForScm("Release Source", ReleaseSource.API.getValue(), false, false, false, "5"));
+        response.put("fetchMode", FieldFactory.createForScm("Fetch Mode", FetchMode.ALL.getValue(), false, false, false, "6"));
+        response.put("fetchDepth", FieldFactory.createForScm("Fetch Depth", null, false, false, false, "7"));
+        response.put("shallowSince", FieldFactory.createForScm("Shallow Since", null, false, false, false, "8"));
+        response.put("pollSubmodules", FieldFactory.createForScm("Update Submodules When Polling", "false", false, false, false, "9"));
+        response.put("gitBackend", FieldFactory.createForScm("Git Backend", null, false, false, false, "10"));
+        response.put(TAG_WHITELIST, FieldFactory.createForScm("Whitelisted Tags", null, false, false, false, "11"));
+        response.put(TAG_BLACKLIST, FieldFactory.createForScm("Blacklisted Tags", null, false, false, false, "12"));
+        response.put("excludeDrafts", FieldFactory.createForScm("Exclude Drafts", "false", false, false, false, "13"));
+        response.put("excludePreReleases", FieldFactory.createForScm("Exclude Pre-releases", "false", false, false, false, "14"));
+        response.put(PIN_MAJOR_VERSION, FieldFactory.createForScm("Pin Major Version", null, false, false, false, "15"));
         return response;
     }
 
     @Override
     public BranchFilter getBranchFilter(Map<String, String> configuration) {
-        return new BranchFilter();
+        List<String> options = Arrays.asList(configuration.get(TAG_BLACKLIST), configuration.get(TAG_WHITELIST));
+        BranchFilter filter = FILTERS.get(options);
+        if (filter == null) {
+            filter = new BranchFilter(options.get(0), options.get(1));
+            if (FILTERS.size() >= MAX_CACHED_FILTERS) {
+                FILTERS.clear();
+            }
+            FILTERS.put(options, filter);
+        }
+        return filter;
+    }
+
+    @Override
+    public ScmPluginSettings getSettings(Map<String, String> configuration) {
+        return new DefaultScmPluginSettings(
+                ReleaseSource.fromValue(configuration.get("releaseSource")),
+                FetchMode.fromValue(configuration.get("fetchMode")),
+                parsePositiveInt(configuration.get("fetchDepth")),
+                StringUtils.trimToNull(configuration.get("shallowSince")),
+                Boolean.parseBoolean(configuration.get("pollSubmodules")),
+                GitBackend.fromValue(configuration.get("gitBackend")),
+                getBranchFilter(configuration),
+                new ReleasePolicy(
+                        Boolean.parseBoolean(configuration.get("excludeDrafts")),
+                        Boolean.parseBoolean(configuration.get("excludePreReleases")),
+                        parseMajorVersion(configuration.get(PIN_MAJOR_VERSION))));
+    }
+
+    private static Integer parsePositiveInt(String value) {
+        try {
+            int parsed = Integer.parseInt(StringUtils.trimToEmpty(value));
+            return parsed > 0 ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return null when blank
+     * @throws NumberFormatException when not a major version
+     */
+    public static Integer parseMajorVersion(String value) {
+        String trimmed = StringUtils.trimToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        int major = Integer.parseInt(trimmed.startsWith("v") || trimmed.startsWith("V") ? trimmed.substring(1) : trimmed);
+        if (major < 0) {
+            throw new NumberFormatException(String.format("Negative major version: %s", trimmed));
+        }
+        return major;
     }
 
     @Override
@@ -1,4 +1,74 @@
 package io.cogniflare.gocd.github.settings.scm;
 
+import io.cogniflare.gocd.github.util.BranchFilter;
+
 public class DefaultScmPluginSettings implements ScmPluginSettings {
+    private final ReleaseSource releaseSource;
+    private final FetchMode fetchMode;
+    private final Integer fetchDepth;
+    private final String shallowSince;
+    private final boolean pollSubmodules;
+    private final GitBackend gitBackend;
+    private final BranchFilter tagFilter;
+    private final ReleasePolicy releasePolicy;
+
+    public DefaultScmPluginSettings() {
+        this(ReleaseSource.API, FetchMode.ALL, null, null, false, GitBackend.DEFAULT);
+    }
+
+    public DefaultScmPluginSettings(ReleaseSource releaseSource, FetchMode fetchMode, Integer fetchDepth, String shallowSince, boolean pollSubmodules, GitBackend gitBackend) {
+        this(releaseSource, fetchMode, fetchDepth, shallowSince, pollSubmodules, gitBackend, new BranchFilter(), ReleasePolicy.ANY);
+    }
+
+    public DefaultScmPluginSettings(ReleaseSource releaseSource, FetchMode fetchMode, Integer fetchDepth, String shallowSince, boolean pollSubmodules, GitBackend gitBackend,
+                                    BranchFilter tagFilter, ReleasePolicy releasePolicy) {
+        this.releaseSource = releaseSource;
+        this.fetchMode = fetchMode;
+        this.fetchDepth = fetchDepth;
+        this.shallowSince = shallowSince;
+        this.pollSubmodules = pollSubmodules;
+        this.gitBackend = gitBackend;
+        this.tagFilter = tagFilter;
+        this.releasePolicy = releasePolicy;
+    }
+
+    @Override
+    public ReleaseSource getReleaseSource() {
+        return releaseSource;
+    }
+
+    @Override
+    public FetchMode getFetchMode() {
+        return fetchMode;
+    }
+
+    @Override
+    public Integer getFetchDepth() {
+        return fetchDepth;
+    }
+
+    @Override
+    public String getShallowSince() {
+        return shallowSince;
+    }
+
+    @Override
+    public boolean isPollSubmodules() {
+        return pollSubmodules;
+    }
+
+    @Override
+    public GitBackend getGitBackend() {
+        return gitBackend;
+    }
+
+    @Override
+    public BranchFilter getTagFilter() {
+        return tagFilter;
+    }
+
+    @Override
+    public ReleasePolicy getReleasePolicy() {
+        return releasePolicy;
+    }
 }
@@ -0,0 +1,34 @@
+package io.cogniflare.gocd.github.settings.scm;
+
+/**
+ * Which tags a poll fetches into the flyweight working copy.
+ */
+public enum FetchMode {
+    /**
+     * Every tag of the remote.
+     */
+    ALL("all"),
+    /**
+     * Only the latest release tag, and the previous one when revisions since it are needed.
+     */
+    RELEASE("release");
+
+    private final String value;
+
+    FetchMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static FetchMode fromValue(String value) {
+        for (FetchMode mode : values()) {
+            if (mode.value.equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return mode;
+            }
+        }
+        return ALL;
+    }
+}
@@ -0,0 +1,43 @@
+package io.cogniflare.gocd.github.settings.scm;
+
+/**
+ * How git operations on working copies are run.
+ */
+public enum GitBackend {
+    /**
+     * The git command line, one process per operation.
+     */
+    CMD("cmd"),
+    /**
+     * JGit, in process.
+     */
+    JGIT("jgit");
+
+    /**
+     * Backend of materials that do not choose one, from {@code gocd.github.tags.git-backend}.
+     */
+    public static final GitBackend DEFAULT = fromValue(System.getProperty("gocd.github.tags.git-backend"), CMD);
+
+    private final String value;
+
+    GitBackend(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static GitBackend fromValue(String value) {
+        return fromValue(value, DEFAULT);
+    }
+
+    private static GitBackend fromValue(String value, GitBackend fallback) {
+        for (GitBackend backend : values()) {
+            if (backend.value.equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return backend;
+            }
+        }
+        return fallback;
+    }
+}
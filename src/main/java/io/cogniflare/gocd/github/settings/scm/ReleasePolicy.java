@@ -0,0 +1,66 @@
+package io.cogniflare.gocd.github.settings.scm;
+
+import io.cogniflare.gocd.github.util.SemanticVersion;
+
+import java.util.Optional;
+
+/**
+ * Which releases of a material qualify as its latest release.
+ */
+public class ReleasePolicy {
+    public static final ReleasePolicy ANY = new ReleasePolicy(false, false, null);
+
+    private final boolean excludeDrafts;
+    private final boolean excludePreReleases;
+    private final Integer pinnedMajor;
+
+    public ReleasePolicy(boolean excludeDrafts, boolean excludePreReleases, Integer pinnedMajor) {
+        this.excludeDrafts = excludeDrafts;
+        this.excludePreReleases = excludePreReleases;
+        this.pinnedMajor = pinnedMajor;
+    }
+
+    /**
+     * @param preRelease whether the release is marked as one; a semver pre-release tag counts as one too
+     */
+    public boolean accepts(String tag, boolean draft, boolean preRelease) {
+        if (draft && excludeDrafts) {
+            return false;
+        }
+        if (!excludePreReleases && pinnedMajor == null) {
+            return true;
+        }
+        Optional<SemanticVersion> version = SemanticVersion.parse(tag);
+        if (excludePreReleases && (preRelease || (version.isPresent() && version.get().isPreRelease()))) {
+            return false;
+        }
+        return pinnedMajor == null || (version.isPresent() && version.get().getMajor() == pinnedMajor);
+    }
+
+    public boolean isExcludeDrafts() {
+        return excludeDrafts;
+    }
+
+    public boolean isExcludePreReleases() {
+        return excludePreReleases;
+    }
+
+    /**
+     * Major version the latest release must have, or null for any.
+     */
+    public Integer getPinnedMajor() {
+        return pinnedMajor;
+    }
+
+    public boolean isAny() {
+        return !excludeDrafts && !excludePreReleases && pinnedMajor == null;
+    }
+
+    /**
+     * Identifies the policy, for keys of lookups whose answer depends on it.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s%s%s", excludeDrafts ? "-drafts" : "", excludePreReleases ? "-prereleases" : "", pinnedMajor == null ? "" : "@" + pinnedMajor);
+    }
+}
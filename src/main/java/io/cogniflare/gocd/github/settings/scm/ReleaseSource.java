@@ -0,0 +1,34 @@
+package io.cogniflare.gocd.github.settings.scm;
+
+/**
+ * Where the latest release of a material is resolved from.
+ */
+public enum ReleaseSource {
+    /**
+     * The releases listed by the hosting provider's API.
+     */
+    API("api"),
+    /**
+     * The tags of the local clone; polling makes no API calls.
+     */
+    TAGS("tags");
+
+    private final String value;
+
+    ReleaseSource(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static ReleaseSource fromValue(String value) {
+        for (ReleaseSource source : values()) {
+            if (source.value.equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return source;
+            }
+        }
+        return API;
+    }
+}
@@ -7,4 +7,6 @@ import java.util.Map;
 public interface ScmPluginConfigurationView extends PluginConfigurationView {
 
     BranchFilter getBranchFilter(Map<String, String> configuration);
+
+    ScmPluginSettings getSettings(Map<String, String> configuration);
 }
@@ -1,4 +1,34 @@
 package io.cogniflare.gocd.github.settings.scm;
 
+import io.cogniflare.gocd.github.util.BranchFilter;
+
 public interface ScmPluginSettings {
+
+    ReleaseSource getReleaseSource();
+
+    FetchMode getFetchMode();
+
+    /**
+     * Number of commits to fetch per tag, or null for the full history.
+     */
+    Integer getFetchDepth();
+
+    /**
+     * Date before which history is not fetched, in any format {@code git fetch --shallow-since} accepts; null for no limit.
+     */
+    String getShallowSince();
+
+    /**
+     * Whether polls update submodules of the flyweight working copy; they are not needed to compute revisions.
+     */
+    boolean isPollSubmodules();
+
+    GitBackend getGitBackend();
+
+    /**
+     * Tags that qualify as releases; the latest release is the latest of those.
+     */
+    BranchFilter getTagFilter();
+
+    ReleasePolicy getReleasePolicy();
 }
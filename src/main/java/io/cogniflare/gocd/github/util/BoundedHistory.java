@@ -0,0 +1,79 @@
+package io.cogniflare.gocd.github.util;
+
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Commits read within {@link RevisionLimits}, with what was left out of them.
+ */
+public class BoundedHistory {
+    private final List<Entry> entries;
+    private final boolean truncated;
+
+    public BoundedHistory(List<Entry> entries, boolean truncated) {
+        this.entries = entries;
+        this.truncated = truncated;
+    }
+
+    public static BoundedHistory of(Revision revision, RevisionLimits limits) {
+        return new BoundedHistory(Collections.singletonList(Entry.of(revision, limits)), false);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Whether there were more commits than the limit.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public static class Entry {
+        private final Revision revision;
+        private final boolean filesTruncated;
+        private final boolean commentTruncated;
+
+        public Entry(Revision revision, boolean filesTruncated, boolean commentTruncated) {
+            this.revision = revision;
+            this.filesTruncated = filesTruncated;
+            this.commentTruncated = commentTruncated;
+        }
+
+        /**
+         * Cuts down a revision that was read in full.
+         */
+        public static Entry of(Revision revision, RevisionLimits limits) {
+            List<ModifiedFile> files = revision.getModifiedFiles();
+            String comment = revision.getComment();
+            boolean filesTruncated = files != null && files.size() > limits.getMaxFilesPerCommit();
+            boolean commentTruncated = comment != null && comment.length() > limits.getMaxCommentLength();
+            if (!filesTruncated && !commentTruncated) {
+                return new Entry(revision, false, false);
+            }
+            Revision bounded = new Revision(revision.getRevision(), revision.getTimestamp(),
+                    commentTruncated ? comment.substring(0, limits.getMaxCommentLength()) : comment,
+                    revision.getUser(), revision.getEmailId(),
+                    filesTruncated ? new ArrayList<>(files.subList(0, limits.getMaxFilesPerCommit())) : files);
+            bounded.setMergeCommit(revision.isMergeCommit());
+            return new Entry(bounded, filesTruncated, commentTruncated);
+        }
+
+        public Revision getRevision() {
+            return revision;
+        }
+
+        public boolean isFilesTruncated() {
+            return filesTruncated;
+        }
+
+        public boolean isCommentTruncated() {
+            return commentTruncated;
+        }
+    }
+}
@@ -1,30 +1,81 @@
 package io.cogniflare.gocd.github.util;
 
-import com.thoughtworks.go.plugin.api.logging.Logger;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Whitelist and blacklist of glob patterns. Both lists share one automaton, so a
+ * name is checked against all their patterns in a single pass.
+ */
 public class BranchFilter {
 
-    private static final Logger LOGGER = Logger.getLoggerFor(BranchFilter.class);
-
     public static final String NO_BRANCHES = "";
-    private final BranchMatcher blacklistedBranches;
-    private final BranchMatcher whitelistedBrandches;
+    private static final int WHITELIST = 0;
+    private static final int BLACKLIST = 1;
+
+    private final String blacklistOption;
+    private final String whitelistOption;
+    private final boolean whitelistEmpty;
+    private final boolean empty;
+    private final GlobAutomaton automaton;
 
     public BranchFilter() {
         this(NO_BRANCHES, NO_BRANCHES);
     }
 
+    /**
+     * @throws java.util.regex.PatternSyntaxException when a pattern is invalid
+     */
     public BranchFilter(String blacklistOption, String whitelistOption) {
-        this.blacklistedBranches = new BranchMatcher(blacklistOption, BranchMatcher.Mode.FAIL_EMPTY);
-        this.whitelistedBrandches = new BranchMatcher(whitelistOption, BranchMatcher.Mode.PASS_EMPTY);
+        this.blacklistOption = blacklistOption == null ? NO_BRANCHES : blacklistOption.trim();
+        this.whitelistOption = whitelistOption == null ? NO_BRANCHES : whitelistOption.trim();
+        List<String> blacklist = BranchMatcher.split(blacklistOption);
+        List<String> whitelist = BranchMatcher.split(whitelistOption);
+        GlobAutomaton.Builder builder = GlobAutomaton.builder();
+        for (String pattern : whitelist) {
+            builder.add(pattern, WHITELIST);
+        }
+        for (String pattern : blacklist) {
+            builder.add(pattern, BLACKLIST);
+        }
+        this.automaton = builder.build();
+        this.whitelistEmpty = whitelist.isEmpty();
+        this.empty = whitelist.isEmpty() && blacklist.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return empty;
     }
 
     public boolean isBranchValid(String branch) {
         if (branch == null) {
             return false;
-        } else if (whitelistedBrandches.isEmpty() && blacklistedBranches.isEmpty()) {
+        } else if (empty) {
             return true;
-        } else return whitelistedBrandches.matches(branch) && !blacklistedBranches.matches(branch);
+        }
+        int groups = automaton.match(branch);
+        return (whitelistEmpty || (groups & (1 << WHITELIST)) != 0) && (groups & (1 << BLACKLIST)) == 0;
+    }
+
+    /**
+     * The valid ones among {@code branches}, in order.
+     */
+    public List<String> filter(List<String> branches) {
+        List<String> valid = new ArrayList<>(branches.size());
+        for (String branch : branches) {
+            if (isBranchValid(branch)) {
+                valid.add(branch);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Identifies the filter, for keys of lookups whose answer depends on it.
+     */
+    @Override
+    public String toString() {
+        return whitelistOption + "!" + blacklistOption;
     }
 
 }
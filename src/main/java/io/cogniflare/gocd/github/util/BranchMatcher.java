@@ -1,11 +1,11 @@
 package io.cogniflare.gocd.github.util;
 
-import java.nio.file.FileSystems;
-import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Comma separated glob patterns, matched all at once through one {@link GlobAutomaton}.
+ */
 public class BranchMatcher {
 
     public static final String SEPARATOR = ",(?![^{]*})";
@@ -15,21 +15,33 @@ public class BranchMatcher {
         FAIL_EMPTY
     }
 
-    private String pattern;
     private final Mode mode;
-    private final List<PathMatcher> patterns = new ArrayList<>();
+    private final List<String> patterns;
+    private final GlobAutomaton automaton;
 
     public BranchMatcher(String branchPattern, Mode mode) {
+        this.patterns = split(branchPattern);
+        GlobAutomaton.Builder builder = GlobAutomaton.builder();
+        for (String pattern : patterns) {
+            builder.add(pattern, 0);
+        }
+        this.automaton = builder.build();
+        this.mode = mode;
+    }
+
+    /**
+     * Non-blank patterns of a comma separated list; commas within braces belong to the pattern.
+     */
+    static List<String> split(String branchPattern) {
+        List<String> patterns = new ArrayList<>();
         if (branchPattern != null) {
-            pattern = branchPattern;
             for (String branch : branchPattern.split(SEPARATOR)) {
-                PathMatcher matcher = getMatcher(branch.trim());
                 if (!branch.trim().isEmpty()) {
-                    patterns.add(matcher);
+                    patterns.add(branch.trim());
                 }
             }
         }
-        this.mode = mode;
+        return patterns;
     }
 
     public boolean isEmpty() {
@@ -40,22 +52,7 @@ public class BranchMatcher {
         if (patterns.isEmpty()) {
             return mode == Mode.PASS_EMPTY;
         }
-
-        Path branchAsPath = getAsPath(branch);
-        for (PathMatcher pathMatcher : patterns) {
-            if (pathMatcher.matches(branchAsPath)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private PathMatcher getMatcher(String branch) {
-        return FileSystems.getDefault().getPathMatcher(String.format("glob:%s", branch));
-    }
-
-    private Path getAsPath(String branch) {
-        return FileSystems.getDefault().getPath(branch);
+        return automaton.matches(branch, 0);
     }
 
 }
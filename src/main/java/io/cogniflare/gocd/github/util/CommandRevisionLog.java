@@ -0,0 +1,167 @@
+package io.cogniflare.gocd.github.util;
+
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * {@link RevisionLog} on {@code git log}. Git stops after one commit more than the
+ * limit, and its output is read as a stream: files and message text beyond the
+ * limits are skipped over without being kept.
+ */
+public class CommandRevisionLog implements RevisionLog {
+    private static final char RECORD = '\u001e';
+    private static final char FIELD = '\u001f';
+    // hash, parents, author name, author email, author time, message
+    private static final String FORMAT = "%x1e%H%x1f%P%x1f%an%x1f%ae%x1f%at%x1f%B";
+    private static final int HEADER_LENGTH = 1024;
+    private static final int PATH_LENGTH = 4096;
+
+    private final GitCommand git;
+
+    public CommandRevisionLog(GitCommand git) {
+        this.git = git;
+    }
+
+    @Override
+    public BoundedHistory since(String revision, RevisionLimits limits) throws IOException {
+        return git.run(output -> parse(new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8)), limits),
+                "-c", "core.quotePath=false", "log", "-z", "--name-status", "--no-renames",
+                "--max-count=" + (limits.getMaxCommits() + 1), "--format=" + FORMAT, revision + "..HEAD", "--");
+    }
+
+    /**
+     * Parses {@code git log -z --name-status} output: each commit is its formatted header
+     * followed by NUL-separated status and path pairs.
+     */
+    static BoundedHistory parse(Reader output, RevisionLimits limits) throws IOException {
+        List<BoundedHistory.Entry> entries = new ArrayList<>();
+        boolean truncated = false;
+        Commit commit = null;
+        Token token = new Token();
+        while (token.next(output, HEADER_LENGTH + limits.getMaxCommentLength())) {
+            String value = token.value();
+            if (!value.isEmpty() && value.charAt(0) == RECORD) {
+                if (commit != null) {
+                    entries.add(commit.toEntry());
+                }
+                if (entries.size() == limits.getMaxCommits()) {
+                    // the extra commit only tells there are more; drain the rest of its output
+                    truncated = true;
+                    commit = null;
+                    while (token.next(output, 0)) {
+                        // skip
+                    }
+                    break;
+                }
+                commit = Commit.parse(value.substring(1), token.isTruncated(), limits);
+            } else if (commit != null && !value.isEmpty()) {
+                String status = value;
+                boolean hasPath = token.next(output, PATH_LENGTH);
+                commit.addFile(status, hasPath ? token.value() : "", limits);
+            }
+        }
+        if (commit != null) {
+            entries.add(commit.toEntry());
+        }
+        return new BoundedHistory(entries, truncated);
+    }
+
+    private static class Commit {
+        private final Revision revision;
+        private final List<ModifiedFile> files;
+        private final boolean commentTruncated;
+        private boolean filesTruncated;
+
+        private Commit(Revision revision, List<ModifiedFile> files, boolean commentTruncated) {
+            this.revision = revision;
+            this.files = files;
+            this.commentTruncated = commentTruncated;
+        }
+
+        private static Commit parse(String header, boolean cut, RevisionLimits limits) throws IOException {
+            String[] fields = header.split(String.valueOf(FIELD), 6);
+            if (fields.length < 6) {
+                throw new IOException(String.format("Unexpected git log header: %s", header));
+            }
+            String comment = fields[5].trim();
+            boolean commentTruncated = cut || comment.length() > limits.getMaxCommentLength();
+            if (comment.length() > limits.getMaxCommentLength()) {
+                comment = comment.substring(0, limits.getMaxCommentLength());
+            }
+            List<ModifiedFile> files = new ArrayList<>();
+            Revision revision = new Revision(fields[0], new Date(Long.parseLong(fields[4]) * 1000), comment, fields[2], fields[3], files);
+            revision.setMergeCommit(fields[1].trim().contains(" "));
+            return new Commit(revision, files, commentTruncated);
+        }
+
+        private void addFile(String status, String path, RevisionLimits limits) {
+            if (files.size() >= limits.getMaxFilesPerCommit()) {
+                filesTruncated = true;
+                return;
+            }
+            files.add(new ModifiedFile(path, action(status)));
+        }
+
+        private BoundedHistory.Entry toEntry() {
+            return new BoundedHistory.Entry(revision, filesTruncated, commentTruncated);
+        }
+
+        private static String action(String status) {
+            switch (status.charAt(0)) {
+                case 'A':
+                    return "added";
+                case 'D':
+                    return "deleted";
+                default:
+                    return "modified";
+            }
+        }
+    }
+
+    /**
+     * NUL-terminated token, with the newlines git puts between a header and its
+     * files dropped, and characters beyond a maximum length skipped.
+     */
+    private static class Token {
+        private final StringBuilder value = new StringBuilder();
+        private boolean truncated;
+
+        private boolean next(Reader reader, int maxLength) throws IOException {
+            value.setLength(0);
+            truncated = false;
+            int c = reader.read();
+            while (c == '\n') {
+                c = reader.read();
+            }
+            if (c < 0) {
+                return false;
+            }
+            while (c > 0) {
+                if (value.length() < maxLength) {
+                    value.append((char) c);
+                } else {
+                    truncated = true;
+                }
+                c = reader.read();
+            }
+            return true;
+        }
+
+        private String value() {
+            return value.toString();
+        }
+
+        private boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks serializing work on the same working copy folder, whatever path
+ * it is reached through, while requests for other folders go ahead in parallel.
+ * Two folders may share a stripe; with enough stripes that is rare and only
+ * costs some parallelism.
+ */
+public class FolderLocks {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public FolderLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Blocks until {@code folder} is free. Release it by closing the returned lock.
+     */
+    public Held lock(File folder) {
+        ReentrantLock lock = stripeFor(folder);
+        lock.lock();
+        return lock::unlock;
+    }
+
+    boolean isLocked(File folder) {
+        return stripeFor(folder).isLocked();
+    }
+
+    private ReentrantLock stripeFor(File folder) {
+        int hash = key(folder).hashCode();
+        // spread the high bits, like HashMap does
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    private static String key(File folder) {
+        try {
+            return folder.getCanonicalPath();
+        } catch (IOException e) {
+            return folder.getAbsoluteFile().toPath().normalize().toString();
+        }
+    }
+
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
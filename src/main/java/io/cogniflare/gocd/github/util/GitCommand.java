@@ -0,0 +1,156 @@
+package io.cogniflare.gocd.github.util;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs git commands that {@link com.tw.go.plugin.GitHelper} does not offer in a
+ * working directory and returns their output.
+ * <p>
+ * A command still running after the timeout is killed, so a hung git or ssh
+ * cannot hold the poll, and the folder lock it runs under, forever.
+ */
+public class GitCommand {
+    static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("gocd.github.tags.git.timeout-seconds", 900));
+    // how long stderr may stay open after git exited, e.g. by an ssh it started
+    private static final long STDERR_GRACE_MILLIS = 5_000;
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gocd-github-tags-git-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File workingDir;
+    private final long timeoutMillis;
+
+    /**
+     * @param workingDir directory to run in; null for commands that need no repository, such as {@code ls-remote}
+     */
+    public GitCommand(File workingDir) {
+        this(workingDir, TIMEOUT_MILLIS);
+    }
+
+    GitCommand(File workingDir, long timeoutMillis) {
+        this.workingDir = workingDir;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String run(String... args) throws IOException {
+        return run(GitCommand::read, args);
+    }
+
+    /**
+     * Runs the command and hands its output to {@code reader} as it is produced,
+     * for output too large to hold as a whole. The reader must consume it to the end.
+     */
+    public <T> T run(OutputReader<T> reader, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+
+        ProcessBuilder builder = new ProcessBuilder(command).directory(workingDir);
+        builder.environment().put("GIT_TERMINAL_PROMPT", "0");
+        String name = subcommand(args);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Process process = builder.start();
+        process.getOutputStream().close();
+
+        // on a thread of its own, so that a command stuck writing to stderr cannot take a shared one
+        FutureTask<String> error = new FutureTask<>(() -> readQuietly(process.getErrorStream()));
+        Thread errorReader = new Thread(error, "gocd-github-tags-git-stderr");
+        errorReader.setDaemon(true);
+        errorReader.start();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        // reading stdout blocks for as long as git runs, so the timeout has to be enforced from outside
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            process.destroyForcibly();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            T output;
+            try (InputStream stdout = process.getInputStream()) {
+                output = reader.read(stdout);
+            } catch (IOException | RuntimeException e) {
+                process.destroyForcibly();
+                if (timedOut.get()) {
+                    throw timeout(name);
+                }
+                throw e;
+            }
+            if (!process.waitFor(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                timedOut.set(true);
+                process.destroyForcibly();
+            }
+            if (timedOut.get()) {
+                throw timeout(name);
+            }
+            int exitCode = process.exitValue();
+            if (exitCode != 0) {
+                throw new IOException(String.format("git %s failed with exit code %d: %s", name, exitCode, stderr(error)));
+            }
+            return output;
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException(String.format("git %s was interrupted", name), e);
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    public File getWorkingDir() {
+        return workingDir;
+    }
+
+    private static String subcommand(String... args) {
+        // skip -c name=value overrides
+        int i = 0;
+        while (i < args.length - 1 && "-c".equals(args[i])) {
+            i += 2;
+        }
+        return i < args.length ? args[i] : "";
+    }
+
+    private IOException timeout(String name) {
+        return new IOException(String.format("git %s timed out after %d ms", name, timeoutMillis));
+    }
+
+    private static String stderr(FutureTask<String> error) throws InterruptedException {
+        try {
+            return error.get(STDERR_GRACE_MILLIS, TimeUnit.MILLISECONDS).trim();
+        } catch (ExecutionException | TimeoutException e) {
+            return "";
+        }
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        return IOUtils.toString(stream, StandardCharsets.UTF_8);
+    }
+
+    private static String readQuietly(InputStream stream) {
+        try {
+            return read(stream);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    public interface OutputReader<T> {
+        T read(InputStream output) throws IOException;
+    }
+}
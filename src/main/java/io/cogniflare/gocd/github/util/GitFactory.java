@@ -1,15 +1,30 @@
-package io.cogniflare.gocd.github.util;
-
-import com.tw.go.plugin.GitHelper;
-import com.tw.go.plugin.HelperFactory;
-import com.tw.go.plugin.model.GitConfig;
-
-import java.io.File;
-
-public class GitFactory {
-
-    public GitHelper create(GitConfig config, File folder) {
-        return HelperFactory.gitCmd(config, folder);
-    }
-
-}
+package io.cogniflare.gocd.github.util;
+
+import com.tw.go.plugin.GitHelper;
+import com.tw.go.plugin.HelperFactory;
+import com.tw.go.plugin.model.GitConfig;
+import io.cogniflare.gocd.github.settings.scm.GitBackend;
+
+import java.io.File;
+
+public class GitFactory {
+
+    public GitHelper create(GitConfig config, File folder) {
+        return create(config, folder, GitBackend.DEFAULT);
+    }
+
+    public GitHelper create(GitConfig config, File folder, GitBackend backend) {
+        if (backend == GitBackend.JGIT) {
+            return new JGitHelper(config, folder);
+        }
+        return HelperFactory.gitCmd(config, folder);
+    }
+
+    /**
+     * Bounded history of the working copy {@code git} works on, read in process when the backend can.
+     */
+    public RevisionLog createLog(GitHelper git, File folder) {
+        return git instanceof RevisionLog ? (RevisionLog) git : new CommandRevisionLog(new GitCommand(folder));
+    }
+
+}
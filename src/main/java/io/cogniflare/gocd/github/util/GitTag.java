@@ -0,0 +1,61 @@
+package io.cogniflare.gocd.github.util;
+
+import java.util.Optional;
+
+/**
+ * A tag of the local clone, peeled to the commit it points to.
+ */
+public class GitTag {
+    private final String name;
+    private final String commit;
+    private final long creatorDate;
+    private final boolean annotated;
+    private final String subject;
+    private final String body;
+
+    public GitTag(String name, String commit, long creatorDate, boolean annotated, String subject, String body) {
+        this.name = name;
+        this.commit = commit;
+        this.creatorDate = creatorDate;
+        this.annotated = annotated;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCommit() {
+        return commit;
+    }
+
+    /**
+     * Tagger date of annotated tags, committer date of lightweight ones, in seconds since the epoch.
+     */
+    public long getCreatorDate() {
+        return creatorDate;
+    }
+
+    public boolean isAnnotated() {
+        return annotated;
+    }
+
+    /**
+     * First line of the tag annotation, or the tag name for lightweight tags.
+     */
+    public String getSubject() {
+        return annotated ? subject : name;
+    }
+
+    /**
+     * Tag annotation without its first line; empty for lightweight tags.
+     */
+    public String getBody() {
+        return annotated ? body : "";
+    }
+
+    public Optional<SemanticVersion> getVersion() {
+        return SemanticVersion.parse(name);
+    }
+}
@@ -0,0 +1,449 @@
+package io.cogniflare.gocd.github.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Any number of glob patterns compiled into a single automaton that tells, in one
+ * pass over a name, which groups of patterns match it.
+ * <p>
+ * Globs follow {@link java.nio.file.FileSystem#getPathMatcher} syntax: {@code *} and
+ * {@code ?} do not cross {@code /}, {@code **} does, {@code [a-z]} and {@code [!a-z]}
+ * match a character of a class and {@code {a,b}} one of its alternatives. The
+ * patterns become one NFA, whose sets of states are turned into DFA states as names
+ * reach them; matching is linear in the length of the name whatever the patterns.
+ * Past {@link #MAX_DFA_STATES} DFA states new ones are no longer kept, so memory
+ * stays bounded for pathological patterns, at the cost of recomputing them.
+ */
+public class GlobAutomaton {
+    static final int MAX_DFA_STATES = 4096;
+    private static final int ASCII = 128;
+
+    private static final int CHAR = 0;
+    // any character but '/'
+    private static final int SEGMENT_CHAR = 1;
+    private static final int ANY_CHAR = 2;
+    private static final int CLASS = 3;
+    private static final int SPLIT = 4;
+    private static final int MATCH = 5;
+
+    private final int[] types;
+    private final int[] outs;
+    private final int[] alternatives;
+    // character of CHAR states, group bit of MATCH states
+    private final int[] values;
+    private final CharClass[] classes;
+    private final DState start;
+    private final Map<DStateKey, DState> dStates = new HashMap<>();
+
+    private GlobAutomaton(Builder builder) {
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.outs = Arrays.copyOf(builder.outs, builder.size);
+        this.alternatives = Arrays.copyOf(builder.alternatives, builder.size);
+        this.values = Arrays.copyOf(builder.values, builder.size);
+        this.classes = builder.classes.toArray(new CharClass[0]);
+        this.start = intern(closure(builder.starts.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return bit {@code 1 << group} set for each group with a pattern matching {@code name}
+     */
+    public synchronized int match(String name) {
+        DState state = start;
+        for (int i = 0; i < name.length() && state.nfaStates.length > 0; i++) {
+            state = step(state, name.charAt(i));
+        }
+        return state.groups;
+    }
+
+    public boolean matches(String name, int group) {
+        return (match(name) & (1 << group)) != 0;
+    }
+
+    synchronized int getDStateCount() {
+        return dStates.size();
+    }
+
+    private DState step(DState from, char c) {
+        DState next = c < ASCII ? from.ascii == null ? null : from.ascii[c] : from.other == null ? null : from.other.get(c);
+        if (next != null) {
+            return next;
+        }
+        int[] targets = new int[from.nfaStates.length];
+        int count = 0;
+        for (int state : from.nfaStates) {
+            if (accepts(state, c)) {
+                targets[count++] = outs[state];
+            }
+        }
+        next = intern(closure(Arrays.copyOf(targets, count)));
+        if (!next.cached) {
+            return next;
+        }
+        if (c < ASCII) {
+            if (from.ascii == null) {
+                from.ascii = new DState[ASCII];
+            }
+            from.ascii[c] = next;
+        } else {
+            if (from.other == null) {
+                from.other = new HashMap<>();
+            }
+            from.other.put(c, next);
+        }
+        return next;
+    }
+
+    private boolean accepts(int state, char c) {
+        switch (types[state]) {
+            case CHAR:
+                return values[state] == c;
+            case SEGMENT_CHAR:
+                return c != '/';
+            case ANY_CHAR:
+                return true;
+            case CLASS:
+                return c != '/' && classes[values[state]].contains(c);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * States reachable from {@code states} without reading a character, sorted, with
+     * split states left out as they read nothing.
+     */
+    private int[] closure(int[] states) {
+        boolean[] seen = new boolean[types.length];
+        int[] stack = new int[types.length];
+        int top = 0;
+        for (int state : states) {
+            if (!seen[state]) {
+                seen[state] = true;
+                stack[top++] = state;
+            }
+        }
+        List<Integer> result = new ArrayList<>();
+        while (top > 0) {
+            int state = stack[--top];
+            if (types[state] != SPLIT) {
+                result.add(state);
+                continue;
+            }
+            for (int out : new int[]{outs[state], alternatives[state]}) {
+                if (!seen[out]) {
+                    seen[out] = true;
+                    stack[top++] = out;
+                }
+            }
+        }
+        int[] closure = result.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(closure);
+        return closure;
+    }
+
+    private DState intern(int[] nfaStates) {
+        DStateKey key = new DStateKey(nfaStates);
+        DState state = dStates.get(key);
+        if (state != null) {
+            return state;
+        }
+        int groups = 0;
+        for (int nfaState : nfaStates) {
+            if (types[nfaState] == MATCH) {
+                groups |= values[nfaState];
+            }
+        }
+        boolean cached = dStates.size() < MAX_DFA_STATES;
+        state = new DState(nfaStates, groups, cached);
+        if (cached) {
+            dStates.put(key, state);
+        }
+        return state;
+    }
+
+    public static class Builder {
+        private int[] types = new int[16];
+        private int[] outs = new int[16];
+        private int[] alternatives = new int[16];
+        private int[] values = new int[16];
+        private int size;
+        private final List<CharClass> classes = new ArrayList<>();
+        private final List<Integer> starts = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param group 0 to 31
+         * @throws PatternSyntaxException when {@code glob} is not a valid pattern
+         */
+        public Builder add(String glob, int group) {
+            if (group < 0 || group >= Integer.SIZE) {
+                throw new IllegalArgumentException(String.format("Group %d is out of range", group));
+            }
+            List<Node> nodes = new Parser(glob).parse();
+            starts.add(compile(nodes, add(MATCH, -1, -1, 1 << group)));
+            return this;
+        }
+
+        public GlobAutomaton build() {
+            return new GlobAutomaton(this);
+        }
+
+        /**
+         * Compiles {@code nodes} back to front, each one leading to the state of the
+         * node after it.
+         *
+         * @return first state of the sequence
+         */
+        private int compile(List<Node> nodes, int next) {
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                next = compile(nodes.get(i), next);
+            }
+            return next;
+        }
+
+        private int compile(Node node, int next) {
+            switch (node.type) {
+                case Node.LITERAL:
+                    return add(CHAR, next, -1, node.character);
+                case Node.ONE:
+                    return add(SEGMENT_CHAR, next, -1, 0);
+                case Node.CLASS:
+                    classes.add(node.charClass);
+                    return add(CLASS, next, -1, classes.size() - 1);
+                case Node.STAR:
+                case Node.DOUBLE_STAR: {
+                    int loop = add(SPLIT, -1, next, 0);
+                    // add may grow the arrays, so outs is read after it
+                    int character = add(node.type == Node.STAR ? SEGMENT_CHAR : ANY_CHAR, loop, -1, 0);
+                    outs[loop] = character;
+                    return loop;
+                }
+                default: {
+                    int first = compile(node.alternatives.get(node.alternatives.size() - 1), next);
+                    for (int i = node.alternatives.size() - 2; i >= 0; i--) {
+                        first = add(SPLIT, compile(node.alternatives.get(i), next), first, 0);
+                    }
+                    return first;
+                }
+            }
+        }
+
+        private int add(int type, int out, int alternative, int value) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                outs = Arrays.copyOf(outs, size * 2);
+                alternatives = Arrays.copyOf(alternatives, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            types[size] = type;
+            outs[size] = out;
+            alternatives[size] = alternative;
+            values[size] = value;
+            return size++;
+        }
+    }
+
+    private static class Parser {
+        private final String glob;
+        private int position;
+        private boolean inGroup;
+
+        private Parser(String glob) {
+            this.glob = glob;
+        }
+
+        private List<Node> parse() {
+            List<Node> nodes = sequence();
+            if (position < glob.length()) {
+                throw error("Unexpected character");
+            }
+            return nodes;
+        }
+
+        private List<Node> sequence() {
+            List<Node> nodes = new ArrayList<>();
+            while (position < glob.length()) {
+                char c = glob.charAt(position);
+                if (inGroup && (c == ',' || c == '}')) {
+                    break;
+                }
+                position++;
+                switch (c) {
+                    case '\\':
+                        if (position == glob.length()) {
+                            throw error("No character to escape");
+                        }
+                        nodes.add(Node.literal(glob.charAt(position++)));
+                        break;
+                    case '*':
+                        if (position < glob.length() && glob.charAt(position) == '*') {
+                            position++;
+                            nodes.add(new Node(Node.DOUBLE_STAR));
+                        } else {
+                            nodes.add(new Node(Node.STAR));
+                        }
+                        break;
+                    case '?':
+                        nodes.add(new Node(Node.ONE));
+                        break;
+                    case '[':
+                        nodes.add(charClass());
+                        break;
+                    case '{':
+                        nodes.add(group());
+                        break;
+                    default:
+                        nodes.add(Node.literal(c));
+                }
+            }
+            return nodes;
+        }
+
+        private Node group() {
+            if (inGroup) {
+                throw error("Cannot nest groups");
+            }
+            inGroup = true;
+            Node node = new Node(Node.GROUP);
+            node.alternatives = new ArrayList<>();
+            while (true) {
+                node.alternatives.add(sequence());
+                if (position == glob.length()) {
+                    throw error("Missing '}'");
+                }
+                if (glob.charAt(position++) == '}') {
+                    inGroup = false;
+                    return node;
+                }
+            }
+        }
+
+        private Node charClass() {
+            CharClass charClass = new CharClass();
+            if (position < glob.length() && glob.charAt(position) == '!') {
+                charClass.negated = true;
+                position++;
+            }
+            while (true) {
+                if (position == glob.length()) {
+                    throw error("Missing ']'");
+                }
+                char c = glob.charAt(position++);
+                if (c == ']') {
+                    break;
+                }
+                if (c == '\\') {
+                    if (position == glob.length()) {
+                        throw error("No character to escape");
+                    }
+                    c = glob.charAt(position++);
+                }
+                char last = c;
+                if (position + 1 < glob.length() && glob.charAt(position) == '-' && glob.charAt(position + 1) != ']') {
+                    last = glob.charAt(position + 1);
+                    position += 2;
+                    if (last < c) {
+                        throw error("Invalid range");
+                    }
+                }
+                charClass.add(c, last);
+            }
+            Node node = new Node(Node.CLASS);
+            node.charClass = charClass;
+            return node;
+        }
+
+        private PatternSyntaxException error(String description) {
+            return new PatternSyntaxException(description, glob, position - 1);
+        }
+    }
+
+    private static class Node {
+        private static final int LITERAL = 0;
+        private static final int ONE = 1;
+        private static final int STAR = 2;
+        private static final int DOUBLE_STAR = 3;
+        private static final int CLASS = 4;
+        private static final int GROUP = 5;
+
+        private final int type;
+        private char character;
+        private CharClass charClass;
+        private List<List<Node>> alternatives;
+
+        private Node(int type) {
+            this.type = type;
+        }
+
+        private static Node literal(char c) {
+            Node node = new Node(LITERAL);
+            node.character = c;
+            return node;
+        }
+    }
+
+    private static class CharClass {
+        private boolean negated;
+        private char[] ranges = new char[0];
+
+        private void add(char first, char last) {
+            ranges = Arrays.copyOf(ranges, ranges.length + 2);
+            ranges[ranges.length - 2] = first;
+            ranges[ranges.length - 1] = last;
+        }
+
+        private boolean contains(char c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+    }
+
+    private static class DState {
+        private final int[] nfaStates;
+        private final int groups;
+        private final boolean cached;
+        private DState[] ascii;
+        private Map<Character, DState> other;
+
+        private DState(int[] nfaStates, int groups, boolean cached) {
+            this.nfaStates = nfaStates;
+            this.groups = groups;
+            this.cached = cached;
+        }
+    }
+
+    private static class DStateKey {
+        private final int[] nfaStates;
+        private final int hash;
+
+        private DStateKey(int[] nfaStates) {
+            this.nfaStates = nfaStates;
+            this.hash = Arrays.hashCode(nfaStates);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DStateKey && Arrays.equals(nfaStates, ((DStateKey) o).nfaStates);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
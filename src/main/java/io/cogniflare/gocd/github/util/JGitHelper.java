@@ -0,0 +1,521 @@
+package io.cogniflare.gocd.github.util;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import com.tw.go.plugin.GitHelper;
+import com.tw.go.plugin.model.GitConfig;
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.FetchCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.SubmoduleUpdateCommand;
+import org.eclipse.jgit.api.TransportCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.submodule.SubmoduleStatus;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * {@link GitHelper} on JGit, running every operation in process instead of
+ * forking a {@code git} process for it. Repositories are opened through
+ * {@link JGitRepositories}, so consecutive operations on the same folder share
+ * one handle.
+ * <p>
+ * Failures surface as {@link RuntimeException}s, as they do with the command
+ * line helper. Shallow clones are not supported by JGit and fall back to full
+ * clones.
+ */
+public class JGitHelper extends GitHelper implements RevisionLog {
+    private static final Logger LOGGER = Logger.getLoggerFor(JGitHelper.class);
+    private static final String REMOTE = "origin";
+
+    private final JGitRepositories repositories;
+
+    public JGitHelper(GitConfig gitConfig, File workingDir) {
+        this(gitConfig, workingDir, JGitRepositories.SHARED);
+    }
+
+    public JGitHelper(GitConfig gitConfig, File workingDir, JGitRepositories repositories) {
+        super(gitConfig, workingDir);
+        this.repositories = repositories;
+    }
+
+    @Override
+    public String version() {
+        String version = Git.class.getPackage().getImplementationVersion();
+        return "jgit " + (version == null ? "unknown" : version);
+    }
+
+    @Override
+    public void checkConnection() {
+        run(() -> withCredentials(Git.lsRemoteRepository().setRemote(gitConfig.getEffectiveUrl()).setHeads(true)).call());
+    }
+
+    @Override
+    public void cloneRepository() {
+        if (gitConfig.isShallowClone()) {
+            LOGGER.debug(String.format("Shallow clones are not supported by JGit, cloning %s in full", gitConfig.getUrl()));
+        }
+        run(() -> {
+            repositories.invalidate(workingDir);
+            try (Git git = withCredentials(Git.cloneRepository()
+                    .setURI(gitConfig.getEffectiveUrl())
+                    .setDirectory(workingDir)
+                    .setRemote(REMOTE)
+                    .setBranch(gitConfig.getEffectiveBranch())
+                    .setCloneSubmodules(false))
+                    .call()) {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void cloneOrFetch(String refSpec) {
+        if (!isSameRepository()) {
+            run(() -> {
+                repositories.invalidate(workingDir);
+                if (workingDir.exists()) {
+                    FileUtils.deleteDirectory(workingDir);
+                }
+                return null;
+            });
+            cloneRepository();
+        }
+        // no gc: repacking in process would stall the poll that happens to trigger it
+        fetch(refSpec);
+    }
+
+    @Override
+    public void checkoutRemoteBranchToLocal() {
+        String branch = gitConfig.getEffectiveBranch();
+        withGit(git -> {
+            git.branchCreate().setForce(true).setName(branch).setStartPoint(REMOTE + "/" + branch).call();
+            return git.checkout().setName(branch).setForced(true).call();
+        });
+    }
+
+    @Override
+    public String workingRepositoryUrl() {
+        return withRepository(repository -> repository.getConfig().getString("remote", REMOTE, "url"));
+    }
+
+    @Override
+    public String getCurrentBranch() {
+        return withRepository(Repository::getBranch);
+    }
+
+    @Override
+    public int getCommitCount() {
+        return withRepository(repository -> {
+            try (RevWalk walk = new RevWalk(repository)) {
+                walk.markStart(walk.parseCommit(resolve(repository, Constants.HEAD)));
+                int count = 0;
+                for (RevCommit ignored : walk) {
+                    count++;
+                }
+                return count;
+            }
+        });
+    }
+
+    @Override
+    public String currentRevision() {
+        return withRepository(repository -> resolve(repository, Constants.HEAD).name());
+    }
+
+    @Override
+    public List<Revision> getAllRevisions() {
+        return log(null);
+    }
+
+    @Override
+    public Revision getLatestRevision() {
+        return getDetailsForRevision(Constants.HEAD);
+    }
+
+    @Override
+    public List<Revision> getRevisionsSince(String revision) {
+        return log(revision);
+    }
+
+    @Override
+    public BoundedHistory since(String revision, RevisionLimits limits) {
+        return withRepository(repository -> {
+            List<BoundedHistory.Entry> entries = new ArrayList<>();
+            boolean truncated = false;
+            try (RevWalk walk = new RevWalk(repository)) {
+                walk.markStart(walk.parseCommit(resolve(repository, Constants.HEAD)));
+                walk.markUninteresting(walk.parseCommit(resolve(repository, revision)));
+                for (RevCommit commit : walk) {
+                    if (entries.size() == limits.getMaxCommits()) {
+                        truncated = true;
+                        break;
+                    }
+                    entries.add(toEntry(repository, walk, commit, limits));
+                }
+            }
+            return new BoundedHistory(entries, truncated);
+        });
+    }
+
+    @Override
+    public Revision getDetailsForRevision(String sha) {
+        return withRepository(repository -> {
+            try (RevWalk walk = new RevWalk(repository)) {
+                return toRevision(repository, walk, walk.parseCommit(resolve(repository, sha)));
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getBranchToRevisionMap(String pattern) {
+        return withRepository(repository -> {
+            Map<String, String> branchToRevision = new HashMap<>();
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(pattern)) {
+                branchToRevision.put(ref.getName().substring(pattern.length()), ref.getObjectId().name());
+            }
+            return branchToRevision;
+        });
+    }
+
+    @Override
+    public void pull() {
+        withGit(git -> withCredentials(git.pull().setRemote(REMOTE)).call());
+    }
+
+    @Override
+    public void fetch(String refSpec) {
+        withGit(git -> {
+            FetchCommand fetch = withCredentials(git.fetch())
+                    .setRemote(REMOTE)
+                    .setRemoveDeletedRefs(true)
+                    .setRecurseSubmodules(SubmoduleConfig.FetchRecurseSubmodulesMode.NO);
+            if (refSpec != null) {
+                fetch.setRefSpecs(refSpec);
+            }
+            FetchResult result = fetch.call();
+            LOGGER.debug(String.format("Fetched %d refs into %s", result.getTrackingRefUpdates().size(), workingDir));
+            return result;
+        });
+    }
+
+    @Override
+    public void resetHard(String revision) {
+        withGit(git -> git.reset().setMode(ResetCommand.ResetType.HARD).setRef(revision).call());
+    }
+
+    @Override
+    public void cleanAllUnversionedFiles() {
+        withGit(git -> git.clean().setCleanDirectories(true).setIgnore(false).setForce(true).call());
+    }
+
+    @Override
+    public void gc() {
+        withGit(git -> git.gc().call());
+    }
+
+    @Override
+    public Map<String, String> submoduleUrls() {
+        return withRepository(repository -> {
+            Map<String, String> urls = new HashMap<>();
+            StoredConfig config = repository.getConfig();
+            for (String name : config.getSubsections(ConfigConstants.CONFIG_SUBMODULE_SECTION)) {
+                urls.put(name, config.getString(ConfigConstants.CONFIG_SUBMODULE_SECTION, name, ConfigConstants.CONFIG_KEY_URL));
+            }
+            return urls;
+        });
+    }
+
+    @Override
+    public List<String> submoduleFolders() {
+        return withRepository(repository -> {
+            List<String> folders = new ArrayList<>();
+            try (SubmoduleWalk walk = SubmoduleWalk.forIndex(repository)) {
+                while (walk.next()) {
+                    folders.add(walk.getPath());
+                }
+            }
+            return folders;
+        });
+    }
+
+    @Override
+    public void printSubmoduleStatus() {
+        withGit(git -> {
+            for (Map.Entry<String, SubmoduleStatus> status : git.submoduleStatus().call().entrySet()) {
+                LOGGER.info(String.format("%s %s %s", status.getValue().getType(), status.getValue().getHeadId().name(), status.getKey()));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void checkoutAllModifiedFilesInSubmodules() {
+        withRepository(repository -> {
+            try (SubmoduleWalk walk = SubmoduleWalk.forIndex(repository)) {
+                while (walk.next()) {
+                    try (Repository submodule = walk.getRepository()) {
+                        if (submodule != null) {
+                            Git.wrap(submodule).checkout().setAllPaths(true).call();
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int getSubModuleCommitCount(String subModuleFolder) {
+        return new JGitHelper(gitConfig, new File(workingDir, subModuleFolder), repositories).getCommitCount();
+    }
+
+    @Override
+    public void submoduleInit() {
+        withGit(git -> git.submoduleInit().call());
+    }
+
+    @Override
+    public void submoduleSync() {
+        withGit(git -> git.submoduleSync().call());
+    }
+
+    @Override
+    public void submoduleUpdate() {
+        withRepository(repository -> {
+            updateSubmodules(repository);
+            return null;
+        });
+    }
+
+    private void updateSubmodules(Repository repository) throws GitAPIException, IOException {
+        Git git = Git.wrap(repository);
+        git.submoduleInit().call();
+        git.submoduleSync().call();
+        SubmoduleUpdateCommand update = git.submoduleUpdate().setFetch(true);
+        if (gitConfig.hasCredentials()) {
+            update.setCredentialsProvider(credentials());
+        }
+        if (update.call().isEmpty() || !gitConfig.isRecursiveSubModuleUpdate()) {
+            return;
+        }
+        try (SubmoduleWalk walk = SubmoduleWalk.forIndex(repository)) {
+            while (walk.next()) {
+                try (Repository submodule = walk.getRepository()) {
+                    if (submodule != null) {
+                        updateSubmodules(submodule);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void init() {
+        run(() -> {
+            repositories.invalidate(workingDir);
+            try (Git git = Git.init().setDirectory(workingDir).call()) {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void add(File fileToAdd) {
+        withGit(git -> git.add().addFilepattern(relativePath(fileToAdd)).call());
+    }
+
+    @Override
+    public void commit(String message) {
+        withGit(git -> git.commit().setMessage(message).call());
+    }
+
+    @Override
+    public void submoduleAdd(String repoUrl, String submoduleNameToPutInGitSubmodules, String folder) {
+        withGit(git -> {
+            try (Repository submodule = git.submoduleAdd().setURI(repoUrl).setName(submoduleNameToPutInGitSubmodules).setPath(folder).call()) {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void removeSubmoduleSectionsFromGitConfig() {
+        withRepository(repository -> {
+            StoredConfig config = repository.getConfig();
+            for (String name : config.getSubsections(ConfigConstants.CONFIG_SUBMODULE_SECTION)) {
+                config.unsetSection(ConfigConstants.CONFIG_SUBMODULE_SECTION, name);
+            }
+            config.save();
+            return null;
+        });
+    }
+
+    @Override
+    public void changeSubmoduleUrl(String submoduleName, String newUrl) {
+        run(() -> {
+            FileBasedConfig gitmodules = new FileBasedConfig(new File(workingDir, Constants.DOT_GIT_MODULES), FS.DETECTED);
+            gitmodules.load();
+            gitmodules.setString(ConfigConstants.CONFIG_SUBMODULE_SECTION, submoduleName, ConfigConstants.CONFIG_KEY_URL, newUrl);
+            gitmodules.save();
+            return null;
+        });
+    }
+
+    @Override
+    public void push() {
+        withGit(git -> withCredentials(git.push().setRemote(REMOTE)).call());
+    }
+
+    private boolean isSameRepository() {
+        if (!new File(workingDir, Constants.DOT_GIT).isDirectory()) {
+            return false;
+        }
+        try {
+            return gitConfig.getEffectiveUrl().equals(workingRepositoryUrl());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Revisions reachable from HEAD but not from {@code since}, newest first.
+     */
+    private List<Revision> log(String since) {
+        return withRepository(repository -> {
+            List<Revision> revisions = new ArrayList<>();
+            try (RevWalk walk = new RevWalk(repository)) {
+                walk.markStart(walk.parseCommit(resolve(repository, Constants.HEAD)));
+                if (since != null) {
+                    walk.markUninteresting(walk.parseCommit(resolve(repository, since)));
+                }
+                for (RevCommit commit : walk) {
+                    revisions.add(toRevision(repository, walk, commit));
+                }
+            }
+            return revisions;
+        });
+    }
+
+    private Revision toRevision(Repository repository, RevWalk walk, RevCommit commit) throws IOException {
+        return toRevision(commit, commit.getFullMessage().trim(), modifiedFiles(repository, walk, commit, Integer.MAX_VALUE));
+    }
+
+    private BoundedHistory.Entry toEntry(Repository repository, RevWalk walk, RevCommit commit, RevisionLimits limits) throws IOException {
+        List<ModifiedFile> files = modifiedFiles(repository, walk, commit, limits.getMaxFilesPerCommit() + 1);
+        boolean filesTruncated = files.size() > limits.getMaxFilesPerCommit();
+        if (filesTruncated) {
+            files.remove(files.size() - 1);
+        }
+        String comment = commit.getFullMessage().trim();
+        boolean commentTruncated = comment.length() > limits.getMaxCommentLength();
+        if (commentTruncated) {
+            comment = comment.substring(0, limits.getMaxCommentLength());
+        }
+        return new BoundedHistory.Entry(toRevision(commit, comment, files), filesTruncated, commentTruncated);
+    }
+
+    private static Revision toRevision(RevCommit commit, String comment, List<ModifiedFile> files) {
+        PersonIdent author = commit.getAuthorIdent();
+        Revision revision = new Revision(commit.name(), author.getWhen(), comment, author.getName(), author.getEmailAddress(), files);
+        revision.setMergeCommit(commit.getParentCount() > 1);
+        return revision;
+    }
+
+    /**
+     * Up to {@code limit} files changed against the only parent; none for merges, like {@code git log --name-status}.
+     */
+    private List<ModifiedFile> modifiedFiles(Repository repository, RevWalk walk, RevCommit commit, int limit) throws IOException {
+        if (commit.getParentCount() > 1) {
+            return new ArrayList<>();
+        }
+        List<ModifiedFile> files = new ArrayList<>();
+        try (DiffFormatter diff = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diff.setRepository(repository);
+            RevCommit parent = commit.getParentCount() == 0 ? null : walk.parseCommit(commit.getParent(0));
+            for (DiffEntry entry : diff.scan(parent == null ? null : parent.getTree(), commit.getTree())) {
+                if (files.size() == limit) {
+                    break;
+                }
+                switch (entry.getChangeType()) {
+                    case ADD:
+                    case COPY:
+                        files.add(new ModifiedFile(entry.getNewPath(), "added"));
+                        break;
+                    case DELETE:
+                        files.add(new ModifiedFile(entry.getOldPath(), "deleted"));
+                        break;
+                    default:
+                        files.add(new ModifiedFile(entry.getNewPath(), "modified"));
+                }
+            }
+        }
+        return files;
+    }
+
+    private static ObjectId resolve(Repository repository, String revision) throws IOException {
+        ObjectId id = repository.resolve(revision + "^{commit}");
+        if (id == null) {
+            throw new IOException(String.format("Unknown revision %s in %s", revision, repository.getWorkTree()));
+        }
+        return id;
+    }
+
+    private String relativePath(File file) {
+        String root = workingDir.getAbsoluteFile().toPath().normalize().toString();
+        String path = file.getAbsoluteFile().toPath().normalize().toString();
+        return path.startsWith(root) ? path.substring(root.length()).replaceFirst("^[/\\\\]", "").replace('\\', '/') : file.getPath();
+    }
+
+    private UsernamePasswordCredentialsProvider credentials() {
+        return new UsernamePasswordCredentialsProvider(gitConfig.getUsername(), gitConfig.getPassword());
+    }
+
+    private <C extends TransportCommand<C, ?>> C withCredentials(C command) {
+        return gitConfig.hasCredentials() ? command.setCredentialsProvider(credentials()) : command;
+    }
+
+    private <T> T withGit(RepositoryOperation<Git, T> operation) {
+        return withRepository(repository -> operation.apply(Git.wrap(repository)));
+    }
+
+    private <T> T withRepository(RepositoryOperation<Repository, T> operation) {
+        return run(() -> {
+            try (Repository repository = repositories.open(workingDir)) {
+                return operation.apply(repository);
+            }
+        });
+    }
+
+    private static <T> T run(Operation<T> operation) {
+        try {
+            return operation.call();
+        } catch (GitAPIException | IOException | ConfigInvalidException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private interface Operation<T> {
+        T call() throws GitAPIException, IOException, ConfigInvalidException;
+    }
+
+    private interface RepositoryOperation<R, T> {
+        T apply(R repository) throws GitAPIException, IOException;
+    }
+}
@@ -0,0 +1,89 @@
+package io.cogniflare.gocd.github.util;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Open JGit repositories, one per working copy folder, so that polls of the same
+ * flyweight folder reuse the pack and ref caches of the previous poll instead of
+ * scanning {@code .git} again.
+ * <p>
+ * Handles are reference counted: {@link #open(File)} hands out a reference the
+ * caller must close, and the cache keeps one of its own until the folder is
+ * evicted, least recently used first, or {@link #invalidate(File) invalidated}.
+ */
+public class JGitRepositories {
+    private static final Logger LOGGER = Logger.getLoggerFor(JGitRepositories.class);
+
+    public static final JGitRepositories SHARED = new JGitRepositories(Integer.getInteger("gocd.github.tags.jgit.max-open-repositories", 256));
+
+    private final int maxOpen;
+    private final Map<File, Repository> repositories = new LinkedHashMap<>(16, 0.75f, true);
+
+    public JGitRepositories(int maxOpen) {
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * Repository of the working copy in {@code folder}. The caller must close it.
+     *
+     * @throws IOException when the folder is not a git working copy
+     */
+    public Repository open(File folder) throws IOException {
+        File key = folder.getCanonicalFile();
+        synchronized (repositories) {
+            Repository repository = repositories.get(key);
+            if (repository == null || !repository.getDirectory().isDirectory()) {
+                if (repository != null) {
+                    repositories.remove(key).close();
+                }
+                repository = new FileRepositoryBuilder()
+                        .setWorkTree(key)
+                        .setGitDir(new File(key, ".git"))
+                        .setMustExist(true)
+                        .build();
+                repositories.put(key, repository);
+                evictLeastRecentlyUsed();
+            }
+            repository.incrementOpen();
+            return repository;
+        }
+    }
+
+    /**
+     * Drops the handle of {@code folder}, before it is deleted or cloned again.
+     */
+    public void invalidate(File folder) throws IOException {
+        File key = folder.getCanonicalFile();
+        synchronized (repositories) {
+            Repository repository = repositories.remove(key);
+            if (repository != null) {
+                repository.close();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (repositories) {
+            return repositories.size();
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<File, Repository>> iterator = repositories.entrySet().iterator();
+        while (repositories.size() > maxOpen && iterator.hasNext()) {
+            Map.Entry<File, Repository> eldest = iterator.next();
+            LOGGER.debug(String.format("Closing repository of %s", eldest.getKey()));
+            iterator.remove();
+            // still open for callers holding a reference, until they close it
+            eldest.getValue().close();
+        }
+    }
+}
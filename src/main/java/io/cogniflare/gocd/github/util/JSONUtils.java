@@ -1,17 +1,59 @@
 package io.cogniflare.gocd.github.util;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import io.cogniflare.gocd.github.messages.PolledRevision;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * JSON codec of the plugin. The underlying {@link Gson} is thread-safe and shared;
+ * building one per call was a large part of the cost of small messages.
+ */
 public class JSONUtils {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(PolledRevision.class, new PolledRevision.Serializer())
+            .create();
+
     public static Object fromJSON(String json) {
-        return new GsonBuilder().create().fromJson(json, Object.class);
+        return GSON.fromJson(json, Object.class);
     }
 
     public static <T> T fromJSON(String json, Class<T> type) {
-        return new GsonBuilder().create().fromJson(json, type);
+        return GSON.fromJson(json, type);
     }
 
     public static String toJSON(Object object) {
-        return new GsonBuilder().create().toJson(object);
+        StringWriter json = new StringWriter(256);
+        try {
+            toJSON(object, json);
+        } catch (IOException e) {
+            // a StringWriter does not fail
+            throw new IllegalStateException(e);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Streams {@code object} to {@code out} without building a JSON tree first.
+     */
+    public static void toJSON(Object object, Writer out) throws IOException {
+        if (object instanceof Streamed) {
+            ((Streamed) object).toJSON(out);
+            return;
+        }
+        JsonWriter writer = new JsonWriter(out);
+        GSON.toJson(object, object == null ? Object.class : object.getClass(), writer);
+        writer.flush();
+    }
+
+    /**
+     * A message that writes its own JSON, because part of it is already serialized.
+     */
+    public interface Streamed {
+        void toJSON(Writer out) throws IOException;
     }
 }
@@ -0,0 +1,72 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the tags of a local clone with a single {@code git for-each-ref} pass,
+ * annotated tags peeled to their commit.
+ */
+public class LocalTags {
+    private static final String FIELD_SEPARATOR = "%00";
+    private static final String RECORD_SEPARATOR = "%1e";
+    private static final String FORMAT = String.join(FIELD_SEPARATOR,
+            "%(refname:strip=2)", "%(objectname)", "%(*objectname)", "%(creatordate:unix)",
+            "%(contents:subject)", "%(contents:body)") + RECORD_SEPARATOR;
+
+    /**
+     * Semver tags first, by precedence, then the others; ties are broken by creator date.
+     */
+    public static final Comparator<GitTag> LATEST_FIRST = Comparator
+            .comparing((GitTag tag) -> tag.getVersion().orElse(null), Comparator.nullsLast(Comparator.<SemanticVersion>reverseOrder()))
+            .thenComparing(Comparator.comparingLong(GitTag::getCreatorDate).reversed());
+
+    private final GitCommand git;
+
+    public LocalTags(GitCommand git) {
+        this.git = git;
+    }
+
+    public List<GitTag> list() throws IOException {
+        return parse(git.run("for-each-ref", "--format=" + FORMAT, "refs/tags"));
+    }
+
+    public Optional<GitTag> get(String tag) throws IOException {
+        List<GitTag> tags = parse(git.run("for-each-ref", "--format=" + FORMAT, "refs/tags/" + tag));
+        return tags.stream().filter(found -> found.getName().equals(tag)).findFirst();
+    }
+
+    public Optional<GitTag> latest() throws IOException {
+        return list().stream().min(LATEST_FIRST);
+    }
+
+    static List<GitTag> parse(String output) {
+        List<GitTag> tags = new ArrayList<>();
+        for (String record : output.split("\u001e")) {
+            String[] fields = record.replaceFirst("^\n", "").split("\u0000", -1);
+            if (fields.length < 6) {
+                continue;
+            }
+            boolean annotated = !fields[2].isEmpty();
+            tags.add(new GitTag(
+                    fields[0],
+                    annotated ? fields[2] : fields[1],
+                    parseDate(fields[3]),
+                    annotated,
+                    fields[4],
+                    fields[5].trim()));
+        }
+        return tags;
+    }
+
+    private static long parseDate(String date) {
+        try {
+            return Long.parseLong(date.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
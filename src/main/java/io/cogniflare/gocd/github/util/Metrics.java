@@ -0,0 +1,359 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histograms with error counts, counters and gauges of the work the plugin does,
+ * in the Prometheus text format.
+ * <p>
+ * Recording is a map lookup and a few {@link LongAdder} increments, which is cheap
+ * next to the git commands and HTTP calls being timed. A series is a metric name with
+ * label values; once {@code maxSeries} histograms exist, new series get "other" for
+ * every label value, so many repositories cannot grow the registry without bound.
+ */
+public class Metrics {
+    public static final Metrics DEFAULT = new Metrics(Integer.getInteger("gocd.github.tags.metrics.max-series", 10_000));
+    public static final String OTHER = "other";
+
+    // upper bounds of the histogram buckets, in seconds; there is a +Inf bucket past the last
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1e9);
+        }
+    }
+
+    private final int maxSeries;
+    private final LongSupplier nanoClock;
+    private final Map<Series, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<Series, LongSupplier> counters = new ConcurrentHashMap<>();
+    private final Map<Series, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public Metrics() {
+        this(10_000);
+    }
+
+    public Metrics(int maxSeries) {
+        this(maxSeries, System::nanoTime);
+    }
+
+    Metrics(int maxSeries, LongSupplier nanoClock) {
+        this.maxSeries = maxSeries;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Histogram of a latency in seconds, created on first use. Its errors are counted
+     * as {@code <name without _seconds>_errors_total}.
+     *
+     * @param labels label names alternating with their values
+     */
+    public Histogram histogram(String name, String... labels) {
+        Series series = new Series(name, labels);
+        Histogram histogram = histograms.get(series);
+        if (histogram != null) {
+            return histogram;
+        }
+        if (histograms.size() >= maxSeries) {
+            series = series.folded();
+        }
+        return histograms.computeIfAbsent(series, ignored -> new Histogram(nanoClock));
+    }
+
+    /**
+     * Exposes a counter kept elsewhere, replacing the one registered under the same series.
+     *
+     * @param labels label names alternating with their values
+     */
+    public void counter(String name, LongSupplier value, String... labels) {
+        counters.put(new Series(name, labels), value);
+    }
+
+    /**
+     * Exposes a value kept elsewhere that can go down as well as up, replacing the one
+     * registered under the same series.
+     *
+     * @param labels label names alternating with their values
+     */
+    public void gauge(String name, LongSupplier value, String... labels) {
+        gauges.put(new Series(name, labels), value);
+    }
+
+    public long nanoTime() {
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * Writes every series in the Prometheus text exposition format, grouped by metric.
+     */
+    public void write(Writer out) throws IOException {
+        Map<String, List<Map.Entry<Series, Histogram>>> latencies = new TreeMap<>();
+        for (Map.Entry<Series, Histogram> entry : histograms.entrySet()) {
+            latencies.computeIfAbsent(entry.getKey().name, ignored -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<String, List<Map.Entry<Series, Histogram>>> family : latencies.entrySet()) {
+            List<Map.Entry<Series, Histogram>> series = family.getValue();
+            series.sort(Map.Entry.comparingByKey());
+            String name = family.getKey();
+            out.write("# TYPE " + name + " histogram\n");
+            for (Map.Entry<Series, Histogram> entry : series) {
+                Histogram.Snapshot snapshot = entry.getValue().snapshot();
+                long cumulative = 0;
+                for (int i = 0; i <= BUCKETS.length; i++) {
+                    cumulative += snapshot.buckets[i];
+                    String le = i < BUCKETS.length ? Double.toString(BUCKETS[i]) : "+Inf";
+                    out.write(name + "_bucket" + entry.getKey().labels("le", le) + " " + cumulative + "\n");
+                }
+                out.write(name + "_sum" + entry.getKey().labels() + " " + snapshot.sumNanos / 1e9 + "\n");
+                out.write(name + "_count" + entry.getKey().labels() + " " + snapshot.count + "\n");
+            }
+            String errors = errorsName(name);
+            out.write("# TYPE " + errors + " counter\n");
+            for (Map.Entry<Series, Histogram> entry : series) {
+                out.write(errors + entry.getKey().labels() + " " + entry.getValue().errors.sum() + "\n");
+            }
+        }
+        writeValues(out, counters, "counter");
+        writeValues(out, gauges, "gauge");
+    }
+
+    private static void writeValues(Writer out, Map<Series, LongSupplier> values, String type) throws IOException {
+        Map<String, List<Map.Entry<Series, LongSupplier>>> families = new TreeMap<>();
+        for (Map.Entry<Series, LongSupplier> entry : values.entrySet()) {
+            families.computeIfAbsent(entry.getKey().name, ignored -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<String, List<Map.Entry<Series, LongSupplier>>> family : families.entrySet()) {
+            family.getValue().sort(Map.Entry.comparingByKey());
+            out.write("# TYPE " + family.getKey() + " " + type + "\n");
+            for (Map.Entry<Series, LongSupplier> entry : family.getValue()) {
+                out.write(family.getKey() + entry.getKey().labels() + " " + entry.getValue().getAsLong() + "\n");
+            }
+        }
+    }
+
+    /**
+     * One line per series that saw any activity, the slowest in total first, for a log.
+     */
+    public List<String> summary() {
+        List<Map.Entry<Series, Histogram.Snapshot>> active = new ArrayList<>();
+        for (Map.Entry<Series, Histogram> entry : histograms.entrySet()) {
+            Histogram.Snapshot snapshot = entry.getValue().snapshot();
+            if (snapshot.count > 0) {
+                active.add(new AbstractMap.SimpleEntry<>(entry.getKey(), snapshot));
+            }
+        }
+        active.sort(Comparator.comparingLong((Map.Entry<Series, Histogram.Snapshot> entry) -> entry.getValue().sumNanos).reversed());
+
+        List<String> lines = new ArrayList<>(active.size() + counters.size() + gauges.size());
+        for (Map.Entry<Series, Histogram.Snapshot> entry : active) {
+            Histogram.Snapshot snapshot = entry.getValue();
+            lines.add(String.format("%s%s count=%d errors=%d mean=%dms p50<=%s p99<=%s", entry.getKey().name, entry.getKey().labels(),
+                    snapshot.count, snapshot.errors, snapshot.sumNanos / snapshot.count / 1_000_000,
+                    bound(snapshot.quantileBucket(0.5)), bound(snapshot.quantileBucket(0.99))));
+        }
+        for (Map<Series, LongSupplier> values : Arrays.asList(counters, gauges)) {
+            List<Series> names = new ArrayList<>(values.keySet());
+            Collections.sort(names);
+            for (Series series : names) {
+                LongSupplier value = values.get(series);
+                if (value != null) {
+                    lines.add(String.format("%s%s %d", series.name, series.labels(), value.getAsLong()));
+                }
+            }
+        }
+        return lines;
+    }
+
+    static String errorsName(String name) {
+        return (name.endsWith("_seconds") ? name.substring(0, name.length() - "_seconds".length()) : name) + "_errors_total";
+    }
+
+    private static String bound(int bucket) {
+        return bucket < BUCKETS.length ? BUCKETS[bucket] + "s" : "+Inf";
+    }
+
+    /**
+     * Latencies bucketed by the upper bounds in {@link #BUCKETS}, with their sum and the number of errors.
+     */
+    public static class Histogram {
+        private final LongSupplier nanoClock;
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        Histogram(LongSupplier nanoClock) {
+            this.nanoClock = nanoClock;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos, boolean error) {
+            int bucket = Arrays.binarySearch(BUCKET_NANOS, nanos);
+            buckets[bucket >= 0 ? bucket : -bucket - 1].increment();
+            sumNanos.add(nanos);
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        /**
+         * Times {@code call}, which counts as an error when it throws.
+         */
+        public <V, E extends Exception> V time(Call<V, E> call) throws E {
+            long start = nanoClock.getAsLong();
+            boolean error = true;
+            try {
+                V value = call.call();
+                error = false;
+                return value;
+            } finally {
+                record(nanoClock.getAsLong() - start, error);
+            }
+        }
+
+        public <E extends Exception> void run(Step<E> step) throws E {
+            time(() -> {
+                step.run();
+                return null;
+            });
+        }
+
+        public long getCount() {
+            return snapshot().count;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        Snapshot snapshot() {
+            long[] counts = new long[buckets.length];
+            long count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                count += counts[i];
+            }
+            return new Snapshot(counts, count, sumNanos.sum(), errors.sum());
+        }
+
+        static class Snapshot {
+            final long[] buckets;
+            final long count;
+            final long sumNanos;
+            final long errors;
+
+            Snapshot(long[] buckets, long count, long sumNanos, long errors) {
+                this.buckets = buckets;
+                this.count = count;
+                this.sumNanos = sumNanos;
+                this.errors = errors;
+            }
+
+            /**
+             * Index of the first bucket holding at least {@code quantile} of the latencies.
+             */
+            int quantileBucket(double quantile) {
+                long rank = (long) Math.ceil(quantile * count);
+                long cumulative = 0;
+                for (int i = 0; i < buckets.length; i++) {
+                    cumulative += buckets[i];
+                    if (cumulative >= rank) {
+                        return i;
+                    }
+                }
+                return buckets.length - 1;
+            }
+        }
+    }
+
+    public interface Call<V, E extends Exception> {
+        V call() throws E;
+    }
+
+    public interface Step<E extends Exception> {
+        void run() throws E;
+    }
+
+    private static class Series implements Comparable<Series> {
+        private final String name;
+        private final String[] labels;
+        private final int hash;
+
+        Series(String name, String[] labels) {
+            if (labels.length % 2 != 0) {
+                throw new IllegalArgumentException("Labels must come in name and value pairs: " + Arrays.toString(labels));
+            }
+            this.name = name;
+            this.labels = labels;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(labels);
+        }
+
+        Series folded() {
+            String[] folded = labels.clone();
+            for (int i = 1; i < folded.length; i += 2) {
+                folded[i] = OTHER;
+            }
+            return new Series(name, folded);
+        }
+
+        String labels(String... extra) {
+            if (labels.length == 0 && extra.length == 0) {
+                return "";
+            }
+            StringBuilder builder = new StringBuilder("{");
+            String separator = "";
+            for (String[] pairs : new String[][]{labels, extra}) {
+                for (int i = 0; i < pairs.length; i += 2) {
+                    builder.append(separator).append(pairs[i]).append("=\"").append(escape(pairs[i + 1])).append('"');
+                    separator = ",";
+                }
+            }
+            return builder.append('}').toString();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Series)) {
+                return false;
+            }
+            Series series = (Series) o;
+            return hash == series.hash && name.equals(series.name) && Arrays.equals(labels, series.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public int compareTo(Series other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : labels().compareTo(other.labels());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.cogniflare.gocd.github.util;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the {@link Metrics} to a Prometheus text file, for the node
+ * exporter's textfile collector to pick up, and/or logs a summary of them.
+ * <p>
+ * The file is written next to its final name and moved over it, so a scraper never
+ * reads half of it.
+ */
+public class MetricsReporter {
+    private static final Logger LOGGER = Logger.getLoggerFor(MetricsReporter.class);
+
+    private final Metrics metrics;
+    private final File file;
+    private final boolean log;
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * @param file file to write, or null for none
+     * @param log  whether to log a summary
+     */
+    public MetricsReporter(Metrics metrics, File file, boolean log) {
+        this.metrics = metrics;
+        this.file = file;
+        this.log = log;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gocd-github-tags-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reports every {@code intervalMillis} from now on.
+     */
+    public void start(long intervalMillis) {
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                report();
+            } catch (Exception e) {
+                LOGGER.warn(String.format("Cannot report metrics: %s", e.getMessage()));
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    void report() throws IOException {
+        if (file != null) {
+            write();
+        }
+        if (log) {
+            LOGGER.info("Metrics snapshot:\n" + String.join("\n", metrics.summary()));
+        }
+    }
+
+    private void write() throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+        File temporary = new File(directory, file.getName() + ".tmp");
+        try (Writer out = new OutputStreamWriter(Files.newOutputStream(temporary.toPath()), StandardCharsets.UTF_8)) {
+            metrics.write(out);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
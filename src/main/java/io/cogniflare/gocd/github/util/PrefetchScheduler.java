@@ -0,0 +1,179 @@
+package io.cogniflare.gocd.github.util;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Does the work of a poll ahead of it, in the background, for every target a poll
+ * was seen for recently.
+ * <p>
+ * Each target is refreshed about once per interval, shifted by a random jitter so
+ * that targets registered together do not hit the remote together, and never twice
+ * at the same time. At most {@code maxConcurrent} refreshes run at once. Targets no
+ * poll asked about for {@code maxIdleMillis} are dropped.
+ */
+public class PrefetchScheduler<T> {
+    private static final Logger LOGGER = Logger.getLoggerFor(PrefetchScheduler.class);
+
+    private final Task<T> task;
+    private final long intervalMillis;
+    private final long jitterMillis;
+    private final long maxIdleMillis;
+    private final LongSupplier clock;
+    private final Random random;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService ticker;
+    private final Map<String, Entry<T>> targets = new ConcurrentHashMap<>();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public PrefetchScheduler(Task<T> task, long intervalMillis, long jitterMillis, int maxConcurrent, long maxIdleMillis) {
+        this(task, intervalMillis, jitterMillis, maxConcurrent, maxIdleMillis, System::currentTimeMillis, new Random());
+    }
+
+    PrefetchScheduler(Task<T> task, long intervalMillis, long jitterMillis, int maxConcurrent, long maxIdleMillis, LongSupplier clock, Random random) {
+        this.task = task;
+        this.intervalMillis = intervalMillis;
+        this.jitterMillis = jitterMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.clock = clock;
+        this.random = random;
+        this.workers = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "gocd-github-tags-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gocd-github-tags-prefetch-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks for due targets every {@code tickMillis} from now on.
+     */
+    public void start(long tickMillis) {
+        ticker.scheduleWithFixedDelay(this::runDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Registers {@code target} under {@code key}, or replaces what was registered, and
+     * marks it as asked about now. A new target is first refreshed within the jitter.
+     */
+    public void register(String key, T target) {
+        long now = clock.getAsLong();
+        targets.compute(key, (ignored, entry) -> {
+            if (entry == null) {
+                return new Entry<>(target, now, now + jitter());
+            }
+            entry.target = target;
+            entry.lastSeenMillis = now;
+            return entry;
+        });
+    }
+
+    public int size() {
+        return targets.size();
+    }
+
+    /**
+     * Number of refreshes completed.
+     */
+    public long getPrefetched() {
+        return prefetched.get();
+    }
+
+    /**
+     * Number of refreshes that failed; the target is tried again next interval.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Hands every due target that is not being refreshed already to the workers.
+     */
+    void runDue() {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<String, Entry<T>>> iterator = targets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry<T>> mapping = iterator.next();
+            Entry<T> entry = mapping.getValue();
+            synchronized (entry) {
+                if (now - entry.lastSeenMillis > maxIdleMillis) {
+                    LOGGER.debug(String.format("No poll of %s for a while, no longer prefetching it", mapping.getKey()));
+                    iterator.remove();
+                    continue;
+                }
+                if (entry.running || now < entry.dueMillis) {
+                    continue;
+                }
+                entry.running = true;
+                entry.dueMillis = now + intervalMillis + jitter();
+            }
+            try {
+                workers.execute(() -> prefetch(mapping.getKey(), entry));
+            } catch (RejectedExecutionException e) {
+                // shut down
+                return;
+            }
+        }
+    }
+
+    private void prefetch(String key, Entry<T> entry) {
+        T target;
+        synchronized (entry) {
+            target = entry.target;
+        }
+        try {
+            task.prefetch(target);
+            prefetched.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            LOGGER.warn(String.format("Cannot prefetch %s, trying again later: %s", key, e.getMessage()));
+        } finally {
+            synchronized (entry) {
+                entry.running = false;
+            }
+        }
+    }
+
+    private long jitter() {
+        return jitterMillis <= 0 ? 0 : (long) (random.nextDouble() * jitterMillis);
+    }
+
+    public interface Task<T> {
+        void prefetch(T target) throws IOException;
+    }
+
+    private static class Entry<T> {
+        private T target;
+        private long lastSeenMillis;
+        private long dueMillis;
+        private boolean running;
+
+        private Entry(T target, long lastSeenMillis, long dueMillis) {
+            this.target = target;
+            this.lastSeenMillis = lastSeenMillis;
+            this.dueMillis = dueMillis;
+        }
+    }
+}
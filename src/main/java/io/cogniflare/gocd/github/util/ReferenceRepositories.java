@@ -0,0 +1,249 @@
+package io.cogniflare.gocd.github.util;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Agent-local bare repositories, one per repository URL, that checkouts are cloned
+ * with as a reference. A checkout into a new folder then only transfers the objects
+ * the shared repository does not have yet, and keeps borrowing the ones it has
+ * instead of storing a copy.
+ * <p>
+ * A shared repository records the checkouts borrowing from it, and is only deleted
+ * once it was not used for a while and none of them borrows from it anymore. It never
+ * prunes objects, which a checkout may still borrow after a tag moved. A checkout whose
+ * shared repository is gone anyway has its repository cloned again. Each shared
+ * repository is guarded by a lock file, so agents sharing a host update it one at a
+ * time. Credentials are only passed on the command line, never stored in a shared
+ * repository.
+ */
+public class ReferenceRepositories {
+    private static final Logger LOGGER = Logger.getLoggerFor(ReferenceRepositories.class);
+    private static final String LAST_USED = "last-used";
+    private static final String BORROWERS = "borrowers";
+    private static final Map<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final File root;
+    private final long maxIdleMillis;
+    private final LongSupplier clock;
+    private volatile long lastSweepMillis;
+
+    public ReferenceRepositories(File root, long maxIdleMillis) {
+        this(root, maxIdleMillis, System::currentTimeMillis);
+    }
+
+    ReferenceRepositories(File root, long maxIdleMillis, LongSupplier clock) {
+        this.root = root;
+        this.maxIdleMillis = maxIdleMillis;
+        this.clock = clock;
+        this.lastSweepMillis = clock.getAsLong();
+    }
+
+    /**
+     * Unless {@code destination} already is a working copy, updates the shared repository
+     * of {@code url} and clones it with the shared one as a reference. A working copy is
+     * left to fetch from the remote itself.
+     *
+     * @param effectiveUrl url including credentials, used to talk to the remote
+     */
+    public void prepare(String url, String effectiveUrl, String refSpec, File destination) throws IOException {
+        sweep();
+
+        // before the update, which would recreate a pruned reference without the objects borrowed from it
+        boolean orphaned = dropOrphaned(destination);
+        if (!orphaned && destination.exists() && !isEmptyDirectory(destination)) {
+            return;
+        }
+
+        File reference = referenceFor(url);
+        withLock(reference, () -> {
+            update(reference, url, effectiveUrl, refSpec);
+            clone(reference, effectiveUrl, destination);
+        });
+    }
+
+    File referenceFor(String url) {
+        return new File(root, hash(url) + ".git");
+    }
+
+    /**
+     * Clones next to {@code destination} and moves the repository into it, which
+     * leaves a working tree there alone; resetting checks it out. The checkout is
+     * recorded as borrowing from {@code reference}.
+     */
+    private void clone(File reference, String effectiveUrl, File destination) throws IOException {
+        File parent = destination.getAbsoluteFile().getParentFile();
+        File clone = new File(parent, "." + destination.getName() + ".clone");
+        if (!destination.isDirectory() && !destination.mkdirs()) {
+            throw new IOException(String.format("Cannot create folder %s", destination));
+        }
+        FileUtils.deleteDirectory(clone);
+        try {
+            new GitCommand(parent).run("clone", "--quiet", "--no-checkout", "--reference", reference.getAbsolutePath(),
+                    effectiveUrl, clone.getAbsolutePath());
+            FileUtils.moveDirectory(new File(clone, ".git"), new File(destination, ".git"));
+        } finally {
+            FileUtils.deleteQuietly(clone);
+        }
+        FileUtils.writeLines(new File(reference, BORROWERS), StandardCharsets.UTF_8.name(),
+                Collections.singletonList(destination.getAbsolutePath()), true);
+    }
+
+    private void update(File reference, String url, String effectiveUrl, String refSpec) throws IOException {
+        GitCommand git = new GitCommand(reference);
+        if (!new File(reference, "HEAD").isFile()) {
+            LOGGER.info(String.format("Creating reference repository %s", reference));
+            if (!reference.isDirectory() && !reference.mkdirs()) {
+                throw new IOException(String.format("Cannot create reference repository %s", reference));
+            }
+            git.run("init", "--bare", "--quiet");
+            // checkouts may still borrow objects it no longer references
+            git.run("config", "gc.pruneExpire", "never");
+            git.run("remote", "add", "origin", url);
+        } else {
+            git.run("remote", "set-url", "origin", url);
+        }
+        // tags moved upstream are followed
+        git.run("fetch", "--quiet", "--no-tags", effectiveUrl, refSpec.startsWith("+") ? refSpec : "+" + refSpec);
+        git.run("gc", "--auto", "--quiet");
+        FileUtils.touch(new File(reference, LAST_USED));
+    }
+
+    /**
+     * Drops the repository of a checkout when a shared repository it borrows from is gone,
+     * e.g. deleted by hand or pruned before it recorded its borrowers. Such a repository
+     * is beyond repair; the working tree is left.
+     *
+     * @return whether the repository of the checkout was dropped
+     */
+    private boolean dropOrphaned(File destination) throws IOException {
+        File gitDir = new File(destination, ".git");
+        for (String path : alternates(destination)) {
+            if (!new File(path).isDirectory()) {
+                LOGGER.warn(String.format("Reference repository %s borrowed from by %s is gone, cloning its repository again", path, destination));
+                FileUtils.deleteDirectory(gitDir);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checkouts recorded as borrowing from {@code reference} that still do. The record is
+     * rewritten with just those.
+     */
+    private List<String> borrowers(File reference) throws IOException {
+        File record = new File(reference, BORROWERS);
+        if (!record.isFile()) {
+            return Collections.emptyList();
+        }
+        String objects = new File(reference, "objects").getCanonicalPath();
+        List<String> borrowers = new ArrayList<>();
+        for (String path : new LinkedHashSet<>(FileUtils.readLines(record, StandardCharsets.UTF_8))) {
+            if (!path.trim().isEmpty() && alternates(new File(path.trim())).contains(objects)) {
+                borrowers.add(path.trim());
+            }
+        }
+        FileUtils.writeLines(record, StandardCharsets.UTF_8.name(), borrowers);
+        return borrowers;
+    }
+
+    private static List<String> alternates(File checkout) throws IOException {
+        File alternates = new File(checkout, ".git/objects/info/alternates");
+        if (!alternates.isFile()) {
+            return Collections.emptyList();
+        }
+        List<String> paths = new ArrayList<>();
+        for (String line : FileUtils.readLines(alternates, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                paths.add(new File(line.trim()).getCanonicalPath());
+            }
+        }
+        return paths;
+    }
+
+    private void sweep() {
+        long now = clock.getAsLong();
+        if (now - lastSweepMillis < Math.min(maxIdleMillis, 60L * 60 * 1000)) {
+            return;
+        }
+        lastSweepMillis = now;
+        File[] references = root.listFiles(file -> file.isDirectory() && file.getName().endsWith(".git"));
+        if (references == null) {
+            return;
+        }
+        for (File reference : references) {
+            try {
+                withLock(reference, () -> {
+                    if (now - new File(reference, LAST_USED).lastModified() <= maxIdleMillis) {
+                        return;
+                    }
+                    List<String> borrowers = borrowers(reference);
+                    if (borrowers.isEmpty()) {
+                        LOGGER.info(String.format("Deleting unused reference repository %s", reference));
+                        FileUtils.deleteDirectory(reference);
+                    } else {
+                        LOGGER.debug(String.format("Keeping reference repository %s, borrowed from by %s", reference, borrowers));
+                    }
+                });
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Cannot prune reference repository %s: %s", reference, e.getMessage()));
+            }
+        }
+    }
+
+    private void withLock(File reference, Action action) throws IOException {
+        if (!root.isDirectory() && !root.mkdirs()) {
+            throw new IOException(String.format("Cannot create folder %s", root));
+        }
+        // file locks are held per JVM, so threads of this agent queue up on an in-process lock first
+        ReentrantLock lock = LOCKS.computeIfAbsent(reference.getAbsolutePath(), path -> new ReentrantLock());
+        lock.lock();
+        try (RandomAccessFile lockFile = new RandomAccessFile(new File(root, reference.getName() + ".lock"), "rw");
+             FileChannel channel = lockFile.getChannel();
+             FileLock ignored = channel.lock()) {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isEmptyDirectory(File folder) {
+        String[] children = folder.list();
+        return children != null && children.length == 0;
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 12; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private interface Action {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,56 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the tags of a remote repository with {@code git ls-remote}, without a
+ * clone. Annotated tags are peeled to their commit.
+ */
+public class RemoteTags {
+    private static final String TAGS_PREFIX = "refs/tags/";
+    private static final String PEELED_SUFFIX = "^{}";
+
+    private final GitCommand git;
+
+    public RemoteTags(GitCommand git) {
+        this.git = git;
+    }
+
+    /**
+     * @param tags tags to look up; all tags of the remote when none are given
+     * @return commit per tag name
+     */
+    public Map<String, String> list(String url, String... tags) throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add("ls-remote");
+        args.add("--tags");
+        args.add(url);
+        for (String tag : tags) {
+            args.add(TAGS_PREFIX + tag);
+            args.add(TAGS_PREFIX + tag + PEELED_SUFFIX);
+        }
+        return parse(git.run(args.toArray(new String[0])));
+    }
+
+    static Map<String, String> parse(String output) {
+        Map<String, String> commits = new LinkedHashMap<>();
+        for (String line : output.split("\n")) {
+            int separator = line.indexOf('\t');
+            if (separator < 0 || !line.startsWith(TAGS_PREFIX, separator + 1)) {
+                continue;
+            }
+            String sha = line.substring(0, separator);
+            String tag = line.substring(separator + 1 + TAGS_PREFIX.length());
+            if (tag.endsWith(PEELED_SUFFIX)) {
+                commits.put(tag.substring(0, tag.length() - PEELED_SUFFIX.length()), sha);
+            } else {
+                commits.putIfAbsent(tag, sha);
+            }
+        }
+        return commits;
+    }
+}
@@ -0,0 +1,37 @@
+package io.cogniflare.gocd.github.util;
+
+/**
+ * Caps on what a poll reports about the commits since the previous release, so a
+ * repository that has not released for months does not produce a huge response.
+ */
+public class RevisionLimits {
+    public static final RevisionLimits DEFAULT = new RevisionLimits(
+            Integer.getInteger("gocd.github.tags.revisions.max-commits", 500),
+            Integer.getInteger("gocd.github.tags.revisions.max-files-per-commit", 500),
+            Integer.getInteger("gocd.github.tags.revisions.max-comment-length", 16 * 1024));
+
+    private final int maxCommits;
+    private final int maxFilesPerCommit;
+    private final int maxCommentLength;
+
+    public RevisionLimits(int maxCommits, int maxFilesPerCommit, int maxCommentLength) {
+        this.maxCommits = maxCommits;
+        this.maxFilesPerCommit = maxFilesPerCommit;
+        this.maxCommentLength = maxCommentLength;
+    }
+
+    public int getMaxCommits() {
+        return maxCommits;
+    }
+
+    public int getMaxFilesPerCommit() {
+        return maxFilesPerCommit;
+    }
+
+    /**
+     * Applies to commit messages as well as release notes.
+     */
+    public int getMaxCommentLength() {
+        return maxCommentLength;
+    }
+}
@@ -0,0 +1,14 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.IOException;
+
+/**
+ * Reads history within {@link RevisionLimits}, stopping at the limits rather than
+ * reading everything and cutting it down afterwards.
+ */
+public interface RevisionLog {
+    /**
+     * Commits reachable from HEAD but not from {@code revision}, newest first.
+     */
+    BoundedHistory since(String revision, RevisionLimits limits) throws IOException;
+}
@@ -0,0 +1,136 @@
+package io.cogniflare.gocd.github.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory cache of the commits between two revisions of a repository,
+ * keyed by (repository, from commit, to commit), as the JSON they are reported in.
+ * <p>
+ * The commits of a range never change, so a range polled again, for another
+ * material on the same repository or by a poll that failed later on, is answered
+ * without walking the history and serializing it again. Entries are evicted least
+ * recently used first once their estimated size exceeds the configured budget.
+ */
+public class RevisionRangeCache {
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Range> ranges = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes;
+    private long hits;
+    private long misses;
+
+    public RevisionRangeCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Optional<Range> get(String repository, String fromCommit, String toCommit) {
+        Range range = ranges.get(new Key(repository, fromCommit, toCommit));
+        if (range == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(range);
+    }
+
+    /**
+     * Caches a range unless it alone is larger than the budget.
+     */
+    public synchronized void put(String repository, String fromCommit, String toCommit, Range range) {
+        Key key = new Key(repository, fromCommit, toCommit);
+        long size = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + range.json.length());
+        if (size > maxBytes) {
+            return;
+        }
+        Range previous = ranges.put(key, range);
+        if (previous != null) {
+            sizeInBytes -= ENTRY_OVERHEAD_BYTES + 2L * (key.length() + previous.json.length());
+        }
+        sizeInBytes += size;
+        evict();
+    }
+
+    public synchronized int size() {
+        return ranges.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Range>> iterator = ranges.entrySet().iterator();
+        while (sizeInBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Key, Range> eldest = iterator.next();
+            iterator.remove();
+            sizeInBytes -= ENTRY_OVERHEAD_BYTES + 2L * (eldest.getKey().length() + eldest.getValue().json.length());
+        }
+    }
+
+    /**
+     * Commits of a range, serialized.
+     */
+    public static class Range {
+        private final String json;
+        private final boolean truncated;
+
+        /**
+         * @param json      the revisions as comma separated JSON objects, without the enclosing brackets
+         * @param truncated whether there were more commits than {@link RevisionLimits} let through
+         */
+        public Range(String json, boolean truncated) {
+            this.json = json;
+            this.truncated = truncated;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    private static class Key {
+        private final String repository;
+        private final String fromCommit;
+        private final String toCommit;
+
+        private Key(String repository, String fromCommit, String toCommit) {
+            this.repository = repository;
+            this.fromCommit = fromCommit;
+            this.toCommit = toCommit;
+        }
+
+        private int length() {
+            return repository.length() + fromCommit.length() + toCommit.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return repository.equals(key.repository) && fromCommit.equals(key.fromCommit) && toCommit.equals(key.toCommit);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, fromCommit, toCommit);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.cogniflare.gocd.github.util;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Semantic version parsed from a tag name such as {@code v1.2.3} or {@code 1.2.3-rc.1}.
+ * Versions compare by semver precedence; build metadata is ignored.
+ */
+public class SemanticVersion implements Comparable<SemanticVersion> {
+    private static final Pattern SEMVER = Pattern.compile(
+            "^[vV]?(0|[1-9]\\d*)\\.(0|[1-9]\\d*)(?:\\.(0|[1-9]\\d*))?(?:-([0-9A-Za-z.-]+))?(?:\\+[0-9A-Za-z.-]+)?$");
+
+    private final int major;
+    private final int minor;
+    private final int patch;
+    private final String[] preRelease;
+
+    SemanticVersion(int major, int minor, int patch, String[] preRelease) {
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+        this.preRelease = preRelease;
+    }
+
+    public static SemanticVersion of(int major, int minor, int patch) {
+        return new SemanticVersion(major, minor, patch, new String[0]);
+    }
+
+    public static Optional<SemanticVersion> parse(String tag) {
+        Matcher matcher = SEMVER.matcher(tag);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new SemanticVersion(
+                    Integer.parseInt(matcher.group(1)),
+                    Integer.parseInt(matcher.group(2)),
+                    matcher.group(3) == null ? 0 : Integer.parseInt(matcher.group(3)),
+                    matcher.group(4) == null ? new String[0] : matcher.group(4).split("\\.")));
+        } catch (NumberFormatException e) {
+            // component does not fit an int
+            return Optional.empty();
+        }
+    }
+
+    public int getMajor() {
+        return major;
+    }
+
+    public boolean isPreRelease() {
+        return preRelease.length > 0;
+    }
+
+    @Override
+    public int compareTo(SemanticVersion other) {
+        int result = Integer.compare(major, other.major);
+        if (result == 0) {
+            result = Integer.compare(minor, other.minor);
+        }
+        if (result == 0) {
+            result = Integer.compare(patch, other.patch);
+        }
+        return result != 0 ? result : comparePreRelease(other);
+    }
+
+    private int comparePreRelease(SemanticVersion other) {
+        // a release ranks above any of its pre-releases
+        if (preRelease.length == 0 || other.preRelease.length == 0) {
+            return Boolean.compare(preRelease.length == 0, other.preRelease.length == 0);
+        }
+        for (int i = 0; i < Math.min(preRelease.length, other.preRelease.length); i++) {
+            int result = compareIdentifier(preRelease[i], other.preRelease[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(preRelease.length, other.preRelease.length);
+    }
+
+    private static int compareIdentifier(String left, String right) {
+        boolean leftNumeric = isNumeric(left);
+        boolean rightNumeric = isNumeric(right);
+        if (leftNumeric && rightNumeric) {
+            return left.length() != right.length()
+                    ? Integer.compare(left.length(), right.length())
+                    : left.compareTo(right);
+        }
+        if (leftNumeric != rightNumeric) {
+            return leftNumeric ? -1 : 1;
+        }
+        return left.compareTo(right);
+    }
+
+    private static boolean isNumeric(String identifier) {
+        for (int i = 0; i < identifier.length(); i++) {
+            if (!Character.isDigit(identifier.charAt(i))) {
+                return false;
+            }
+        }
+        return !identifier.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SemanticVersion && compareTo((SemanticVersion) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * major + minor) + patch;
+    }
+}
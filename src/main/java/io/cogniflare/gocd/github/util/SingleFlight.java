@@ -0,0 +1,77 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one call per key at a time: callers arriving while a call for their key is
+ * in flight wait for it and share its result, or its failure, instead of making
+ * the same call again. Once the call completes, the next caller starts a new one.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V execute(K key, Call<V> call) throws IOException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+
+        executed.incrementAndGet();
+        try {
+            V value = call.call();
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Number of calls actually made.
+     */
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    /**
+     * Number of callers served by a call another caller made.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private V await(CompletableFuture<V> leader) throws IOException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a call in flight");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    public interface Call<V> {
+        V call() throws IOException;
+    }
+}
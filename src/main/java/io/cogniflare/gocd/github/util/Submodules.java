@@ -0,0 +1,109 @@
+package io.cogniflare.gocd.github.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Finds the submodules a move between two revisions actually touched, so only
+ * those are synced and updated.
+ */
+public class Submodules {
+    private static final String GITLINK_MODE = "160000";
+    private static final String GITMODULES = ".gitmodules";
+
+    private final GitCommand git;
+
+    public Submodules(GitCommand git) {
+        this.git = git;
+    }
+
+    /**
+     * Commit checked out in the working copy, if it is one.
+     */
+    public Optional<String> head() {
+        if (!new File(git.getWorkingDir(), ".git").exists()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(git.run("rev-parse", "--verify", "-q", "HEAD").trim());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Paths of the submodules of {@code to} whose gitlink or {@code .gitmodules}
+     * entry differs from {@code from}, or that are not checked out at all.
+     */
+    public Set<String> changedPaths(String from, String to) throws IOException {
+        Set<String> paths = new TreeSet<>();
+        for (String line : git.run("diff-tree", "-r", "--no-commit-id", from, to).split("\n")) {
+            // :<old mode> <new mode> <old sha> <new sha> <status>\t<path>
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String[] fields = line.substring(1, tab).split(" ");
+            if (GITLINK_MODE.equals(fields[1])) {
+                paths.add(line.substring(tab + 1));
+            }
+        }
+
+        Map<String, Map<String, String>> before = gitmodules(from);
+        Map<String, Map<String, String>> after = gitmodules(to);
+        for (Map.Entry<String, Map<String, String>> submodule : after.entrySet()) {
+            String path = submodule.getValue().get("path");
+            if (path == null) {
+                continue;
+            }
+            if (!submodule.getValue().equals(before.get(submodule.getKey()))
+                    || !new File(git.getWorkingDir(), path + "/.git").exists()) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    public void update(Collection<String> paths) throws IOException {
+        if (paths.isEmpty()) {
+            return;
+        }
+        List<String> sync = new ArrayList<>(Arrays.asList("submodule", "sync", "--recursive", "--"));
+        sync.addAll(paths);
+        git.run(sync.toArray(new String[0]));
+
+        List<String> update = new ArrayList<>(Arrays.asList("submodule", "update", "--init", "--recursive", "--"));
+        update.addAll(paths);
+        git.run(update.toArray(new String[0]));
+    }
+
+    /**
+     * Settings of each submodule declared in {@code .gitmodules} at the given revision.
+     */
+    private Map<String, Map<String, String>> gitmodules(String revision) {
+        String config;
+        try {
+            config = git.run("config", "--blob", revision + ":" + GITMODULES, "--list");
+        } catch (IOException e) {
+            // no .gitmodules at that revision
+            return Collections.emptyMap();
+        }
+        Map<String, Map<String, String>> submodules = new HashMap<>();
+        for (String line : config.split("\n")) {
+            // submodule.<name>.<key>=<value>, the name may contain dots
+            int equals = line.indexOf('=');
+            if (!line.startsWith("submodule.") || equals < 0) {
+                continue;
+            }
+            String key = line.substring(0, equals);
+            int lastDot = key.lastIndexOf('.');
+            if (lastDot <= "submodule.".length()) {
+                continue;
+            }
+            submodules.computeIfAbsent(key.substring("submodule.".length(), lastDot), name -> new HashMap<>())
+                    .put(key.substring(lastDot + 1), line.substring(equals + 1));
+        }
+        return submodules;
+    }
+}
@@ -0,0 +1,56 @@
+package io.cogniflare.gocd.github.util;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fetches a handful of refspecs into a working copy, creating it if needed,
+ * instead of the whole ref advertisement of a clone or a {@code refs/tags/*} fetch.
+ * <p>
+ * Protocol v2 is requested so the server only advertises refs matching the
+ * refspecs' prefixes.
+ */
+public class TagFetch {
+    private static final Logger LOGGER = Logger.getLoggerFor(TagFetch.class);
+
+    private final GitCommand git;
+
+    public TagFetch(GitCommand git) {
+        this.git = git;
+    }
+
+    /**
+     * @param depth        commits to fetch per ref, or null for the full history
+     * @param shallowSince date before which history is not fetched, or null
+     */
+    public void fetch(String url, List<String> refSpecs, @Nullable Integer depth, @Nullable String shallowSince) throws IOException {
+        File workingDir = git.getWorkingDir();
+        if (!new File(workingDir, ".git").isDirectory()) {
+            LOGGER.debug(String.format("Initializing working copy in %s", workingDir));
+            if (!workingDir.isDirectory() && !workingDir.mkdirs()) {
+                throw new IOException(String.format("Cannot create working copy folder %s", workingDir));
+            }
+            git.run("init", "-q");
+            git.run("remote", "add", "origin", url);
+        } else {
+            git.run("remote", "set-url", "origin", url);
+        }
+
+        List<String> args = new ArrayList<>(Arrays.asList("-c", "protocol.version=2", "fetch", "--no-tags", "--recurse-submodules=no"));
+        if (depth != null) {
+            args.add("--depth=" + depth);
+        }
+        if (shallowSince != null) {
+            args.add("--shallow-since=" + shallowSince);
+        }
+        args.add("origin");
+        args.addAll(refSpecs);
+        git.run(args.toArray(new String[0]));
+    }
+}
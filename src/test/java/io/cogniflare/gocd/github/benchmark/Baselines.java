@@ -0,0 +1,139 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Average time and allocation per operation of each benchmark, as kept in
+ * {@code src/test/benchmark/baselines.tsv} to compare later runs against.
+ * <p>
+ * Time depends on the machine and varies between runs, so it gets a wide tolerance;
+ * allocation per operation hardly varies and gets a narrow one. The committed baselines
+ * only record allocation, their score is NaN and not compared.
+ */
+public class Baselines {
+    // allocation a run may differ by regardless of tolerance, e.g. from a JIT decision
+    static final double ALLOCATION_SLACK_BYTES = 64;
+
+    private Baselines() {
+    }
+
+    /**
+     * Measurements of {@code results} by benchmark, e.g. {@code PluginRequestBenchmark.latestRevisionsSince[history=500:500]}.
+     */
+    public static Map<String, Measurement> measure(Collection<RunResult> results) {
+        Map<String, Measurement> measurements = new TreeMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String[] parts = benchmark.split("\\.");
+            StringBuilder name = new StringBuilder(parts[parts.length - 2]).append('.').append(parts[parts.length - 1]);
+            String separator = "[";
+            for (String key : result.getParams().getParamsKeys()) {
+                name.append(separator).append(key).append('=').append(result.getParams().getParam(key));
+                separator = ",";
+            }
+            if (!separator.equals("[")) {
+                name.append(']');
+            }
+            double allocation = Double.NaN;
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                    allocation = secondary.getValue().getScore();
+                }
+            }
+            measurements.put(name.toString(), new Measurement(result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreUnit(), allocation));
+        }
+        return measurements;
+    }
+
+    /**
+     * One line per benchmark of {@code current} that takes longer or allocates more than its baseline allows.
+     */
+    public static List<String> compare(Map<String, Measurement> baselines, Map<String, Measurement> current,
+                                       double scoreTolerance, double allocationTolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Measurement> entry : current.entrySet()) {
+            Measurement baseline = baselines.get(entry.getKey());
+            Measurement measured = entry.getValue();
+            if (baseline == null) {
+                continue;
+            }
+            if (!Double.isNaN(baseline.score) && baseline.unit.equals(measured.unit) && measured.score > baseline.score * (1 + scoreTolerance)) {
+                regressions.add(String.format("%s takes %.3f %s, baseline %.3f %s", entry.getKey(), measured.score, measured.unit, baseline.score, baseline.unit));
+            }
+            if (!Double.isNaN(baseline.allocation) && measured.allocation > baseline.allocation * (1 + allocationTolerance) + ALLOCATION_SLACK_BYTES) {
+                regressions.add(String.format("%s allocates %.0f B/op, baseline %.0f B/op", entry.getKey(), measured.allocation, baseline.allocation));
+            }
+        }
+        return regressions;
+    }
+
+    public static Map<String, Measurement> read(Path file) throws IOException {
+        Map<String, Measurement> measurements = new TreeMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            measurements.put(fields[0], new Measurement(Double.parseDouble(fields[1]), fields[2], Double.parseDouble(fields[3])));
+        }
+        return measurements;
+    }
+
+    public static void write(Path file, Map<String, Measurement> measurements) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# B/op is gc.alloc.rate.norm; a score of NaN is not compared\n");
+            out.write("# benchmark\tscore\tunit\tB/op\n");
+            for (Map.Entry<String, Measurement> entry : new TreeMap<>(measurements).entrySet()) {
+                Measurement measurement = entry.getValue();
+                out.write(String.format("%s\t%s\t%s\t%s\n", entry.getKey(), measurement.score, measurement.unit, measurement.allocation));
+            }
+        }
+    }
+
+    public static class Measurement {
+        private final double score;
+        private final String unit;
+        private final double allocation;
+
+        /**
+         * @param score      average time per operation, NaN when not recorded
+         * @param allocation bytes allocated per operation, NaN when not profiled
+         */
+        public Measurement(double score, String unit, double allocation) {
+            this.score = score;
+            this.unit = unit;
+            this.allocation = allocation;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public double getAllocation() {
+            return allocation;
+        }
+
+        /**
+         * This measurement with only what does not depend on the machine.
+         */
+        public Measurement withoutScore() {
+            return new Measurement(Double.NaN, unit, allocation);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BaselinesTest {
+
+    @Test
+    public void shouldReportSlowerAndMoreAllocatingBenchmarks() {
+        Map<String, Baselines.Measurement> baselines = new TreeMap<>();
+        baselines.put("A.slower", new Baselines.Measurement(10, "us/op", 1_000));
+        baselines.put("A.allocating", new Baselines.Measurement(10, "us/op", 1_000));
+        baselines.put("A.noisy", new Baselines.Measurement(10, "us/op", 1_000));
+        Map<String, Baselines.Measurement> current = new TreeMap<>();
+        current.put("A.slower", new Baselines.Measurement(13, "us/op", 1_000));
+        current.put("A.allocating", new Baselines.Measurement(10, "us/op", 1_200));
+        current.put("A.noisy", new Baselines.Measurement(12, "us/op", 1_150));
+        current.put("A.new", new Baselines.Measurement(100, "us/op", 100_000));
+
+        List<String> regressions = Baselines.compare(baselines, current, 0.25, 0.10);
+
+        assertThat(regressions.size(), is(2));
+        assertThat(regressions.get(0), is("A.allocating allocates 1200 B/op, baseline 1000 B/op"));
+        assertThat(regressions.get(1), is("A.slower takes 13.000 us/op, baseline 10.000 us/op"));
+    }
+
+    @Test
+    public void shouldOnlyCompareAllocationWithoutBaselineScore() {
+        Map<String, Baselines.Measurement> baselines = new TreeMap<>();
+        baselines.put("A.b", new Baselines.Measurement(10, "us/op", 1_000).withoutScore());
+        Map<String, Baselines.Measurement> current = new TreeMap<>();
+        current.put("A.b", new Baselines.Measurement(100, "us/op", 1_200));
+
+        assertThat(Baselines.compare(baselines, current, 0.25, 0.10), is(Collections.singletonList("A.b allocates 1200 B/op, baseline 1000 B/op")));
+    }
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        Path file = Files.createTempDirectory("baselines").resolve("baselines.tsv");
+        Map<String, Baselines.Measurement> measurements = new TreeMap<>();
+        measurements.put("PluginRequestBenchmark.latestRevisionsSince[history=500:500]", new Baselines.Measurement(1234.5, "us/op", 987_654));
+        measurements.put("TagMatchingBenchmark.parseGithubUrls", new Baselines.Measurement(0.25, "us/op", Double.NaN));
+
+        Baselines.write(file, measurements);
+        Map<String, Baselines.Measurement> read = Baselines.read(file);
+
+        assertThat(read.keySet(), is(measurements.keySet()));
+        Baselines.Measurement since = read.get("PluginRequestBenchmark.latestRevisionsSince[history=500:500]");
+        assertThat(since.getScore(), is(1234.5));
+        assertThat(since.getUnit(), is("us/op"));
+        assertThat(since.getAllocation(), is(987_654.0));
+        assertThat(Double.isNaN(read.get("TagMatchingBenchmark.parseGithubUrls").getAllocation()), is(true));
+        assertThat(Baselines.compare(read, measurements, 0, 0), is(Collections.<String>emptyList()));
+    }
+}
@@ -0,0 +1,79 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the benchmarks with the GC profiler and fails when one of them got slower
+ * or allocates more than its {@link Baselines baseline}. Run by the {@code benchmark}
+ * profile:
+ * <pre>
+ * mvn -Pgithub,benchmark verify [-Dbenchmark.include=PluginRequestBenchmark] [-Dbenchmark.update-baselines=true [-Dbenchmark.record-scores=true]]
+ * </pre>
+ * Updating the baselines records the run as the new reference, to be committed along
+ * with the change that explains it. Only allocation is recorded unless scores are asked
+ * for too, which are only worth comparing on the machine that recorded them. Benchmarks
+ * without a baseline are listed but not compared; a missing baselines file fails the run.
+ */
+public class BenchmarkRunner {
+    private static final double SCORE_TOLERANCE = Double.parseDouble(System.getProperty("benchmark.score-tolerance", "0.25"));
+    private static final double ALLOCATION_TOLERANCE = Double.parseDouble(System.getProperty("benchmark.allocation-tolerance", "0.10"));
+
+    /**
+     * @param args the baselines file, {@code src/test/benchmark/baselines.tsv} by default
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("benchmark.include", "");
+        boolean update = Boolean.getBoolean("benchmark.update-baselines");
+        Path file = Paths.get(args.length > 0 ? args[0] : "src/test/benchmark/baselines.tsv");
+        if (!update && !Files.exists(file)) {
+            System.err.println("No baselines at " + file.toAbsolutePath() + ", record them with -Dbenchmark.update-baselines=true");
+            System.exit(1);
+        }
+
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(include.isEmpty() ? BenchmarkRunner.class.getPackage().getName() + "." : include)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+        Map<String, Baselines.Measurement> measured = Baselines.measure(results);
+        Map<String, Baselines.Measurement> baselines = Files.exists(file) ? Baselines.read(file) : new TreeMap<>();
+
+        if (update) {
+            boolean recordScores = Boolean.getBoolean("benchmark.record-scores");
+            Map<String, Baselines.Measurement> updated = new TreeMap<>(baselines);
+            for (Map.Entry<String, Baselines.Measurement> entry : measured.entrySet()) {
+                updated.put(entry.getKey(), recordScores ? entry.getValue() : entry.getValue().withoutScore());
+            }
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Baselines.write(file, updated);
+            System.out.println("Baselines written to " + file.toAbsolutePath());
+            return;
+        }
+
+        for (String benchmark : measured.keySet()) {
+            if (!baselines.containsKey(benchmark)) {
+                System.out.println("No baseline for " + benchmark + ", not compared");
+            }
+        }
+        List<String> regressions = Baselines.compare(baselines, measured, SCORE_TOLERANCE, ALLOCATION_TOLERANCE);
+        if (!regressions.isEmpty()) {
+            System.err.println("Benchmarks regressed against " + file + ":");
+            for (String regression : regressions) {
+                System.err.println("  " + regression);
+            }
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import com.tw.go.plugin.GitHelper;
+import com.tw.go.plugin.model.GitConfig;
+import com.tw.go.plugin.model.Revision;
+import io.cogniflare.gocd.github.settings.scm.GitBackend;
+import io.cogniflare.gocd.github.util.GitCommand;
+import io.cogniflare.gocd.github.util.GitFactory;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a poll and a checkout do to a working copy with each git backend, against a
+ * generated local repository of 500 commits and 50 release tags. A poll fetches into
+ * a flyweight folder that already is a working copy, a checkout clones into an empty one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GitBackendBenchmark {
+    private static final String TAGS = "+refs/tags/*:refs/tags/*";
+    private static final int COMMITS = 500;
+    private static final int RELEASES = 50;
+
+    @Param({"cmd", "jgit"})
+    public String backend;
+
+    private File workspace;
+    private File flyweight;
+    private File destination;
+    private GitConfig config;
+    private String release;
+
+    @Setup
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("git-backend-benchmark").toFile();
+        flyweight = new File(workspace, "flyweight");
+        destination = new File(workspace, "checkout");
+        config = new GitConfig(generateRepository(new File(workspace, "origin")));
+        release = "v1." + (RELEASES - 1) + ".0";
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyDestination() throws IOException {
+        FileUtils.deleteDirectory(destination);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    @Benchmark
+    public Revision poll() {
+        GitHelper git = create(flyweight);
+        git.cloneOrFetch(TAGS);
+        git.resetHard(release);
+        return git.getLatestRevision();
+    }
+
+    @Benchmark
+    public GitHelper checkout() {
+        GitHelper git = create(destination);
+        git.cloneOrFetch(TAGS);
+        git.resetHard(release);
+        git.submoduleUpdate();
+        return git;
+    }
+
+    private GitHelper create(File folder) {
+        return new GitFactory().create(config, folder, GitBackend.fromValue(backend));
+    }
+
+    private static String generateRepository(File folder) throws IOException {
+        if (!folder.mkdirs()) {
+            throw new IOException("Cannot create " + folder);
+        }
+        GitCommand git = new GitCommand(folder);
+        git.run("init", "-q");
+        for (int i = 0; i < COMMITS; i++) {
+            FileUtils.writeStringToFile(new File(folder, "file-" + (i % 25) + ".txt"), "change " + i);
+            git.run("add", "-A");
+            git.run("-c", "user.name=bench", "-c", "user.email=bench@example.com", "commit", "-q", "-m", "commit " + i);
+            if (i % (COMMITS / RELEASES) == 0) {
+                git.run("tag", "v1." + i / (COMMITS / RELEASES) + ".0");
+            }
+        }
+        return "file://" + folder.getAbsolutePath();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GitBackendBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+import io.cogniflare.gocd.github.GocdScmPluginTags;
+import io.cogniflare.gocd.github.messages.LatestRevisionResponse;
+import io.cogniflare.gocd.github.messages.PolledRevision;
+import io.cogniflare.gocd.github.messages.ScmRequest;
+import io.cogniflare.gocd.github.util.GitFactory;
+import io.cogniflare.gocd.github.util.GitFolderFactory;
+import io.cogniflare.gocd.github.util.JSONUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding plugin requests with the shared codec and typed messages,
+ * against the former Gson-per-call and map approach, and of a response round
+ * trip. Run {@link #main} and compare {@code gc.alloc.rate.norm} as well as the score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+    private String sinceRequest;
+    private DefaultGoPluginApiRequest validationRequest;
+    private GocdScmPluginTags plugin;
+    private LatestRevisionResponse response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder configuration = new StringBuilder("{\"scm-configuration\":{");
+        String[] fields = {"url", "username", "password", "releaseSource", "fetchMode", "fetchDepth", "shallowSince", "pollSubmodules", "gitBackend"};
+        for (int i = 0; i < fields.length; i++) {
+            configuration.append(i == 0 ? "" : ",").append('"').append(fields[i]).append("\":{\"value\":\"value-").append(i).append("\"}");
+        }
+        configuration.append('}');
+        sinceRequest = configuration + ",\"flyweight-folder\":\"/var/lib/go-server/pipelines/flyweight/3f2a\","
+                + "\"previous-revision\":{\"revision\":\"v1.4.0\",\"timestamp\":\"2020-01-01T00:00:00.000Z\","
+                + "\"data\":{\"RELEASE_TAG\":\"v1.4.0\",\"RELEASE_COMMIT\":\"0123456789abcdef0123456789abcdef01234567\"}}}";
+
+        validationRequest = new DefaultGoPluginApiRequest(GocdScmPluginTags.EXTENSION_NAME, "1.0", GocdScmPluginTags.REQUEST_VALIDATE_SCM_CONFIGURATION);
+        validationRequest.setRequestBody(configuration + "}");
+
+        Map<String, String> data = new HashMap<>();
+        data.put("RELEASE_TAG", "v1.5.0");
+        data.put("RELEASE_COMMIT", "0123456789abcdef0123456789abcdef01234567");
+        data.put("RELEASE_NAME", "Release 1.5.0");
+        data.put("RELEASE_BODY", "Notes of the release, with a few lines of changes.");
+        Revision revision = new Revision("0123456789abcdef0123456789abcdef01234567", new Date(1_600_000_000_000L), "Release 1.5.0",
+                "Release Bot", "bot@example.com", Collections.singletonList(new ModifiedFile("README.md", "modified")));
+        response = new LatestRevisionResponse(new PolledRevision("v1.5.0", revision, data));
+
+        plugin = new GocdScmPluginTags(new StubGitRemoteProvider("v1.5.0"), new GitFactory(), new GitFolderFactory(), null);
+    }
+
+    @Benchmark
+    public GoPluginApiResponse handleValidation() {
+        return plugin.handle(validationRequest);
+    }
+
+    @Benchmark
+    public Map<String, String> decodeRequest() {
+        ScmRequest request = JSONUtils.fromJSON(sinceRequest, ScmRequest.class);
+        request.getPreviousRevision();
+        return request.getConfiguration();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, String> decodeRequestLegacy() {
+        Map<String, Object> body = (Map<String, Object>) new GsonBuilder().create().fromJson(sinceRequest, Object.class);
+        body.get("previous-revision");
+        Map<String, String> configuration = new HashMap<>();
+        Map<String, Object> fields = (Map<String, Object>) body.get("scm-configuration");
+        for (String field : fields.keySet()) {
+            configuration.put(field, (String) ((Map<String, Object>) fields.get(field)).get("value"));
+        }
+        return configuration;
+    }
+
+    /**
+     * A {@code latest-revision} response written by the plugin and read back as GoCD reads it.
+     */
+    @Benchmark
+    public Object roundTripResponse() {
+        return JSONUtils.fromJSON(JSONUtils.toJSON(response));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
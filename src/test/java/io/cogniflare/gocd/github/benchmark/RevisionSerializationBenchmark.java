@@ -0,0 +1,94 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+import io.cogniflare.gocd.github.messages.LatestRevisionsSinceResponse;
+import io.cogniflare.gocd.github.messages.PolledRevision;
+import io.cogniflare.gocd.github.util.JSONUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the {@code latest-revisions-since} response for a long history,
+ * streamed from the git revisions against the former map tree with a
+ * {@link SimpleDateFormat} per revision.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RevisionSerializationBenchmark {
+    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+    @Param({"50:20", "2000:25"})
+    public String history;
+
+    private List<Revision> revisions;
+
+    @Setup
+    public void setUp() {
+        int commits = Integer.parseInt(history.split(":")[0]);
+        int filesPerCommit = Integer.parseInt(history.split(":")[1]);
+        revisions = new ArrayList<>();
+        for (int i = 0; i < commits; i++) {
+            List<ModifiedFile> files = new ArrayList<>();
+            for (int j = 0; j < filesPerCommit; j++) {
+                files.add(new ModifiedFile("src/main/java/io/example/module" + j + "/Component" + i + ".java", "modified"));
+            }
+            revisions.add(new Revision(String.format("%040x", i), new Date(1_600_000_000_000L + i * 60_000L),
+                    "Commit " + i + " of the release", "Release Bot", "bot@example.com", files));
+        }
+    }
+
+    @Benchmark
+    public String streamed() {
+        List<PolledRevision> polled = new ArrayList<>(revisions.size());
+        for (Revision revision : revisions) {
+            polled.add(new PolledRevision(revision.getRevision(), revision, Collections.emptyMap()));
+        }
+        return JSONUtils.toJSON(new LatestRevisionsSinceResponse(polled));
+    }
+
+    @Benchmark
+    public String mapTree() {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (Revision revision : revisions) {
+            List<Map<String, String>> files = new ArrayList<>();
+            for (ModifiedFile file : revision.getModifiedFiles()) {
+                Map<String, String> fileMap = new HashMap<>();
+                fileMap.put("fileName", file.getFileName());
+                fileMap.put("action", file.getAction());
+                files.add(fileMap);
+            }
+            Map<String, Object> map = new HashMap<>();
+            map.put("revision", revision.getRevision());
+            map.put("user", revision.getUser());
+            map.put("timestamp", new SimpleDateFormat(DATE_PATTERN).format(revision.getTimestamp()));
+            map.put("revisionComment", revision.getComment());
+            map.put("modifiedFiles", files);
+            map.put("data", new HashMap<String, String>());
+            maps.add(map);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("revisions", maps);
+        response.put("scm-data", new HashMap<String, String>());
+        return new GsonBuilder().create().toJson(response);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RevisionSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,242 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import com.tw.go.plugin.GitHelper;
+import com.tw.go.plugin.model.GitConfig;
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+import io.cogniflare.gocd.github.settings.scm.GitBackend;
+import io.cogniflare.gocd.github.util.BoundedHistory;
+import io.cogniflare.gocd.github.util.GitFactory;
+import io.cogniflare.gocd.github.util.RevisionLimits;
+import io.cogniflare.gocd.github.util.RevisionLog;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Working copy answering from a generated history, so benchmarks measure the plugin
+ * rather than git. Every command that would change the working copy does nothing.
+ */
+public class StubGitHelper extends GitHelper implements RevisionLog {
+    private final List<Revision> history;
+    private final RuntimeException fetchFailure;
+
+    /**
+     * @param history      commits since the previous release, newest first
+     * @param fetchFailure thrown by every fetch, or null
+     */
+    public StubGitHelper(GitConfig gitConfig, File workingDir, List<Revision> history, RuntimeException fetchFailure) {
+        super(gitConfig, workingDir);
+        this.history = history;
+        this.fetchFailure = fetchFailure;
+    }
+
+    /**
+     * {@code commits} revisions, each modifying {@code filesPerCommit} files, newest first.
+     */
+    public static List<Revision> history(int commits, int filesPerCommit) {
+        List<Revision> revisions = new ArrayList<>(commits);
+        for (int i = commits - 1; i >= 0; i--) {
+            List<ModifiedFile> files = new ArrayList<>(filesPerCommit);
+            for (int j = 0; j < filesPerCommit; j++) {
+                files.add(new ModifiedFile("src/main/java/io/example/module" + j + "/Component" + i + ".java", "modified"));
+            }
+            revisions.add(new Revision(String.format("%040x", i), new Date(1_600_000_000_000L + i * 60_000L),
+                    "Commit " + i + " of the release", "Release Bot", "bot@example.com", files));
+        }
+        return revisions;
+    }
+
+    /**
+     * Factory handing out a stub on {@code history} for every folder and backend.
+     */
+    public static GitFactory factory(List<Revision> history, RuntimeException fetchFailure) {
+        return new GitFactory() {
+            @Override
+            public GitHelper create(GitConfig config, File folder, GitBackend backend) {
+                return new StubGitHelper(config, folder, history, fetchFailure);
+            }
+        };
+    }
+
+    @Override
+    public BoundedHistory since(String revision, RevisionLimits limits) {
+        List<BoundedHistory.Entry> entries = new ArrayList<>();
+        for (Revision commit : history) {
+            if (commit.getRevision().equals(revision)) {
+                break;
+            }
+            if (entries.size() == limits.getMaxCommits()) {
+                return new BoundedHistory(entries, true);
+            }
+            entries.add(BoundedHistory.Entry.of(commit, limits));
+        }
+        return new BoundedHistory(entries, false);
+    }
+
+    @Override
+    public String version() {
+        return "stub";
+    }
+
+    @Override
+    public void checkConnection() {
+    }
+
+    @Override
+    public void cloneRepository() {
+    }
+
+    @Override
+    public void cloneOrFetch(String refSpec) {
+        fetch(refSpec);
+    }
+
+    @Override
+    public void checkoutRemoteBranchToLocal() {
+    }
+
+    @Override
+    public String workingRepositoryUrl() {
+        return gitConfig.getUrl();
+    }
+
+    @Override
+    public String getCurrentBranch() {
+        return "master";
+    }
+
+    @Override
+    public int getCommitCount() {
+        return history.size();
+    }
+
+    @Override
+    public String currentRevision() {
+        return getLatestRevision().getRevision();
+    }
+
+    @Override
+    public List<Revision> getAllRevisions() {
+        return history;
+    }
+
+    @Override
+    public Revision getLatestRevision() {
+        return history.get(0);
+    }
+
+    @Override
+    public List<Revision> getRevisionsSince(String revision) {
+        List<Revision> since = new ArrayList<>();
+        for (BoundedHistory.Entry entry : since(revision, new RevisionLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE)).getEntries()) {
+            since.add(entry.getRevision());
+        }
+        return since;
+    }
+
+    @Override
+    public Revision getDetailsForRevision(String sha) {
+        for (Revision revision : history) {
+            if (revision.getRevision().equals(sha)) {
+                return revision;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, String> getBranchToRevisionMap(String pattern) {
+        return Collections.singletonMap("master", getLatestRevision().getRevision());
+    }
+
+    @Override
+    public void pull() {
+    }
+
+    @Override
+    public void fetch(String refSpec) {
+        if (fetchFailure != null) {
+            throw fetchFailure;
+        }
+    }
+
+    @Override
+    public void resetHard(String revision) {
+    }
+
+    @Override
+    public void cleanAllUnversionedFiles() {
+    }
+
+    @Override
+    public void gc() {
+    }
+
+    @Override
+    public Map<String, String> submoduleUrls() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public List<String> submoduleFolders() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void printSubmoduleStatus() {
+    }
+
+    @Override
+    public void checkoutAllModifiedFilesInSubmodules() {
+    }
+
+    @Override
+    public int getSubModuleCommitCount(String subModuleFolder) {
+        return 0;
+    }
+
+    @Override
+    public void submoduleInit() {
+    }
+
+    @Override
+    public void submoduleSync() {
+    }
+
+    @Override
+    public void submoduleUpdate() {
+    }
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public void add(File fileToAdd) {
+    }
+
+    @Override
+    public void commit(String message) {
+    }
+
+    @Override
+    public void submoduleAdd(String repoUrl, String submoduleNameToPutInGitSubmodules, String folder) {
+    }
+
+    @Override
+    public void removeSubmoduleSectionsFromGitConfig() {
+    }
+
+    @Override
+    public void changeSubmoduleUrl(String submoduleName, String newUrl) {
+    }
+
+    @Override
+    public void push() {
+    }
+}
@@ -0,0 +1,81 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import com.tw.go.plugin.GitHelper;
+import com.tw.go.plugin.model.GitConfig;
+import com.tw.go.plugin.model.Revision;
+import io.cogniflare.gocd.github.gitRemoteProvider.GitRemoteProvider;
+import io.cogniflare.gocd.github.settings.general.DefaultGeneralPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.general.GeneralPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.DefaultScmPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.ScmPluginConfigurationView;
+import io.cogniflare.gocd.github.settings.scm.ScmPluginSettings;
+import io.cogniflare.gocd.github.util.GitTag;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Provider answering from memory, so benchmarks measure the plugin rather than GitHub.
+ */
+public class StubGitRemoteProvider implements GitRemoteProvider {
+    private final String latestRelease;
+
+    public StubGitRemoteProvider(String latestRelease) {
+        this.latestRelease = latestRelease;
+    }
+
+    @Override
+    public String getName() {
+        return "Stub";
+    }
+
+    @Override
+    public void addConfigData(GitConfig gitConfig) {
+    }
+
+    @Override
+    public boolean isInvalidURL(String url) {
+        return false;
+    }
+
+    @Override
+    public void checkConnection(GitConfig gitConfig) {
+    }
+
+    @Override
+    public String getRefSpec() {
+        return "refs/tags/*:refs/tags/*";
+    }
+
+    @Override
+    public String getRefSpec(String release) {
+        return String.format("+refs/tags/%1$s:refs/tags/%1$s", release);
+    }
+
+    @Override
+    public void populateReleaseData(GitConfig gitConfig, ScmPluginSettings settings, File workingDir, Revision prSHA, String tag, Map<String, String> data) {
+        data.put("RELEASE_NAME", tag);
+        data.put("RELEASE_BODY", "Release notes of " + tag);
+    }
+
+    @Override
+    public ScmPluginConfigurationView getScmConfigurationView() {
+        return new DefaultScmPluginConfigurationView();
+    }
+
+    @Override
+    public GeneralPluginConfigurationView getGeneralConfigurationView() {
+        return new DefaultGeneralPluginConfigurationView();
+    }
+
+    @Override
+    public String getLatestRelease(GitConfig gitConfig, ScmPluginSettings settings, GitHelper git, File workingDir) {
+        return latestRelease;
+    }
+
+    @Override
+    public Optional<GitTag> peekLatestRelease(GitConfig gitConfig, ScmPluginSettings settings) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,91 @@
+package io.cogniflare.gocd.github.benchmark;
+
+import io.cogniflare.gocd.github.gitRemoteProvider.github.GHUtils;
+import io.cogniflare.gocd.github.util.BranchFilter;
+import io.cogniflare.gocd.github.util.BranchMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of what a poll does per tag and per material besides git: matching a
+ * repository's tags against the tag filter, and parsing its URL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagMatchingBenchmark {
+    private static final String[] URLS = {
+            "https://github.com/owner/repo.git",
+            "https://github.com/owner/repo",
+            "git@github.com:owner/repo.git",
+            "http://code.corp.example.com/owner/repo",
+            "git@code.corp.example.com/owner/repo"
+    };
+
+    /**
+     * The tags of a repository with a thousand releases, and a filter of {@code patterns} whitelist patterns.
+     */
+    @State(Scope.Benchmark)
+    public static class Tags {
+        @Param({"3", "200"})
+        public int patterns;
+
+        private List<String> tags;
+        private BranchMatcher matcher;
+        private BranchFilter filter;
+
+        @Setup
+        public void setUp() {
+            tags = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                tags.add(String.format("v%d.%d.%d%s", i / 100, i / 10 % 10, i % 10, i % 7 == 0 ? "-rc1" : ""));
+            }
+            StringBuilder whitelist = new StringBuilder("v9.*");
+            for (int i = 1; i < patterns; i++) {
+                whitelist.append(",v").append(i % 10).append('.').append(i / 10 % 10).append(".*");
+            }
+            matcher = new BranchMatcher(whitelist.toString(), BranchMatcher.Mode.PASS_EMPTY);
+            filter = new BranchFilter("*-rc*,*-beta*", whitelist.toString());
+        }
+    }
+
+    @Benchmark
+    public int matchTags(Tags tags) {
+        int matched = 0;
+        for (String tag : tags.tags) {
+            if (tags.matcher.matches(tag)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public List<String> filterTags(Tags tags) {
+        return tags.filter.filter(tags.tags);
+    }
+
+    @Benchmark
+    public void parseGithubUrls(Blackhole blackhole) {
+        for (String url : URLS) {
+            blackhole.consume(GHUtils.parseGithubUrl(url));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TagMatchingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,203 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.sun.net.httpserver.HttpServer;
+import io.cogniflare.gocd.github.util.Metrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ConditionalReleaseFetcherTest {
+    private static final String RELEASES = "[{\"tag_name\": \"v2.0.0\", \"name\": \"Two\", \"body\": \"notes\", \"published_at\": \"2020-02-01T00:00:00Z\"}," +
+            "{\"tag_name\": \"v1.0.0\", \"name\": \"One\", \"draft\": false}]";
+
+    private static final GitHubCredentials ANONYMOUS = new GitHubCredentials(null, null, null);
+
+    private HttpServer server;
+    private String endpoint;
+    private final List<String> ifNoneMatchHeaders = new ArrayList<>();
+    private String rateLimitRemaining;
+    private String releaseByTagPath;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repos/owner/repo/releases", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatchHeaders.add(ifNoneMatch);
+            if (rateLimitRemaining != null) {
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", rateLimitRemaining);
+                exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+                exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+            }
+            if ("\"abc\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = RELEASES.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"abc\"");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext("/repos/owner/repo/releases/tags/", exchange -> {
+            releaseByTagPath = exchange.getRequestURI().getRawPath();
+            byte[] body = "{\"tag_name\": \"release 1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        endpoint = String.format("http://127.0.0.1:%d/", server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldReuseCachedReleasesWhenNotModified() throws IOException {
+        ConditionalReleaseFetcher fetcher = new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20));
+
+        List<GitHubRelease> first = fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS);
+        List<GitHubRelease> second = fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS);
+
+        assertThat(first.get(0).getTagName(), is("v2.0.0"));
+        assertThat(first.get(0).getPublishedAt(), is("2020-02-01T00:00:00Z"));
+        assertThat(second, is(first));
+        assertThat(ifNoneMatchHeaders.get(0), is(nullValue()));
+        assertThat(ifNoneMatchHeaders.get(1), is("\"abc\""));
+        assertThat(fetcher.getMisses(), is(1L));
+        assertThat(fetcher.getHits(), is(1L));
+    }
+
+    @Test
+    public void shouldTimeCallsPerRepository() throws IOException {
+        Metrics metrics = new Metrics();
+        ConditionalReleaseFetcher fetcher = new ConditionalReleaseFetcher(new GitHubRestClient(metrics), new RateLimitBudget(100, 20));
+
+        fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS);
+        fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS);
+        fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS, 2);
+
+        Metrics.Histogram calls = metrics.histogram(GitHubRestClient.API_SECONDS, "method", "GET", "repository", "owner/repo");
+        assertThat(calls.getCount(), is(3L));
+        assertThat(calls.getErrors(), is(0L));
+    }
+
+    @Test
+    public void shouldKeepSeparateValidatorsPerCredential() throws IOException {
+        ConditionalReleaseFetcher fetcher = new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20));
+
+        fetcher.listReleases(endpoint, "owner/repo", new GitHubCredentials(null, null, "one"));
+        fetcher.listReleases(endpoint, "owner/repo", new GitHubCredentials(null, null, "two"));
+
+        assertThat(fetcher.getMisses(), is(2L));
+        assertThat(fetcher.getHits(), is(0L));
+    }
+
+    @Test
+    public void shouldServeCachedReleasesWithoutRequestWhenBudgetIsLow() throws IOException {
+        ConditionalReleaseFetcher fetcher = new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20));
+        rateLimitRemaining = "50";
+
+        List<GitHubRelease> first = fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS);
+        List<GitHubRelease> second = fetcher.listReleases(endpoint, "owner/repo", ANONYMOUS);
+
+        assertThat(second, is(first));
+        assertThat(ifNoneMatchHeaders.size(), is(1));
+    }
+
+    @Test
+    public void shouldRevalidateStoredListingAfterRestart() throws IOException {
+        ReleaseStore store = new InMemoryStore();
+        new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20), store).listReleases(endpoint, "owner/repo", ANONYMOUS);
+        ConditionalReleaseFetcher restarted = new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20), store);
+
+        List<GitHubRelease> releases = restarted.listReleases(endpoint, "owner/repo", ANONYMOUS);
+
+        assertThat(releases.get(0).getTagName(), is("v2.0.0"));
+        assertThat(ifNoneMatchHeaders.get(1), is("\"abc\""));
+        assertThat(restarted.getHits(), is(1L));
+        assertThat(restarted.getMisses(), is(0L));
+    }
+
+    @Test
+    public void shouldEncodeTagAsPathSegment() throws IOException {
+        ConditionalReleaseFetcher fetcher = new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20));
+
+        Optional<GitHubRelease> release = fetcher.getRelease(endpoint, "owner/repo", ANONYMOUS, "release 1+rc");
+
+        assertThat(release.get().getTagName(), is("release 1"));
+        assertThat(releaseByTagPath, is("/repos/owner/repo/releases/tags/release%201%2Brc"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnUnknownRepository() throws IOException {
+        new ConditionalReleaseFetcher(new GitHubRestClient(), new RateLimitBudget(100, 20)).listReleases(endpoint, "owner/missing", ANONYMOUS);
+    }
+
+    private static class InMemoryStore implements ReleaseStore {
+        private final Map<String, Listing> listings = new HashMap<>();
+
+        @Override
+        public Optional<Listing> getListing(String key) {
+            return Optional.ofNullable(listings.get(key));
+        }
+
+        @Override
+        public void putListing(String key, Listing listing) {
+            listings.put(key, listing);
+        }
+
+        @Override
+        public List<GitHubRelease> getReleases(String repository) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void putRelease(String repository, GitHubRelease release) {
+        }
+
+        @Override
+        public void putReleases(String repository, List<GitHubRelease> releases) {
+        }
+
+        @Override
+        public void removeReleases(String repository, Collection<String> tags) {
+        }
+
+        @Override
+        public Optional<GitHubAuthenticator.Strategy> getStrategy(GitHubClientPool.Key key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void putStrategy(GitHubClientPool.Key key, GitHubAuthenticator.Strategy strategy) {
+        }
+
+        @Override
+        public void removeStrategy(GitHubClientPool.Key key) {
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FileReleaseStoreTest {
+    private static final GitHubClientPool.Key KEY = new GitHubClientPool.Key("https://api.github.com/", "0123456789abcdef");
+    private static final String REPOSITORY = "https://api.github.com/owner/repo";
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private File workspace;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("release-store").toFile();
+        file = new File(workspace, "store/releases.journal");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    @Test
+    public void shouldKeepEverythingAcrossRestart() {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putListing("listing", new ReleaseStore.Listing("\"abc\"", null, Collections.singletonList(release("v2.0.0", "notes"))));
+        store.putRelease(REPOSITORY, release("v1.0.0", "old notes"));
+        store.putStrategy(KEY, GitHubAuthenticator.Strategy.CLOUD_OAUTH);
+
+        FileReleaseStore restarted = new FileReleaseStore(file);
+
+        ReleaseStore.Listing listing = restarted.getListing("listing").get();
+        assertThat(listing.getEtag(), is("\"abc\""));
+        assertThat(listing.getReleases().get(0).getTagName(), is("v2.0.0"));
+        assertThat(restarted.getReleases(REPOSITORY).get(0).getBody(), is("old notes"));
+        assertThat(restarted.getStrategy(KEY).get(), is(GitHubAuthenticator.Strategy.CLOUD_OAUTH));
+    }
+
+    @Test
+    public void shouldKeepLatestRecordOfKey() {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putRelease(REPOSITORY, release("v1.0.0", "draft notes"));
+        store.putRelease(REPOSITORY, release("v1.0.0", "final notes"));
+        store.putStrategy(KEY, GitHubAuthenticator.Strategy.CLOUD_OAUTH);
+        store.removeStrategy(KEY);
+
+        FileReleaseStore restarted = new FileReleaseStore(file);
+
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(restarted.getReleases(REPOSITORY).get(0).getBody(), is("final notes"));
+        assertThat(restarted.getStrategy(KEY).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldNotWriteUnchangedRelease() {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putRelease(REPOSITORY, release("v1.0.0", "notes"));
+        long length = file.length();
+
+        store.putRelease(REPOSITORY, release("v1.0.0", "notes"));
+
+        assertThat(file.length(), is(length));
+    }
+
+    @Test
+    public void shouldDropRecordCutShortByCrash() throws IOException {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putRelease(REPOSITORY, release("v1.0.0", "one"));
+        long complete = file.length();
+        store.putRelease(REPOSITORY, release("v2.0.0", "two"));
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.setLength(journal.length() - 3);
+        }
+
+        FileReleaseStore restarted = new FileReleaseStore(file);
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(restarted.getReleases(REPOSITORY).get(0).getTagName(), is("v1.0.0"));
+        assertThat(restarted.length(), is(complete));
+
+        restarted.putRelease(REPOSITORY, release("v3.0.0", "three"));
+        assertThat(new FileReleaseStore(file).getReleases(REPOSITORY).size(), is(2));
+    }
+
+    @Test
+    public void shouldDropCorruptedRecord() throws IOException {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putRelease(REPOSITORY, release("v1.0.0", "one"));
+        long complete = file.length();
+        store.putRelease(REPOSITORY, release("v2.0.0", "two"));
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.seek(journal.length() - 5);
+            journal.write('x');
+        }
+
+        FileReleaseStore restarted = new FileReleaseStore(file);
+
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(restarted.length(), is(complete));
+    }
+
+    @Test
+    public void shouldStartOverOnUnsupportedVersion() throws IOException {
+        file.getParentFile().mkdirs();
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.write(new byte[]{'G', 'H', 'R', 'S'});
+            journal.writeInt(FileReleaseStore.VERSION + 1);
+            journal.write("whatever a later version writes".getBytes("UTF-8"));
+        }
+
+        FileReleaseStore store = new FileReleaseStore(file);
+        assertThat(store.getReleases(REPOSITORY).isEmpty(), is(true));
+        store.putRelease(REPOSITORY, release("v1.0.0", "one"));
+
+        assertThat(new FileReleaseStore(file).getReleases(REPOSITORY).size(), is(1));
+    }
+
+    @Test
+    public void shouldCompactReplacedRecords() {
+        FileReleaseStore store = new FileReleaseStore(file, 0, DAY, System::currentTimeMillis);
+        for (int i = 0; i < 100; i++) {
+            store.putListing("listing", new ReleaseStore.Listing("\"" + i + "\"", null, Arrays.asList(release("v" + i, "notes"))));
+        }
+        store.putRelease(REPOSITORY, release("v1.0.0", "one"));
+
+        // a hundred listings take some 40 kB, hashing their key made each live record longer
+        assertThat(file.length() < 2000, is(true));
+        FileReleaseStore restarted = new FileReleaseStore(file);
+        assertThat(restarted.getListing("listing").get().getEtag(), is("\"99\""));
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(new File(file.getPath() + ".tmp").exists(), is(false));
+    }
+
+    @Test
+    public void shouldKeepBatchOfReleases() {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putReleases(REPOSITORY, Arrays.asList(release("v1.0.0", "one"), release("v2.0.0", "two")));
+        long length = file.length();
+
+        store.putReleases(REPOSITORY, Arrays.asList(release("v1.0.0", "one"), release("v2.0.0", "two")));
+
+        assertThat(file.length(), is(length));
+        assertThat(new FileReleaseStore(file).getReleases(REPOSITORY).size(), is(2));
+    }
+
+    @Test
+    public void shouldForgetRemovedReleases() {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putReleases(REPOSITORY, Arrays.asList(release("v1.0.0", "one"), release("v2.0.0", "two")));
+
+        store.removeReleases(REPOSITORY, Arrays.asList("v1.0.0", "v3.0.0"));
+
+        assertThat(store.getReleases(REPOSITORY).size(), is(1));
+        FileReleaseStore restarted = new FileReleaseStore(file);
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(restarted.getReleases(REPOSITORY).get(0).getTagName(), is("v2.0.0"));
+    }
+
+    @Test
+    public void shouldDropExpiredRecordsOnLoad() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        FileReleaseStore store = new FileReleaseStore(file, 1024 * 1024, DAY, now::get);
+        store.putRelease(REPOSITORY, release("v1.0.0", "old"));
+        now.addAndGet(DAY / 2);
+        store.putRelease(REPOSITORY, release("v2.0.0", "new"));
+
+        now.addAndGet(DAY / 2 + 1);
+        FileReleaseStore restarted = new FileReleaseStore(file, 1024 * 1024, DAY, now::get);
+
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(restarted.getReleases(REPOSITORY).get(0).getTagName(), is("v2.0.0"));
+        long length = file.length();
+        now.addAndGet(DAY);
+        assertThat(new FileReleaseStore(file, 1024 * 1024, DAY, now::get).getReleases(REPOSITORY).isEmpty(), is(true));
+        assertThat(file.length() < length, is(true));
+    }
+
+    @Test
+    public void shouldKeepRecordsStillInUse() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        FileReleaseStore store = new FileReleaseStore(file, 1024 * 1024, DAY, now::get);
+        ReleaseStore.Listing listing = new ReleaseStore.Listing("\"abc\"", null, Collections.singletonList(release("v1.0.0", "first")));
+        store.putListing("listing", listing);
+        store.putRelease(REPOSITORY, release("v0.9.0", "older"));
+        store.putStrategy(KEY, GitHubAuthenticator.Strategy.CLOUD_OAUTH);
+        long length = file.length();
+
+        now.addAndGet(DAY / 4);
+        store.putListing("listing", listing);
+        store.putRelease(REPOSITORY, release("v0.9.0", "older"));
+        store.putStrategy(KEY, GitHubAuthenticator.Strategy.CLOUD_OAUTH);
+        assertThat(file.length(), is(length));
+
+        now.addAndGet(DAY / 2);
+        store.putListing("listing", listing);
+        store.putRelease(REPOSITORY, release("v0.9.0", "older"));
+        store.putStrategy(KEY, GitHubAuthenticator.Strategy.CLOUD_OAUTH);
+
+        now.addAndGet(DAY / 2);
+        FileReleaseStore restarted = new FileReleaseStore(file, 1024 * 1024, DAY, now::get);
+        assertThat(restarted.getListing("listing").isPresent(), is(true));
+        assertThat(restarted.getReleases(REPOSITORY).size(), is(1));
+        assertThat(restarted.getStrategy(KEY).get(), is(GitHubAuthenticator.Strategy.CLOUD_OAUTH));
+    }
+
+    @Test
+    public void shouldNotWriteKeysDerivedFromCredentials() throws IOException {
+        FileReleaseStore store = new FileReleaseStore(file);
+        store.putListing("https://api.github.com/repos/owner/repo/releases#" + KEY.getCredentialFingerprint(),
+                new ReleaseStore.Listing("\"abc\"", null, Collections.emptyList()));
+        store.putStrategy(KEY, GitHubAuthenticator.Strategy.CLOUD_OAUTH);
+
+        assertThat(FileUtils.readFileToString(file, StandardCharsets.UTF_8).contains(KEY.getCredentialFingerprint()), is(false));
+        FileReleaseStore restarted = new FileReleaseStore(file);
+        assertThat(restarted.getListing("https://api.github.com/repos/owner/repo/releases#" + KEY.getCredentialFingerprint()).isPresent(), is(true));
+        assertThat(restarted.getStrategy(KEY).get(), is(GitHubAuthenticator.Strategy.CLOUD_OAUTH));
+    }
+
+    private static GitHubRelease release(String tag, String body) {
+        return new GitHubRelease(tag, tag, body, false, false, "2020-01-01T00:00:00Z",
+                Collections.singletonList(new GitHubRelease.Asset("plugin.jar", 10, "https://example.com/" + tag + "/plugin.jar")));
+    }
+}
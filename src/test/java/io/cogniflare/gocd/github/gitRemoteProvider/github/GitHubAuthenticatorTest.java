@@ -0,0 +1,97 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.tw.go.plugin.model.GitConfig;
+import io.cogniflare.gocd.github.gitRemoteProvider.github.GitHubAuthenticator.Strategy;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GitHubAuthenticatorTest {
+    private static final GitHubCoordinates ENTERPRISE = GitHubCoordinates.parse("https://github.corp.com/owner/repo");
+    private static final GitHubCoordinates CLOUD = GitHubCoordinates.parse("https://github.com/owner/repo");
+    private static final GitHubClientPool.Key KEY = new GitHubClientPool.Key("endpoint", "fingerprint");
+
+    private final GitConfig gitConfig = new GitConfig("https://github.corp.com/owner/repo", "user", "secret", null);
+    private final List<Strategy> attempts = new ArrayList<>();
+    private final Set<Strategy> working = EnumSet.noneOf(Strategy.class);
+    private final GitHubAuthenticator.Connector connector = (strategy, apiEndpoint, config) -> {
+        attempts.add(strategy);
+        GitHub gitHub = mock(GitHub.class);
+        if (!working.contains(strategy)) {
+            when(gitHub.getRepository("owner/repo")).thenThrow(new IOException("401 Bad credentials"));
+        }
+        return gitHub;
+    };
+    private final GitHubAuthenticator authenticator = new GitHubAuthenticator(connector);
+
+    @Test
+    public void shouldProbeStrategiesInOrderAndRememberTheOneThatWorked() throws IOException {
+        working.add(Strategy.ENTERPRISE_OAUTH);
+
+        authenticator.login(KEY, ENTERPRISE, gitConfig);
+        authenticator.login(KEY, ENTERPRISE, gitConfig);
+
+        assertThat(attempts, is(Arrays.asList(Strategy.ENTERPRISE_PASSWORD, Strategy.ENTERPRISE_OAUTH, Strategy.ENTERPRISE_OAUTH)));
+        assertThat(authenticator.strategyFor(KEY).get(), is(Strategy.ENTERPRISE_OAUTH));
+    }
+
+    @Test
+    public void shouldSkipEnterpriseStrategiesForCloudRepositories() throws IOException {
+        working.add(Strategy.CLOUD_OAUTH);
+
+        authenticator.login(KEY, CLOUD, gitConfig);
+
+        assertThat(attempts, is(Arrays.asList(Strategy.CLOUD_PASSWORD, Strategy.CLOUD_OAUTH)));
+    }
+
+    @Test
+    public void shouldForgetRememberedStrategyOnceItFails() throws IOException {
+        working.add(Strategy.ENTERPRISE_PASSWORD);
+        authenticator.login(KEY, ENTERPRISE, gitConfig);
+        working.clear();
+        attempts.clear();
+
+        try {
+            authenticator.login(KEY, ENTERPRISE, gitConfig);
+            fail("should not authenticate");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("Cannot authenticate to github repository."));
+        }
+
+        assertThat(attempts.size(), is(4));
+        assertThat(authenticator.strategyFor(KEY).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldTryStrategyRememberedBeforeRestartFirst() throws IOException {
+        File workspace = Files.createTempDirectory("authenticator").toFile();
+        try {
+            File journal = new File(workspace, "releases.journal");
+            working.add(Strategy.ENTERPRISE_OAUTH);
+            new GitHubAuthenticator(connector, new FileReleaseStore(journal)).login(KEY, ENTERPRISE, gitConfig);
+            attempts.clear();
+
+            new GitHubAuthenticator(connector, new FileReleaseStore(journal)).login(KEY, ENTERPRISE, gitConfig);
+
+            assertThat(attempts, is(Collections.singletonList(Strategy.ENTERPRISE_OAUTH)));
+        } finally {
+            FileUtils.deleteQuietly(workspace);
+        }
+    }
+}
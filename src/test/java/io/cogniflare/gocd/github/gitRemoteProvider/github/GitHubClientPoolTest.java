@@ -0,0 +1,71 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class GitHubClientPoolTest {
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final GitHubClientPool pool = new GitHubClientPool(1000, now::get);
+
+    @Test
+    public void shouldReuseClientForSameEndpointAndCredentials() throws IOException {
+        GitHub first = pool.get(new GitHubClientPool.Key("https://api.github.com/", "abc"), this::connect);
+        GitHub second = pool.get(new GitHubClientPool.Key("https://api.github.com/", "abc"), this::connect);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(connections.get(), is(1));
+    }
+
+    @Test
+    public void shouldKeepClientsApartPerEndpointAndCredentials() throws IOException {
+        GitHub cloud = pool.get(new GitHubClientPool.Key("https://api.github.com/", "abc"), this::connect);
+        GitHub otherCredentials = pool.get(new GitHubClientPool.Key("https://api.github.com/", "def"), this::connect);
+        GitHub enterprise = pool.get(new GitHubClientPool.Key("https://github.corp/api/v3/", "abc"), this::connect);
+
+        assertThat(otherCredentials, is(not(sameInstance(cloud))));
+        assertThat(enterprise, is(not(sameInstance(cloud))));
+        assertThat(pool.size(), is(3));
+    }
+
+    @Test
+    public void shouldLabelCredentialsWithoutTheirFingerprint() {
+        GitHubClientPool.Key key = new GitHubClientPool.Key("https://api.github.com/", "0123456789abcdef");
+
+        assertThat(key.getCredentialLabel(), is(new GitHubClientPool.Key("https://api.github.com/", "0123456789abcdef").getCredentialLabel()));
+        assertThat(key.getCredentialLabel(), is(not(new GitHubClientPool.Key("https://api.github.com/", "fedcba9876543210").getCredentialLabel())));
+        assertThat(key.toString().contains("0123456789abcdef"), is(false));
+        assertThat(new GitHubClientPool.Key("https://api.github.com/", "anonymous").toString(), is("https://api.github.com/ (anonymous)"));
+    }
+
+    @Test
+    public void shouldEvictIdleClients() throws IOException {
+        GitHubClientPool.Key idle = new GitHubClientPool.Key("https://api.github.com/", "idle");
+        GitHubClientPool.Key busy = new GitHubClientPool.Key("https://api.github.com/", "busy");
+        pool.get(idle, this::connect);
+        pool.get(busy, this::connect);
+
+        now.set(800);
+        pool.get(busy, this::connect);
+        now.set(1600);
+        pool.get(busy, this::connect);
+
+        assertThat(pool.size(), is(1));
+        assertThat(connections.get(), is(2));
+    }
+
+    private GitHub connect() {
+        connections.incrementAndGet();
+        return mock(GitHub.class);
+    }
+}
@@ -0,0 +1,49 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class GitHubCoordinatesTest {
+    @Test
+    public void shouldResolveCloudRepositories() {
+        GitHubCoordinates https = GitHubCoordinates.parse("https://github.com/ashwanthkumar/gocd-build-github-pull-requests.git");
+        GitHubCoordinates ssh = GitHubCoordinates.parse("git@github.com:ashwanthkumar/gocd-build-github-pull-requests.git");
+
+        assertThat(https.getRepository(), is("ashwanthkumar/gocd-build-github-pull-requests"));
+        assertThat(https.getApiEndpoint(), is("https://api.github.com/"));
+        assertThat(https.isEnterprise(), is(false));
+        assertThat(ssh.getRepository(), is("ashwanthkumar/gocd-build-github-pull-requests"));
+        assertThat(ssh.getApiEndpoint(), is("https://api.github.com/"));
+        assertThat(GitHubCoordinates.parse("https://www.Github.Com/owner/repo").isEnterprise(), is(false));
+    }
+
+    @Test
+    public void shouldResolveEnterpriseRepositories() {
+        GitHubCoordinates https = GitHubCoordinates.parse("https://github.company.com/user/test-repo.git");
+        GitHubCoordinates ssh = GitHubCoordinates.parse("git@code.corp.yourcompany.com:username/repo");
+
+        assertThat(https.getRepository(), is("user/test-repo"));
+        assertThat(https.getApiEndpoint(), is("https://github.company.com/api/v3/"));
+        assertThat(https.isEnterprise(), is(true));
+        assertThat(ssh.getDomain(), is("code.corp.yourcompany.com"));
+        assertThat(ssh.getApiEndpoint(), is("https://code.corp.yourcompany.com/api/v3/"));
+    }
+
+    @Test
+    public void shouldMemoizeParsedUrls() {
+        String url = "https://github.com/owner/memoized";
+
+        assertThat(GitHubCoordinates.of(url), is(sameInstance(GitHubCoordinates.of(url))));
+    }
+
+    @Test
+    public void shouldKeyRepositoriesCaseInsensitively() {
+        GitHubCoordinates coordinates = GitHubCoordinates.parse("https://github.com/Owner/Repo.git");
+
+        assertThat(coordinates.getKey(), is(GitHubCoordinates.key(GitHubCoordinates.GITHUB_CLOUD_API, "owner/repo")));
+        assertThat(GitHubCoordinates.key("https://api.github.com/", "Owner/Repo"), is("https://api.github.com/owner/repo"));
+    }
+}
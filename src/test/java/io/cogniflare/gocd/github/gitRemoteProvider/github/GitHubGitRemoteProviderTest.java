@@ -23,9 +23,9 @@ public class GitHubGitRemoteProviderTest extends AbstractProviderTest {
         PluginConfigurationView scmConfigurationView = getScmView();
 
         assertThat(scmConfigurationView.fields().keySet(),
-                hasItems("url", "username", "password", "defaultBranch", "shallowClone")
+                hasItems("url", "username", "password", "defaultBranch", "shallowClone", "releaseSource", "fetchMode", "fetchDepth", "shallowSince", "pollSubmodules", "gitBackend", "tagWhitelist", "tagBlacklist", "excludeDrafts", "excludePreReleases", "pinMajorVersion")
         );
-        assertThat(scmConfigurationView.fields().size(), is(5));
+        assertThat(scmConfigurationView.fields().size(), is(16));
     }
 
     @Test
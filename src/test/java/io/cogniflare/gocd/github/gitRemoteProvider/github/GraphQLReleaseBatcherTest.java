@@ -0,0 +1,182 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class GraphQLReleaseBatcherTest {
+    private static final Pattern ALIAS = Pattern.compile("(r\\d+): repository\\(owner: \"([^\"]+)\", name: \"([^\"]+)\"\\)");
+    private static final GitHubCredentials TOKEN = new GitHubCredentials(null, null, "token");
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private HttpServer server;
+    private String endpoint;
+    private int status = 200;
+    private final CountDownLatch slowQueryReleased = new CountDownLatch(1);
+    private GraphQLReleaseBatcher batcher;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/graphql", exchange -> {
+            String query = new JsonParser().parse(IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8))
+                    .getAsJsonObject().get("query").getAsString();
+            queries.add(query);
+            if (query.contains("\"slow\"")) {
+                await(slowQueryReleased);
+            }
+            byte[] body = respond(query).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.setExecutor(executor);
+        server.start();
+        endpoint = String.format("http://127.0.0.1:%d/", server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldQueryRepositoriesPolledWithinWindowTogether() throws Exception {
+        batcher = new GraphQLReleaseBatcher(new GitHubRestClient(), new RateLimitBudget(100, 20), 50, 200);
+        List<Future<Optional<GraphQLReleaseBatcher.LatestRelease>>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String repository = "owner/repo" + i;
+            results.add(executor.submit(() -> batcher.latestRelease(endpoint, repository, TOKEN)));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            GraphQLReleaseBatcher.LatestRelease latest = results.get(i).get(5, TimeUnit.SECONDS).get();
+            assertThat(latest.getRelease().getTagName(), is("repo" + i + "-v1.0.0"));
+            assertThat(latest.getRelease().getBody(), is("notes of repo" + i));
+            assertThat(latest.getRelease().getAssets().get(0).getBrowserDownloadUrl(), is("https://example.com/repo" + i + ".jar"));
+            assertThat(latest.getCommit(), is("sha-repo" + i));
+        }
+        assertThat(queries.size(), is(1));
+        assertThat(batcher.getQueries(), is(1L));
+        assertThat(batcher.getLookups(), is(5L));
+    }
+
+    @Test
+    public void shouldSendFullBatchWithoutWaitingForWindow() throws Exception {
+        batcher = new GraphQLReleaseBatcher(new GitHubRestClient(), new RateLimitBudget(100, 20), 2, TimeUnit.HOURS.toMillis(1));
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> first = executor.submit(() -> batcher.latestRelease(endpoint, "owner/a", TOKEN));
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> second = executor.submit(() -> batcher.latestRelease(endpoint, "owner/b", TOKEN));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).get().getRelease().getTagName(), is("a-v1.0.0"));
+        assertThat(second.get(5, TimeUnit.SECONDS).get().getRelease().getTagName(), is("b-v1.0.0"));
+        assertThat(queries.size(), is(1));
+    }
+
+    @Test
+    public void shouldAnswerEachRepositoryOnItsOwn() throws Exception {
+        batcher = new GraphQLReleaseBatcher(new GitHubRestClient(), new RateLimitBudget(100, 20), 3, TimeUnit.HOURS.toMillis(1));
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> found = executor.submit(() -> batcher.latestRelease(endpoint, "owner/repo", TOKEN));
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> empty = executor.submit(() -> batcher.latestRelease(endpoint, "owner/empty", TOKEN));
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> missing = executor.submit(() -> batcher.latestRelease(endpoint, "owner/missing", TOKEN));
+
+        assertThat(found.get(5, TimeUnit.SECONDS).isPresent(), is(true));
+        assertThat(empty.get(5, TimeUnit.SECONDS).isPresent(), is(false));
+        try {
+            missing.get(5, TimeUnit.SECONDS);
+            fail("should not find repository");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("Cannot query releases of owner/missing: Could not resolve to a Repository with the name 'owner/missing'."));
+        }
+    }
+
+    @Test
+    public void shouldFailEveryCallerOfRejectedQuery() throws Exception {
+        status = 401;
+        batcher = new GraphQLReleaseBatcher(new GitHubRestClient(), new RateLimitBudget(100, 20), 50, 10);
+
+        try {
+            batcher.latestRelease(endpoint, "owner/repo", TOKEN);
+            fail("should not authenticate");
+        } catch (GitHubAuthenticationException e) {
+            assertThat(e.getMessage().contains("bad credentials"), is(true));
+        }
+    }
+
+    @Test
+    public void shouldSendBatchWhileEarlierQueryIsInFlight() throws Exception {
+        batcher = new GraphQLReleaseBatcher(new GitHubRestClient(), new RateLimitBudget(100, 20), 50, 10, 2);
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> slow = executor.submit(() -> batcher.latestRelease(endpoint, "owner/slow", TOKEN));
+        while (queries.isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        GitHubCredentials other = new GitHubCredentials(null, null, "other-token");
+        Future<Optional<GraphQLReleaseBatcher.LatestRelease>> fast = executor.submit(() -> batcher.latestRelease(endpoint, "owner/fast", other));
+
+        assertThat(fast.get(5, TimeUnit.SECONDS).get().getRelease().getTagName(), is("fast-v1.0.0"));
+        assertThat(slow.isDone(), is(false));
+        slowQueryReleased.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS).get().getRelease().getTagName(), is("slow-v1.0.0"));
+    }
+
+    @Test
+    public void shouldFindGraphQLEndpointOfApiEndpoint() {
+        assertThat(GraphQLReleaseBatcher.graphQLEndpoint("https://api.github.com/"), is("https://api.github.com/graphql"));
+        assertThat(GraphQLReleaseBatcher.graphQLEndpoint("https://github.corp.com/api/v3/"), is("https://github.corp.com/api/graphql"));
+    }
+
+    private static String respond(String query) {
+        JsonObject data = new JsonObject();
+        List<String> errors = new ArrayList<>();
+        Matcher matcher = ALIAS.matcher(query);
+        while (matcher.find()) {
+            String alias = matcher.group(1);
+            String name = matcher.group(3);
+            if (name.equals("missing")) {
+                data.add(alias, null);
+                errors.add(String.format("{\"type\": \"NOT_FOUND\", \"path\": [\"%s\"], \"message\": \"Could not resolve to a Repository with the name '%s/%s'.\"}",
+                        alias, matcher.group(2), name));
+                continue;
+            }
+            String nodes = name.equals("empty") ? "[]" : String.format("[{\"tagName\": \"%1$s-v1.0.0\", \"name\": \"%1$s 1.0.0\", \"description\": \"notes of %1$s\", "
+                    + "\"isDraft\": false, \"isPrerelease\": false, \"publishedAt\": \"2020-01-01T00:00:00Z\", \"tagCommit\": {\"oid\": \"sha-%1$s\"}, "
+                    + "\"releaseAssets\": {\"nodes\": [{\"name\": \"%1$s.jar\", \"size\": 10, \"downloadUrl\": \"https://example.com/%1$s.jar\"}]}}]", name);
+            data.add(alias, new JsonParser().parse(String.format("{\"releases\": {\"nodes\": %s}}", nodes)));
+        }
+        return String.format("{\"data\": %s%s}", data, errors.isEmpty() ? "" : ", \"errors\": [" + String.join(",", errors) + "]");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import io.cogniflare.gocd.github.util.Metrics;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RateLimitBudgetTest {
+    private static final GitHubClientPool.Key TENANT = new GitHubClientPool.Key("https://api.github.com/", "anonymous");
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final RateLimitBudget budget = new RateLimitBudget(100, 2, now::get);
+
+    @Test
+    public void shouldAllowCallsForUnknownTenant() throws IOException {
+        assertThat(budget.tryAcquire(TENANT), is(true));
+        budget.checkNotExhausted(TENANT);
+    }
+
+    @Test
+    public void shouldDenyCallsOnceReserveIsReached() {
+        budget.observe(TENANT, response(100, 60));
+
+        assertThat(budget.tryAcquire(TENANT), is(false));
+        assertThat(budget.getThrottled(), is(1L));
+    }
+
+    @Test
+    public void shouldSpreadRemainingQuotaUntilReset() {
+        // 60 calls above the reserve over 60 seconds: one token per second, burst of 2
+        budget.observe(TENANT, response(160, 60));
+
+        assertThat(budget.tryAcquire(TENANT), is(true));
+        assertThat(budget.tryAcquire(TENANT), is(true));
+        assertThat(budget.tryAcquire(TENANT), is(false));
+
+        now.addAndGet(1000);
+        assertThat(budget.tryAcquire(TENANT), is(true));
+        assertThat(budget.tryAcquire(TENANT), is(false));
+    }
+
+    @Test
+    public void shouldRestoreBudgetAfterReset() {
+        budget.observe(TENANT, response(0, 60));
+        now.addAndGet(60_000);
+
+        assertThat(budget.tryAcquire(TENANT), is(true));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWhenQuotaIsExhausted() throws IOException {
+        budget.observe(TENANT, response(0, 60));
+
+        budget.checkNotExhausted(TENANT);
+    }
+
+    @Test
+    public void shouldIgnoreResponsesWithoutRateLimitHeaders() {
+        Metrics metrics = new Metrics();
+        budget.registerMetrics(metrics);
+
+        budget.observe(TENANT, new GitHubRestClient.Response(200, new HashMap<>(), "[]"));
+
+        assertThat(metrics.summary(), is(Collections.singletonList("gocd_github_tags_github_api_throttled_total 0")));
+    }
+
+    @Test
+    public void shouldExposeRemainingQuotaPerTenant() {
+        Metrics metrics = new Metrics();
+        budget.observe(TENANT, response(4000, 60));
+        budget.registerMetrics(metrics);
+        GitHubClientPool.Key authenticated = new GitHubClientPool.Key("https://api.github.com/", "0123456789abcdef");
+        budget.observe(authenticated, response(150, 60));
+        budget.observe(TENANT, response(3999, 60));
+
+        String label = authenticated.getCredentialLabel();
+        assertThat(new HashSet<>(metrics.summary()), is(new HashSet<>(Arrays.asList(
+                "gocd_github_tags_github_api_throttled_total 0",
+                "gocd_github_tags_github_api_limit{endpoint=\"https://api.github.com/\",credential=\"" + label + "\"} 5000",
+                "gocd_github_tags_github_api_limit{endpoint=\"https://api.github.com/\",credential=\"anonymous\"} 5000",
+                "gocd_github_tags_github_api_remaining{endpoint=\"https://api.github.com/\",credential=\"" + label + "\"} 150",
+                "gocd_github_tags_github_api_remaining{endpoint=\"https://api.github.com/\",credential=\"anonymous\"} 3999"))));
+        assertThat(String.join("\n", metrics.summary()).contains("0123456789abcdef"), is(false));
+    }
+
+    private GitHubRestClient.Response response(int remaining, int resetInSeconds) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("x-ratelimit-remaining", String.valueOf(remaining));
+        headers.put("x-ratelimit-limit", "5000");
+        headers.put("x-ratelimit-reset", String.valueOf((now.get() + resetInSeconds * 1000L) / 1000));
+        return new GitHubRestClient.Response(200, headers, "");
+    }
+}
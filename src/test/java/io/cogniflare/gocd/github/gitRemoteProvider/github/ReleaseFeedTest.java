@@ -0,0 +1,80 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReleaseFeedTest {
+    private static final String REPOSITORY = GitHubCoordinates.key(GitHubCoordinates.GITHUB_CLOUD_API, "owner/repo");
+    private static final long MAX_QUIET_MILLIS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+    private final ReleaseFeed feed = new ReleaseFeed(index, MAX_QUIET_MILLIS, now::get);
+
+    @Test
+    public void shouldAnswerLatestReleaseWhileFeedIsHealthy() {
+        feed.observe(REPOSITORY, "v1.0.0", feed.generation(REPOSITORY));
+        assertThat(feed.latestRelease(REPOSITORY).isPresent(), is(false));
+
+        feed.onDelivery(REPOSITORY);
+        feed.onRelease(REPOSITORY, "published", release("v2.0.0", false));
+
+        assertThat(feed.latestRelease(REPOSITORY).get(), is("v2.0.0"));
+        assertThat(index.get(REPOSITORY, "v2.0.0").isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldFallBackToApiOnceFeedGoesQuiet() {
+        feed.onDelivery(REPOSITORY);
+        feed.onRelease(REPOSITORY, "published", release("v2.0.0", false));
+
+        now.addAndGet(MAX_QUIET_MILLIS + 1);
+
+        assertThat(feed.latestRelease(REPOSITORY).isPresent(), is(false));
+        feed.onDelivery(REPOSITORY);
+        assertThat(feed.latestRelease(REPOSITORY).get(), is("v2.0.0"));
+    }
+
+    @Test
+    public void shouldForgetLatestReleaseOnEventsItCannotFollow() {
+        feed.onDelivery(REPOSITORY);
+        feed.observe(REPOSITORY, "v1.0.0", feed.generation(REPOSITORY));
+        assertThat(feed.latestRelease(REPOSITORY).get(), is("v1.0.0"));
+
+        feed.onTagPush(REPOSITORY, "v2.0.0");
+        assertThat(feed.latestRelease(REPOSITORY).isPresent(), is(false));
+
+        feed.observe(REPOSITORY, "v2.0.0", feed.generation(REPOSITORY));
+        feed.onRelease(REPOSITORY, "created", release("v3.0.0", true));
+        assertThat(feed.latestRelease(REPOSITORY).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldRemoveDeletedReleaseFromIndex() {
+        index.put(REPOSITORY, release("v1.0.0", false));
+
+        feed.onRelease(REPOSITORY, "deleted", release("v1.0.0", false));
+
+        assertThat(index.contains(REPOSITORY, "v1.0.0"), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreListingOutdatedByEvent() {
+        feed.onDelivery(REPOSITORY);
+        long generation = feed.generation(REPOSITORY);
+
+        feed.onRelease(REPOSITORY, "published", release("v2.0.0", false));
+        feed.observe(REPOSITORY, "v1.0.0", generation);
+
+        assertThat(feed.latestRelease(REPOSITORY).get(), is("v2.0.0"));
+    }
+
+    private static GitHubRelease release(String tag, boolean draft) {
+        return new GitHubRelease(tag, tag, "notes", draft, false, "2020-01-01T00:00:00Z", Collections.emptyList());
+    }
+}
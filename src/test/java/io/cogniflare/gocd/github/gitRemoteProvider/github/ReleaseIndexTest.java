@@ -0,0 +1,255 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReleaseIndexTest {
+
+    @Test
+    public void shouldFindIndexedReleaseByRepositoryAndTag() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/a", release("v1"));
+        index.put("owner/b", release("v2"));
+
+        assertThat(index.get("owner/a", "v1").get().getName(), is("release v1"));
+        assertThat(index.get("owner/a", "v2").isPresent(), is(false));
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void shouldForgetRemovedRelease() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/a", release("v1"));
+
+        index.remove("owner/a", "v1");
+
+        assertThat(index.contains("owner/a", "v1"), is(false));
+        assertThat(index.hasReleases("owner/a"), is(false));
+        assertThat(index.getSizeInBytes(), is(0L));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedReleasesWhenOverBudget() {
+        ReleaseIndex index = new ReleaseIndex(1024);
+        for (int i = 0; i < 20; i++) {
+            index.put("owner/repo", release("v" + i));
+            index.get("owner/repo", "v0");
+        }
+
+        assertThat(index.getSizeInBytes() <= 1024, is(true));
+        assertThat(index.contains("owner/repo", "v0"), is(true));
+        assertThat(index.contains("owner/repo", "v1"), is(false));
+        assertThat(index.contains("owner/repo", "v19"), is(true));
+    }
+
+    @Test
+    public void shouldReadOnlyTheFirstPageOfAnUnknownRepository() throws IOException {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        List<Integer> requestedPages = new ArrayList<>();
+
+        index.refresh("owner/repo", page -> {
+            requestedPages.add(page);
+            return Arrays.asList(release("v" + (10 - page)));
+        });
+
+        assertThat(requestedPages, is(Collections.singletonList(1)));
+    }
+
+    @Test
+    public void shouldStopRefreshingAtTheFirstKnownRelease() throws IOException {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/repo", release("v1"));
+        List<Integer> requestedPages = new ArrayList<>();
+
+        index.refresh("owner/repo", page -> {
+            requestedPages.add(page);
+            switch (page) {
+                case 1:
+                    return Arrays.asList(release("v5"), release("v4"));
+                case 2:
+                    return Arrays.asList(release("v3"), release("v2"));
+                case 3:
+                    return Arrays.asList(release("v1"), release("v0"));
+                default:
+                    return Collections.emptyList();
+            }
+        });
+
+        assertThat(requestedPages, is(Arrays.asList(1, 2, 3)));
+        assertThat(index.contains("owner/repo", "v4"), is(true));
+        assertThat(index.contains("owner/repo", "v0"), is(true));
+    }
+
+    @Test
+    public void shouldFindLatestReleaseBySemverThenPublicationDate() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/repo", release("v1.10.0", false, false, "2020-01-01T00:00:00Z"));
+        index.put("owner/repo", release("v1.9.0", false, false, "2020-06-01T00:00:00Z"));
+        index.put("owner/repo", release("nightly", false, false, "2021-01-01T00:00:00Z"));
+        index.put("owner/repo", release("v2.0.0-rc.1", false, true, "2020-03-01T00:00:00Z"));
+        index.put("owner/other", release("v9.0.0", false, false, "2020-01-01T00:00:00Z"));
+
+        assertThat(index.latest("owner/repo", null, release -> true).get().getTagName(), is("v2.0.0-rc.1"));
+        assertThat(index.latest("owner/repo", null, release -> !release.isPrerelease()).get().getTagName(), is("v1.10.0"));
+        assertThat(index.latest("owner/unknown", null, release -> true).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldOrderNonSemverReleasesByPublicationDate() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/repo", release("build-7", false, false, "2020-01-01T00:00:00Z"));
+        index.put("owner/repo", release("build-8", false, false, "2020-02-01T00:00:00Z"));
+        index.put("owner/repo", release("build-9", true, false, null));
+
+        assertThat(index.latest("owner/repo", null, release -> true).get().getTagName(), is("build-8"));
+    }
+
+    @Test
+    public void shouldFindLatestReleaseOfPinnedMajorVersion() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        for (String tag : Arrays.asList("v1.0.0", "v1.4.2", "v2.0.0", "v2.1.0-beta", "v3.0.0", "unversioned")) {
+            index.put("owner/repo", release(tag, false, tag.contains("-"), "2020-01-01T00:00:00Z"));
+        }
+
+        assertThat(index.latest("owner/repo", 2, release -> true).get().getTagName(), is("v2.1.0-beta"));
+        assertThat(index.latest("owner/repo", 2, release -> !release.isPrerelease()).get().getTagName(), is("v2.0.0"));
+        assertThat(index.latest("owner/repo", 1, release -> true).get().getTagName(), is("v1.4.2"));
+        assertThat(index.latest("owner/repo", 4, release -> true).isPresent(), is(false));
+        assertThat(index.latest("owner/repo", 0, release -> true).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldReorderReleaseWhenItChanges() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/repo", release("v1.0.0", false, false, "2020-01-01T00:00:00Z"));
+        index.put("owner/repo", release("v2.0.0", true, false, null));
+
+        assertThat(index.latest("owner/repo", null, release -> !release.isDraft()).get().getTagName(), is("v1.0.0"));
+
+        index.put("owner/repo", release("v2.0.0", false, false, "2020-02-01T00:00:00Z"));
+        assertThat(index.latest("owner/repo", null, release -> !release.isDraft()).get().getTagName(), is("v2.0.0"));
+
+        index.remove("owner/repo", "v2.0.0");
+        assertThat(index.latest("owner/repo", null, release -> true).get().getTagName(), is("v1.0.0"));
+    }
+
+    @Test
+    public void shouldDropReleasesDeletedSinceTheListing() {
+        AtomicLong now = new AtomicLong(1000);
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024, now::get);
+        index.put("owner/repo", release("v0.9.0", false, false, "2019-01-01T00:00:00Z"));
+        index.put("owner/repo", release("v1.1.0", false, false, "2020-03-01T00:00:00Z"));
+
+        index.putListing("owner/repo", Arrays.asList(
+                release("v1.2.0", false, false, "2020-04-01T00:00:00Z"),
+                release("v1.0.0", false, false, "2020-02-01T00:00:00Z")));
+
+        assertThat(index.contains("owner/repo", "v1.1.0"), is(false));
+        assertThat(index.contains("owner/repo", "v0.9.0"), is(true));
+        assertThat(index.latest("owner/repo", null, release -> true).get().getTagName(), is("v1.2.0"));
+        assertThat(index.isListedWithin("owner/repo", 60_000), is(true));
+        now.addAndGet(60_000);
+        assertThat(index.isListedWithin("owner/repo", 60_000), is(false));
+        assertThat(index.isListedWithin("owner/other", 60_000), is(false));
+    }
+
+    @Test
+    public void shouldForgetListingOnceAllReleasesAreEvicted() {
+        ReleaseIndex index = new ReleaseIndex(1024);
+        index.putListing("owner/old", Collections.singletonList(release("v1")));
+        for (int i = 0; i < 20; i++) {
+            index.put("owner/new", release("v" + i));
+        }
+
+        assertThat(index.hasReleases("owner/old"), is(false));
+        assertThat(index.isListedWithin("owner/old", 60_000), is(false));
+        assertThat(index.hasReleases("owner/new"), is(true));
+    }
+
+    @Test
+    public void shouldDropReleasesMissingFromCompleteListing() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.put("owner/repo", release("v0.9.0", false, false, "2019-01-01T00:00:00Z"));
+        index.put("owner/repo", release("v1.1.0", false, false, "2020-03-01T00:00:00Z"));
+
+        Set<String> deleted = index.putListing("owner/repo", Arrays.asList(
+                release("v1.2.0", false, false, "2020-04-01T00:00:00Z"),
+                release("v1.0.0", false, false, "2020-02-01T00:00:00Z")), true);
+
+        assertThat(deleted, is(new HashSet<>(Arrays.asList("v0.9.0", "v1.1.0"))));
+        assertThat(index.contains("owner/repo", "v0.9.0"), is(false));
+        assertThat(index.isComplete("owner/repo"), is(true));
+    }
+
+    @Test
+    public void shouldStayCompleteOnlyWhileListingsReachIndexedReleases() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        assertThat(index.isComplete("owner/repo"), is(false));
+        index.putListing("owner/repo", Collections.singletonList(release("v1.0.0")), true);
+
+        index.putListing("owner/repo", Arrays.asList(release("v1.1.0"), release("v1.0.0")));
+        assertThat(index.isComplete("owner/repo"), is(true));
+
+        index.putListing("owner/repo", Collections.singletonList(release("v2.0.0")));
+        assertThat(index.isComplete("owner/repo"), is(false));
+    }
+
+    @Test
+    public void shouldRenewListingOnlyWhileItsNewestReleaseIsUnchanged() {
+        AtomicLong now = new AtomicLong(1000);
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024, now::get);
+        index.putListing("owner/repo", Arrays.asList(release("v1.1.0"), release("v2.0.0")), true);
+        now.addAndGet(60_000);
+
+        assertThat(index.confirmListing("owner/repo", "v1.2.0"), is(false));
+        assertThat(index.isListedWithin("owner/repo", 60_000), is(false));
+        assertThat(index.confirmListing("owner/repo", "v1.1.0"), is(true));
+        assertThat(index.isListedWithin("owner/repo", 60_000), is(true));
+
+        index.remove("owner/repo", "v1.1.0");
+        assertThat(index.confirmListing("owner/repo", "v1.1.0"), is(false));
+    }
+
+    @Test
+    public void shouldNotBeCompleteWithRestoredReleases() {
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        index.putListing("owner/repo", Collections.singletonList(release("v1.0.0")), true);
+
+        index.putAll("owner/repo", Collections.singletonList(release("v3.0.0")));
+
+        assertThat(index.isComplete("owner/repo"), is(false));
+    }
+
+    @Test
+    public void shouldNotBeCompleteOnceAReleaseIsEvicted() {
+        ReleaseIndex index = new ReleaseIndex(1400);
+        index.putListing("owner/old", Arrays.asList(release("v2"), release("v1")), true);
+        assertThat(index.isComplete("owner/old"), is(true));
+
+        index.put("owner/new", release("v1"));
+        index.put("owner/new", release("v2"));
+
+        assertThat(index.hasReleases("owner/old"), is(true));
+        assertThat(index.isComplete("owner/old"), is(false));
+    }
+
+    private static GitHubRelease release(String tag, boolean draft, boolean prerelease, String publishedAt) {
+        return new GitHubRelease(tag, "release " + tag, "body of " + tag, draft, prerelease, publishedAt, Collections.emptyList());
+    }
+
+    private static GitHubRelease release(String tag) {
+        return new GitHubRelease(tag, "release " + tag, "body of " + tag, false, false, "2020-01-01T00:00:00Z",
+                Collections.singletonList(new GitHubRelease.Asset("plugin.jar", 42, "https://example.com/" + tag + "/plugin.jar")));
+    }
+}
@@ -0,0 +1,139 @@
+package io.cogniflare.gocd.github.gitRemoteProvider.github;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WebhookReceiverTest {
+    private static final String SECRET = "It's a Secret to Everybody";
+    private static final String RELEASE = "{\"action\": \"published\", " +
+            "\"release\": {\"tag_name\": \"v2.0.0\", \"name\": \"Two\", \"body\": \"notes\", \"draft\": false, \"published_at\": \"2020-02-01T00:00:00Z\", " +
+            "\"assets\": [{\"name\": \"plugin.jar\", \"browser_download_url\": \"https://github.com/owner/repo/releases/download/v2.0.0/plugin.jar\"}]}, " +
+            "\"repository\": {\"full_name\": \"Owner/Repo\", \"url\": \"https://api.github.com/repos/Owner/Repo\"}}";
+    private static final String TAG_PUSH = "{\"ref\": \"refs/tags/v2.0.1\", " +
+            "\"repository\": {\"full_name\": \"owner/repo\", \"url\": \"https://github.corp.com/api/v3/repos/owner/repo\"}}";
+
+    private final List<String> events = new ArrayList<>();
+    private WebhookReceiver receiver;
+
+    @Before
+    public void setUp() throws IOException {
+        receiver = new WebhookReceiver(new InetSocketAddress("127.0.0.1", 0), SECRET, new WebhookReceiver.Listener() {
+            @Override
+            public void onDelivery(String repository) {
+                events.add("delivery " + repository);
+            }
+
+            @Override
+            public void onRelease(String repository, String action, GitHubRelease release) {
+                events.add(String.format("release %s %s %s %s", repository, action, release.getTagName(), release.getAssets().get(0).getBrowserDownloadUrl()));
+            }
+
+            @Override
+            public void onTagPush(String repository, String tag) {
+                events.add(String.format("tag %s %s", repository, tag));
+            }
+        });
+        receiver.start();
+    }
+
+    @After
+    public void tearDown() {
+        receiver.stop();
+    }
+
+    @Test
+    public void shouldSignLikeGitHub() {
+        // example of the GitHub webhook documentation
+        assertThat(WebhookReceiver.sign(SECRET.getBytes(StandardCharsets.UTF_8), "Hello, World!".getBytes(StandardCharsets.UTF_8)),
+                is("sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"));
+    }
+
+    @Test
+    public void shouldPassOnSignedReleaseEvent() throws IOException {
+        int status = send("release", RELEASE, WebhookReceiver.sign(SECRET.getBytes(StandardCharsets.UTF_8), RELEASE.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(status, is(204));
+        assertThat(events.get(0), is("delivery https://api.github.com/owner/repo"));
+        assertThat(events.get(1), is("release https://api.github.com/owner/repo published v2.0.0 https://github.com/owner/repo/releases/download/v2.0.0/plugin.jar"));
+        assertThat(receiver.getAccepted(), is(1L));
+    }
+
+    @Test
+    public void shouldPassOnTagPushOfEnterpriseRepository() throws IOException {
+        int status = send("push", TAG_PUSH, WebhookReceiver.sign(SECRET.getBytes(StandardCharsets.UTF_8), TAG_PUSH.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(status, is(204));
+        assertThat(events.get(1), is("tag https://github.corp.com/api/v3/owner/repo v2.0.1"));
+    }
+
+    @Test
+    public void shouldRejectDeliveryWithWrongSignature() throws IOException {
+        String forged = WebhookReceiver.sign("guess".getBytes(StandardCharsets.UTF_8), RELEASE.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(send("release", RELEASE, forged), is(401));
+        assertThat(send("release", RELEASE, null), is(401));
+        assertThat(events.isEmpty(), is(true));
+        assertThat(receiver.getRejected(), is(2L));
+    }
+
+    @Test
+    public void shouldAcceptSignedEventWithoutRepository() throws IOException {
+        String ping = "{\"zen\": \"Keep it logically awesome.\"}";
+
+        assertThat(send("ping", ping, WebhookReceiver.sign(SECRET.getBytes(StandardCharsets.UTF_8), ping.getBytes(StandardCharsets.UTF_8))), is(204));
+        assertThat(events.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRejectMalformedPayload() throws IOException {
+        String malformed = "{\"repository\": [";
+
+        assertThat(send("push", malformed, WebhookReceiver.sign(SECRET.getBytes(StandardCharsets.UTF_8), malformed.getBytes(StandardCharsets.UTF_8))), is(400));
+    }
+
+    @Test
+    public void shouldUpdateFeedOfRepository() throws IOException {
+        receiver.stop();
+        ReleaseIndex index = new ReleaseIndex(1024 * 1024);
+        ReleaseFeed feed = new ReleaseFeed(index, 60_000);
+        receiver = new WebhookReceiver(new InetSocketAddress("127.0.0.1", 0), SECRET, feed);
+        receiver.start();
+
+        send("release", RELEASE, WebhookReceiver.sign(SECRET.getBytes(StandardCharsets.UTF_8), RELEASE.getBytes(StandardCharsets.UTF_8)));
+
+        String repository = GitHubCoordinates.key(GitHubCoordinates.GITHUB_CLOUD_API, "owner/repo");
+        assertThat(feed.latestRelease(repository).get(), is("v2.0.0"));
+        assertThat(index.get(repository, "v2.0.0").get().getBody(), is("notes"));
+    }
+
+    private int send(String event, String payload, String signature) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(String.format("http://127.0.0.1:%d%s", receiver.getPort(), WebhookReceiver.PATH)).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("X-GitHub-Event", event);
+        if (signature != null) {
+            connection.setRequestProperty("X-Hub-Signature-256", signature);
+        }
+        try (OutputStream out = connection.getOutputStream()) {
+            IOUtils.write(payload, out, StandardCharsets.UTF_8);
+        }
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        return status;
+    }
+}
@@ -0,0 +1,80 @@
+package io.cogniflare.gocd.github.messages;
+
+import com.tw.go.plugin.model.ModifiedFile;
+import com.tw.go.plugin.model.Revision;
+import io.cogniflare.gocd.github.util.JSONUtils;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PolledRevisionTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldWriteRevisionAsGoCDExpectsIt() {
+        Date timestamp = new Date(1_600_000_123_456L);
+        Revision commit = new Revision("abc123", timestamp, "Release \"1.0\"", "dev", "dev@example.com",
+                Arrays.asList(new ModifiedFile("a.txt", "added"), new ModifiedFile("b.txt", "deleted")));
+
+        Map<String, Object> json = (Map<String, Object>) JSONUtils.fromJSON(JSONUtils.toJSON(
+                new LatestRevisionResponse(new PolledRevision("v1.0.0", commit, Collections.singletonMap("RELEASE_TAG", "v1.0.0")))));
+
+        Map<String, Object> revision = (Map<String, Object>) json.get("revision");
+        assertThat(revision.get("revision"), is("v1.0.0"));
+        assertThat(revision.get("user"), is("dev"));
+        assertThat(revision.get("timestamp"), is(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").format(timestamp)));
+        assertThat(revision.get("revisionComment"), is("Release \"1.0\""));
+        List<Map<String, String>> files = (List<Map<String, String>>) revision.get("modifiedFiles");
+        assertThat(files.size(), is(2));
+        assertThat(files.get(1).get("fileName"), is("b.txt"));
+        assertThat(files.get(1).get("action"), is("deleted"));
+        assertThat(((Map<String, String>) revision.get("data")).get("RELEASE_TAG"), is("v1.0.0"));
+        assertThat(json.get("scm-data"), is((Object) Collections.emptyMap()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldLeaveOutMissingValues() {
+        Revision commit = new Revision("abc123", new Date(), null, "dev", null, null);
+
+        Map<String, Object> revision = (Map<String, Object>) JSONUtils.fromJSON(JSONUtils.toJSON(
+                new PolledRevision("abc123", commit, Collections.emptyMap())));
+
+        assertThat(revision.containsKey("revisionComment"), is(false));
+        assertThat(((List<Object>) revision.get("modifiedFiles")).isEmpty(), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldAppendSerializedRevisionsAfterRelease() {
+        Revision release = new Revision("abc123", new Date(), "Release", "dev", null, null);
+        Revision commit = new Revision("def456", new Date(), "Fix", "dev", null, null);
+        String serialized = JSONUtils.toJSON(new PolledRevision("def456", commit, Collections.emptyMap()));
+
+        Map<String, Object> json = (Map<String, Object>) JSONUtils.fromJSON(JSONUtils.toJSON(new LatestRevisionsSinceResponse(
+                Collections.singletonList(new PolledRevision("v1.0.0", release, Collections.emptyMap())), serialized + "," + serialized)));
+
+        List<Map<String, Object>> revisions = (List<Map<String, Object>>) json.get("revisions");
+        assertThat(revisions.size(), is(3));
+        assertThat(revisions.get(0).get("revision"), is("v1.0.0"));
+        assertThat(revisions.get(2).get("revision"), is("def456"));
+        assertThat(json.get("scm-data"), is((Object) Collections.emptyMap()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldWriteEmptyRevisionsSince() {
+        Map<String, Object> json = (Map<String, Object>) JSONUtils.fromJSON(JSONUtils.toJSON(
+                new LatestRevisionsSinceResponse(Collections.emptyList())));
+
+        assertThat(((List<Object>) json.get("revisions")).isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,38 @@
+package io.cogniflare.gocd.github.settings.scm;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class DefaultScmPluginConfigurationViewTest {
+    private final DefaultScmPluginConfigurationView view = new DefaultScmPluginConfigurationView();
+
+    @Test
+    public void shouldShareCompiledFilterOfSameOptions() {
+        Map<String, String> configuration = configuration("*-rc*", "v1.*");
+
+        assertThat(view.getBranchFilter(configuration), is(sameInstance(view.getBranchFilter(configuration("*-rc*", "v1.*")))));
+        assertThat(view.getBranchFilter(configuration), is(not(sameInstance(view.getBranchFilter(configuration("*-rc*", "v2.*"))))));
+        assertThat(view.getBranchFilter(configuration).isBranchValid("v1.2.0"), is(true));
+        assertThat(view.getBranchFilter(configuration).isBranchValid("v1.2.0-rc1"), is(false));
+    }
+
+    @Test
+    public void shouldTellMissingOptionFromLiteralPattern() {
+        assertThat(view.getBranchFilter(configuration(null, null)).isEmpty(), is(true));
+        assertThat(view.getBranchFilter(configuration(null, "null")).isEmpty(), is(false));
+    }
+
+    private static Map<String, String> configuration(String blacklist, String whitelist) {
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put(DefaultScmPluginConfigurationView.TAG_BLACKLIST, blacklist);
+        configuration.put(DefaultScmPluginConfigurationView.TAG_WHITELIST, whitelist);
+        return configuration;
+    }
+}
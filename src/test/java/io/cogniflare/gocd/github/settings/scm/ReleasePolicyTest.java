@@ -0,0 +1,67 @@
+package io.cogniflare.gocd.github.settings.scm;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ReleasePolicyTest {
+
+    @Test
+    public void shouldAcceptEveryReleaseByDefault() {
+        assertThat(ReleasePolicy.ANY.accepts("v1.0.0", true, true), is(true));
+        assertThat(ReleasePolicy.ANY.accepts("nightly", false, false), is(true));
+        assertThat(ReleasePolicy.ANY.isAny(), is(true));
+    }
+
+    @Test
+    public void shouldExcludeDrafts() {
+        ReleasePolicy policy = new ReleasePolicy(true, false, null);
+
+        assertThat(policy.accepts("v1.0.0", true, false), is(false));
+        assertThat(policy.accepts("v1.0.0", false, true), is(true));
+    }
+
+    @Test
+    public void shouldExcludeReleasesMarkedOrVersionedAsPreReleases() {
+        ReleasePolicy policy = new ReleasePolicy(false, true, null);
+
+        assertThat(policy.accepts("v1.0.0", false, true), is(false));
+        assertThat(policy.accepts("v1.0.0-rc.1", false, false), is(false));
+        assertThat(policy.accepts("v1.0.0", false, false), is(true));
+        assertThat(policy.accepts("nightly", false, false), is(true));
+    }
+
+    @Test
+    public void shouldOnlyAcceptSemverReleasesOfPinnedMajorVersion() {
+        ReleasePolicy policy = new ReleasePolicy(false, false, 2);
+
+        assertThat(policy.accepts("v2.3.1", false, false), is(true));
+        assertThat(policy.accepts("2.0.0-beta", false, false), is(true));
+        assertThat(policy.accepts("v3.0.0", false, false), is(false));
+        assertThat(policy.accepts("nightly", false, false), is(false));
+    }
+
+    @Test
+    public void shouldReadPolicyFromConfiguration() {
+        Map<String, String> configuration = new HashMap<>();
+        configuration.put("excludeDrafts", "true");
+        configuration.put("pinMajorVersion", " v3 ");
+
+        ReleasePolicy policy = new DefaultScmPluginConfigurationView().getSettings(configuration).getReleasePolicy();
+
+        assertThat(policy.isExcludeDrafts(), is(true));
+        assertThat(policy.isExcludePreReleases(), is(false));
+        assertThat(policy.getPinnedMajor(), is(3));
+        assertThat(DefaultScmPluginConfigurationView.parseMajorVersion(""), is(nullValue()));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectInvalidMajorVersion() {
+        DefaultScmPluginConfigurationView.parseMajorVersion("2.x");
+    }
+}
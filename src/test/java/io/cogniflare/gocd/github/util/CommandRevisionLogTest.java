@@ -0,0 +1,95 @@
+package io.cogniflare.gocd.github.util;
+
+import com.tw.go.plugin.model.Revision;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CommandRevisionLogTest {
+    private File workspace;
+    private GitCommand git;
+
+    @Before
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("revision-log").toFile();
+        git = new GitCommand(workspace);
+        git.run("init", "-q");
+        commit("first", "a.txt");
+        git.run("tag", "v1.0.0");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    @Test
+    public void shouldReadCommitsSinceRevisionNewestFirst() throws IOException {
+        commit("second\n\nwith a body", "b.txt", "a.txt");
+        git.run("rm", "-q", "b.txt");
+        commit("third");
+
+        BoundedHistory history = new CommandRevisionLog(git).since("v1.0.0", new RevisionLimits(10, 10, 100));
+
+        assertThat(history.isTruncated(), is(false));
+        assertThat(history.getEntries().size(), is(2));
+        Revision third = history.getEntries().get(0).getRevision();
+        assertThat(third.getComment(), is("third"));
+        assertThat(third.getUser(), is("test"));
+        assertThat(third.getModifiedFiles().get(0).getFileName(), is("b.txt"));
+        assertThat(third.getModifiedFiles().get(0).getAction(), is("deleted"));
+        Revision second = history.getEntries().get(1).getRevision();
+        assertThat(second.getComment(), is("second\n\nwith a body"));
+        assertThat(second.getModifiedFiles().size(), is(2));
+        assertThat(second.getRevision(), is(git.run("rev-parse", "HEAD~1").trim()));
+    }
+
+    @Test
+    public void shouldStopAtCommitLimit() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            commit("commit " + i, "file" + i + ".txt");
+        }
+
+        BoundedHistory history = new CommandRevisionLog(git).since("v1.0.0", new RevisionLimits(3, 10, 100));
+
+        assertThat(history.isTruncated(), is(true));
+        assertThat(history.getEntries().size(), is(3));
+        assertThat(history.getEntries().get(2).getRevision().getComment(), is("commit 2"));
+    }
+
+    @Test
+    public void shouldCapFilesAndCommentOfACommit() throws IOException {
+        commit("a long message", "b.txt", "c.txt", "d.txt");
+
+        BoundedHistory.Entry entry = new CommandRevisionLog(git).since("v1.0.0", new RevisionLimits(10, 2, 6)).getEntries().get(0);
+
+        assertThat(entry.isFilesTruncated(), is(true));
+        assertThat(entry.isCommentTruncated(), is(true));
+        assertThat(entry.getRevision().getModifiedFiles().size(), is(2));
+        assertThat(entry.getRevision().getComment(), is("a long"));
+    }
+
+    @Test
+    public void shouldReportNothingWhenAtRevision() throws IOException {
+        BoundedHistory history = new CommandRevisionLog(git).since("v1.0.0", new RevisionLimits(10, 10, 100));
+
+        assertThat(history.getEntries().isEmpty(), is(true));
+        assertThat(history.isTruncated(), is(false));
+    }
+
+    private void commit(String message, String... files) throws IOException {
+        for (String file : files) {
+            FileUtils.writeStringToFile(new File(workspace, file), message);
+            git.run("add", file);
+        }
+        git.run("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "--allow-empty", "-m", message);
+    }
+}
@@ -0,0 +1,89 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FolderLocksTest {
+
+    @Test
+    public void shouldLockFolderWhateverPathItIsReachedThrough() {
+        FolderLocks locks = new FolderLocks(16);
+        File folder = new File("flyweight", "abc");
+
+        try (FolderLocks.Held ignored = locks.lock(new File("flyweight/../flyweight/./abc"))) {
+            assertThat(locks.isLocked(folder.getAbsoluteFile()), is(true));
+        }
+        assertThat(locks.isLocked(folder), is(false));
+    }
+
+    @Test
+    public void shouldSerializeRequestsForTheSameFolder() throws Exception {
+        FolderLocks locks = new FolderLocks(16);
+        File folder = new File("flyweight", "abc");
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 100; j++) {
+                        try (FolderLocks.Held ignored = locks.lock(folder)) {
+                            if (inside.incrementAndGet() > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            Thread.yield();
+                            inside.decrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(overlaps.get(), is(0));
+    }
+
+    @Test
+    public void shouldNotBlockOtherStripes() throws Exception {
+        FolderLocks locks = new FolderLocks(1024);
+        File held = new File("flyweight", "held");
+        File other = null;
+        for (int i = 0; other == null; i++) {
+            File candidate = new File("flyweight", "other-" + i);
+            try (FolderLocks.Held ignored = locks.lock(held)) {
+                if (!locks.isLocked(candidate)) {
+                    other = candidate;
+                }
+            }
+        }
+
+        File free = other;
+        try (FolderLocks.Held ignored = locks.lock(held)) {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                executor.submit(() -> locks.lock(free).close()).get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
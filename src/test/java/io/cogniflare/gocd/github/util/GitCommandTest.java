@@ -0,0 +1,52 @@
+package io.cogniflare.gocd.github.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class GitCommandTest {
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("git-command").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    @Test
+    public void shouldReportStandardErrorOfFailedCommand() {
+        try {
+            new GitCommand(folder).run("rev-parse", "HEAD");
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("git rev-parse failed with exit code 128: fatal: not a git repository"));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldKillCommandRunningPastTimeout() throws IOException {
+        // the credential cache daemon serves until it is killed
+        File socket = new File(folder, "socket");
+
+        try {
+            new GitCommand(folder, 500).run("credential-cache--daemon", socket.getAbsolutePath());
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("git credential-cache--daemon timed out after 500 ms"));
+        }
+    }
+}
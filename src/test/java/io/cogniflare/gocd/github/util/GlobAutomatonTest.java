@@ -0,0 +1,145 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.Test;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.PatternSyntaxException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GlobAutomatonTest {
+
+    @Test
+    public void shouldMatchLikePathMatcher() {
+        List<String> globs = Arrays.asList("v*", "v?.*", "release/*", "release/**", "**-rc", "[a-c]*", "[!a-c]?", "{v,release-}1.{0,1,}*",
+                "v[0-9].[0-9]", "\\*literal", "*{-beta,-alpha}", "{,pre}fix");
+        List<String> names = Arrays.asList("", "v", "v1", "v1.0", "v1.0.0", "v1.x", "v10", "release/1.0", "release/1.0/hotfix", "release-1.0",
+                "1.0-rc", "a/b-rc", "alpha", "beta", "cat", "d", "dx", "x/", "v1.1-beta", "v1.2-alpha", "*literal", "literal", "fix", "prefix",
+                "v1.", "v1-beta/x", "1.0.0", "release-1.2");
+        for (String glob : globs) {
+            PathMatcher expected = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            GlobAutomaton automaton = GlobAutomaton.builder().add(glob, 0).build();
+            for (String name : names) {
+                if (name.endsWith("/") || name.isEmpty()) {
+                    // paths drop a trailing separator
+                    continue;
+                }
+                assertThat(glob + " ~ " + name, automaton.matches(name, 0), is(expected.matches(FileSystems.getDefault().getPath(name))));
+            }
+        }
+    }
+
+    @Test
+    public void shouldTellWhichGroupsMatch() {
+        GlobAutomaton automaton = GlobAutomaton.builder()
+                .add("v1.*", 0)
+                .add("v2.*", 0)
+                .add("*-rc*", 1)
+                .add("v2.0*", 2)
+                .build();
+
+        assertThat(automaton.match("v1.4"), is(1));
+        assertThat(automaton.match("v2.0-rc1"), is(1 | 2 | 4));
+        assertThat(automaton.match("v3.0-rc1"), is(2));
+        assertThat(automaton.match("v3.0"), is(0));
+    }
+
+    @Test
+    public void shouldMatchNothingWithoutPatterns() {
+        GlobAutomaton automaton = GlobAutomaton.builder().build();
+
+        assertThat(automaton.match(""), is(0));
+        assertThat(automaton.match("v1.0.0"), is(0));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldMatchManyStarsInLinearTime() {
+        // takes a backtracking matcher about forever
+        GlobAutomaton automaton = GlobAutomaton.builder().add("*a*a*a*a*a*a*a*a*a*a*a*a*b", 0).build();
+        String name = String.join("", Collections.nCopies(20_000, "a"));
+
+        assertThat(automaton.matches(name, 0), is(false));
+        assertThat(automaton.matches(name + "b", 0), is(true));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldMatchRepeatedGroupsInLinearTime() {
+        StringBuilder glob = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            glob.append("{a,aa,aaa,}");
+        }
+        GlobAutomaton automaton = GlobAutomaton.builder().add(glob.append("b").toString(), 0).build();
+        String name = String.join("", Collections.nCopies(60, "a"));
+
+        assertThat(automaton.matches(name, 0), is(false));
+        assertThat(automaton.matches(name + "b", 0), is(true));
+        assertThat(automaton.matches(String.join("", Collections.nCopies(91, "a")) + "b", 0), is(false));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldMatchDoubleStarsAcrossSegmentsInLinearTime() {
+        GlobAutomaton automaton = GlobAutomaton.builder().add("**/**/**/**/**/**/**/**/x", 0).build();
+        String name = String.join("/", Collections.nCopies(5_000, "seg"));
+
+        assertThat(automaton.matches(name, 0), is(false));
+        assertThat(automaton.matches(name + "/x", 0), is(true));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldFilterThousandsOfTagsAgainstThousandsOfPatterns() {
+        GlobAutomaton.Builder builder = GlobAutomaton.builder();
+        for (int i = 0; i < 2_000; i++) {
+            builder.add(String.format("release-%d.*", i), 0);
+        }
+        GlobAutomaton automaton = builder.add("*-{alpha,beta,rc}*", 1).build();
+
+        int whitelisted = 0;
+        int blacklisted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int groups = automaton.match(String.format("release-%d.%d%s", i, i % 7, i % 3 == 0 ? "-rc1" : ""));
+            whitelisted += groups & 1;
+            blacklisted += (groups >> 1) & 1;
+        }
+
+        assertThat(whitelisted, is(2_000));
+        assertThat(blacklisted, is(3_334));
+    }
+
+    @Test
+    public void shouldStayCorrectPastMaximumNumberOfDfaStates() {
+        // the DFA of "13th character from the end is an a" has 2^13 states
+        GlobAutomaton automaton = GlobAutomaton.builder().add("**a????????????", 0).build();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            char[] name = new char[13 + random.nextInt(20)];
+            for (int j = 0; j < name.length; j++) {
+                name[j] = random.nextBoolean() ? 'a' : 'b';
+            }
+            String value = new String(name);
+            assertThat(value, automaton.matches(value, 0), is(value.charAt(value.length() - 13) == 'a'));
+        }
+        assertTrue(automaton.getDStateCount() <= GlobAutomaton.MAX_DFA_STATES);
+    }
+
+    @Test
+    public void shouldRejectInvalidPatterns() {
+        List<String> invalid = new ArrayList<>(Arrays.asList("v[0-9", "{a,b", "{a,{b,c}}", "trailing\\", "[z-a]"));
+        for (String glob : invalid) {
+            try {
+                GlobAutomaton.builder().add(glob, 0);
+                fail("should reject " + glob);
+            } catch (PatternSyntaxException e) {
+                assertThat(e.getPattern(), is(glob));
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.cogniflare.gocd.github.util;
+
+import com.tw.go.plugin.model.GitConfig;
+import com.tw.go.plugin.model.Revision;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class JGitHelperTest {
+    private static final String TAGS = "+refs/tags/*:refs/tags/*";
+
+    private File workspace;
+    private GitCommand origin;
+    private JGitRepositories repositories;
+
+    @Before
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("jgit").toFile();
+        File folder = new File(workspace, "origin");
+        folder.mkdirs();
+        origin = new GitCommand(folder);
+        origin.run("init", "-q");
+        commit("first", "a.txt");
+        origin.run("tag", "v1.0.0");
+        repositories = new JGitRepositories(2);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    @Test
+    public void shouldCloneFetchAndResetToTag() throws IOException {
+        commit("second", "b.txt");
+        commit("third", "c.txt");
+        origin.run("tag", "v1.1.0");
+        JGitHelper git = helper(new File(workspace, "flyweight"));
+
+        git.cloneOrFetch(TAGS);
+        git.resetHard("v1.1.0");
+
+        Revision latest = git.getLatestRevision();
+        assertThat(latest.getRevision(), is(origin.run("rev-parse", "v1.1.0").trim()));
+        assertThat(latest.getComment(), is("third"));
+        assertThat(latest.getModifiedFiles().get(0).getFileName(), is("c.txt"));
+        assertThat(latest.getModifiedFiles().get(0).getAction(), is("added"));
+
+        List<Revision> since = git.getRevisionsSince("v1.0.0");
+        assertThat(since.size(), is(2));
+        assertThat(since.get(1).getComment(), is("second"));
+    }
+
+    @Test
+    public void shouldBoundHistorySinceRevision() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            commit("change " + i, "file" + i + ".txt");
+        }
+        origin.run("tag", "v1.1.0");
+        JGitHelper git = helper(new File(workspace, "flyweight"));
+        git.cloneOrFetch(TAGS);
+        git.resetHard("v1.1.0");
+
+        BoundedHistory history = git.since("v1.0.0", new RevisionLimits(3, 10, 6));
+
+        assertThat(history.isTruncated(), is(true));
+        assertThat(history.getEntries().size(), is(3));
+        assertThat(history.getEntries().get(0).getRevision().getComment(), is("change"));
+        assertThat(history.getEntries().get(0).isCommentTruncated(), is(true));
+    }
+
+    @Test
+    public void shouldReuseRepositoryHandleOfFolder() throws IOException {
+        File folder = new File(workspace, "flyweight");
+        helper(folder).cloneOrFetch(TAGS);
+        commit("second", "b.txt");
+        origin.run("tag", "v1.1.0");
+
+        JGitHelper git = helper(folder);
+        git.cloneOrFetch(TAGS);
+        git.resetHard("v1.1.0");
+
+        assertThat(repositories.size(), is(1));
+        assertThat(git.currentRevision(), is(origin.run("rev-parse", "v1.1.0").trim()));
+    }
+
+    @Test
+    public void shouldCloneAgainWhenUrlChanges() throws IOException {
+        File folder = new File(workspace, "flyweight");
+        helper(folder).cloneOrFetch(TAGS);
+        File other = new File(workspace, "other");
+        FileUtils.copyDirectory(origin.getWorkingDir(), other);
+
+        JGitHelper git = new JGitHelper(new GitConfig("file://" + other.getAbsolutePath()), folder, repositories);
+        git.cloneOrFetch(TAGS);
+
+        assertThat(git.workingRepositoryUrl(), is("file://" + other.getAbsolutePath()));
+    }
+
+    @Test
+    public void shouldCloseLeastRecentlyUsedHandles() throws IOException {
+        for (String name : new String[]{"one", "two", "three"}) {
+            helper(new File(workspace, name)).cloneOrFetch(TAGS);
+        }
+
+        assertThat(repositories.size(), is(2));
+    }
+
+    private JGitHelper helper(File folder) {
+        return new JGitHelper(new GitConfig("file://" + origin.getWorkingDir().getAbsolutePath()), folder, repositories);
+    }
+
+    private void commit(String message, String file) throws IOException {
+        FileUtils.writeStringToFile(new File(origin.getWorkingDir(), file), message);
+        origin.run("add", file);
+        origin.run("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", message);
+    }
+}
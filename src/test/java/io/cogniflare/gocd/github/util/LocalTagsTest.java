@@ -0,0 +1,78 @@
+package io.cogniflare.gocd.github.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LocalTagsTest {
+    private File repository;
+    private GitCommand git;
+
+    @Before
+    public void setUp() throws IOException {
+        repository = Files.createTempDirectory("local-tags").toFile();
+        git = new GitCommand(repository);
+        git.run("init", "-q");
+        git.run("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "--allow-empty", "-m", "first");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(repository);
+    }
+
+    @Test
+    public void shouldPickHighestSemanticVersion() throws IOException {
+        tag("v1.9.0");
+        tag("v1.10.0");
+        tag("v2.0.0-rc.1");
+        tag("nightly");
+
+        assertThat(new LocalTags(git).latest().get().getName(), is("v2.0.0-rc.1"));
+    }
+
+    @Test
+    public void shouldPeelAnnotatedTagsAndReadAnnotation() throws IOException {
+        String head = git.run("rev-parse", "HEAD").trim();
+        git.run("-c", "user.name=test", "-c", "user.email=test@example.com", "tag", "-a", "v1.0.0", "-m", "First release\n\nWith notes");
+        tag("v0.9.0");
+
+        GitTag annotated = new LocalTags(git).get("v1.0.0").get();
+        GitTag lightweight = new LocalTags(git).get("v0.9.0").get();
+
+        assertThat(annotated.getCommit(), is(head));
+        assertThat(annotated.getSubject(), is("First release"));
+        assertThat(annotated.getBody(), is("With notes"));
+        assertThat(lightweight.getCommit(), is(head));
+        assertThat(lightweight.getSubject(), is("v0.9.0"));
+        assertThat(lightweight.getBody(), is(""));
+    }
+
+    @Test
+    public void shouldFallBackToCreatorDateWithoutSemanticVersions() {
+        List<GitTag> tags = LocalTags.parse(record("build-1", 100) + record("build-2", 300) + record("build-3", 200));
+
+        List<String> ordered = tags.stream().sorted(LocalTags.LATEST_FIRST).map(GitTag::getName).collect(Collectors.toList());
+
+        assertThat(ordered.get(0), is("build-2"));
+        assertThat(ordered.get(2), is("build-1"));
+    }
+
+    private void tag(String name) throws IOException {
+        git.run("tag", name);
+    }
+
+    private static String record(String name, long date) {
+        return String.join("\u0000", name, "abc", "", String.valueOf(date), "subject", "") + "\u001e\n";
+    }
+}
@@ -0,0 +1,124 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MetricsTest {
+    private final AtomicLong nanos = new AtomicLong();
+    private final Metrics metrics = new Metrics(3, nanos::get);
+
+    @Test
+    public void shouldBucketLatenciesAndCountErrors() throws IOException {
+        Metrics.Histogram histogram = metrics.histogram("gocd_github_tags_git_seconds", "step", "resetHard", "repository", "https://github.com/owner/repo");
+        histogram.record(3_000_000, false);
+        histogram.record(10_000_000, false);
+        histogram.record(2_000_000_000L, true);
+        histogram.record(600_000_000_000L, false);
+
+        String text = write();
+
+        String labels = "step=\"resetHard\",repository=\"https://github.com/owner/repo\"";
+        assertThat(text, containsString("# TYPE gocd_github_tags_git_seconds histogram\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_bucket{" + labels + ",le=\"0.005\"} 1\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_bucket{" + labels + ",le=\"0.01\"} 2\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_bucket{" + labels + ",le=\"2.5\"} 3\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_bucket{" + labels + ",le=\"300.0\"} 3\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_bucket{" + labels + ",le=\"+Inf\"} 4\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_sum{" + labels + "} 602.013\n"));
+        assertThat(text, containsString("gocd_github_tags_git_seconds_count{" + labels + "} 4\n"));
+        assertThat(text, containsString("# TYPE gocd_github_tags_git_errors_total counter\n"));
+        assertThat(text, containsString("gocd_github_tags_git_errors_total{" + labels + "} 1\n"));
+    }
+
+    @Test
+    public void shouldTimeCallsAndCountThrowingOnesAsErrors() {
+        Metrics.Histogram histogram = metrics.histogram("gocd_github_tags_request_seconds", "request", "latest-revision");
+
+        String value = histogram.time(() -> {
+            nanos.addAndGet(20_000_000);
+            return "v1.0.0";
+        });
+        try {
+            histogram.run(() -> {
+                nanos.addAndGet(20_000_000);
+                throw new IOException("fetch failed");
+            });
+            fail("should rethrow");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("fetch failed"));
+        }
+
+        assertThat(value, is("v1.0.0"));
+        assertThat(histogram.getCount(), is(2L));
+        assertThat(histogram.getErrors(), is(1L));
+        assertThat(metrics.summary().get(0), is("gocd_github_tags_request_seconds{request=\"latest-revision\"} count=2 errors=1 mean=20ms p50<=0.025s p99<=0.025s"));
+    }
+
+    @Test
+    public void shouldFoldLabelValuesPastMaximumNumberOfSeries() {
+        for (int i = 0; i < 5; i++) {
+            metrics.histogram("gocd_github_tags_git_seconds", "step", "cloneOrFetch", "repository", "repo" + i).record(1, false);
+        }
+
+        List<String> summary = metrics.summary();
+
+        assertThat(summary.size(), is(4));
+        assertThat(metrics.histogram("gocd_github_tags_git_seconds", "step", "cloneOrFetch", "repository", "repo1").getCount(), is(1L));
+        assertThat(metrics.histogram("gocd_github_tags_git_seconds", "step", "other", "repository", "other").getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldExposeCountersAndEscapeLabelValues() throws IOException {
+        AtomicLong coalesced = new AtomicLong(7);
+        metrics.counter("gocd_github_tags_fetches_coalesced_total", coalesced::get);
+        metrics.counter("gocd_github_tags_webhook_deliveries_total", () -> 2, "outcome", "rejected \"bad\\signature\"");
+
+        coalesced.incrementAndGet();
+        String text = write();
+
+        assertThat(text, containsString("# TYPE gocd_github_tags_fetches_coalesced_total counter\ngocd_github_tags_fetches_coalesced_total 8\n"));
+        assertThat(text, containsString("gocd_github_tags_webhook_deliveries_total{outcome=\"rejected \\\"bad\\\\signature\\\"\"} 2\n"));
+    }
+
+    @Test
+    public void shouldExposeGauges() throws IOException {
+        AtomicLong remaining = new AtomicLong(5000);
+        metrics.gauge("gocd_github_tags_github_api_remaining", remaining::get, "credential", "anonymous");
+
+        remaining.addAndGet(-20);
+
+        assertThat(write(), is("# TYPE gocd_github_tags_github_api_remaining gauge\ngocd_github_tags_github_api_remaining{credential=\"anonymous\"} 4980\n"));
+    }
+
+    @Test
+    public void shouldReplaceReportedFile() throws IOException {
+        File folder = Files.createTempDirectory("metrics").toFile();
+        File file = new File(folder, "gocd-github-tags.prom");
+        Files.write(file.toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+        metrics.histogram("gocd_github_tags_request_seconds", "request", "checkout").record(1_000, false);
+
+        new MetricsReporter(metrics, file, false).report();
+
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertThat(text, is(write()));
+        assertThat(new File(folder, "gocd-github-tags.prom.tmp").exists(), is(false));
+    }
+
+    private String write() throws IOException {
+        StringWriter out = new StringWriter();
+        metrics.write(out);
+        return out.toString();
+    }
+}
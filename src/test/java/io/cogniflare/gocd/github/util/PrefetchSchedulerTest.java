@@ -0,0 +1,168 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PrefetchSchedulerTest {
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private PrefetchScheduler<String> scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldPrefetchRegisteredTargetOncePerInterval() throws Exception {
+        List<String> prefetched = new CopyOnWriteArrayList<>();
+        scheduler = scheduler(prefetched::add, 1);
+
+        scheduler.register("flyweight", "config");
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getPrefetched() == 1);
+        scheduler.runDue();
+        now.addAndGet(59_000);
+        scheduler.runDue();
+        now.addAndGet(1_000);
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getPrefetched() == 2);
+
+        assertThat(prefetched.size(), is(2));
+    }
+
+    @Test
+    public void shouldPrefetchLatestConfigurationOfTarget() throws Exception {
+        List<String> prefetched = new CopyOnWriteArrayList<>();
+        scheduler = scheduler(prefetched::add, 1);
+
+        scheduler.register("flyweight", "old");
+        scheduler.register("flyweight", "new");
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getPrefetched() == 1);
+
+        assertThat(prefetched.get(0), is("new"));
+        assertThat(scheduler.size(), is(1));
+    }
+
+    @Test
+    public void shouldSpreadNewTargetsOverJitter() throws Exception {
+        List<String> prefetched = new CopyOnWriteArrayList<>();
+        Random random = new Random() {
+            private int calls;
+
+            @Override
+            public double nextDouble() {
+                return calls++ == 0 ? 0.0 : 0.5;
+            }
+        };
+        scheduler = new PrefetchScheduler<>(prefetched::add, 60_000, 10_000, 2, 3_600_000, now::get, random);
+
+        scheduler.register("first", "first");
+        scheduler.register("second", "second");
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getPrefetched() == 1);
+        now.addAndGet(5_000);
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getPrefetched() == 2);
+
+        assertThat(prefetched.get(0), is("first"));
+        assertThat(prefetched.get(1), is("second"));
+    }
+
+    @Test
+    public void shouldCapConcurrentPrefetchesAndNotOverlapSameTarget() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler = scheduler(target -> {
+            started.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, 2);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.register("flyweight-" + i, "config-" + i);
+        }
+        scheduler.runDue();
+        waitUntil(() -> started.get() == 2);
+        // still running or queued, not due again
+        now.addAndGet(120_000);
+        scheduler.runDue();
+        release.countDown();
+        waitUntil(() -> scheduler.getPrefetched() == 5);
+        Thread.sleep(100);
+
+        assertThat(maxRunning.get(), is(2));
+        assertThat(started.get(), is(5));
+    }
+
+    @Test
+    public void shouldRetryFailedPrefetchNextInterval() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        scheduler = scheduler(target -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("rate limited");
+            }
+        }, 1);
+
+        scheduler.register("flyweight", "config");
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getFailed() == 1);
+        now.addAndGet(60_000);
+        scheduler.runDue();
+        waitUntil(() -> scheduler.getPrefetched() == 1);
+
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    public void shouldDropTargetsNotPolledForAWhile() throws Exception {
+        scheduler = scheduler(target -> {
+        }, 1);
+
+        scheduler.register("idle", "config");
+        scheduler.register("busy", "config");
+        now.addAndGet(3_000_000);
+        scheduler.register("busy", "config");
+        now.addAndGet(1_000_000);
+        scheduler.runDue();
+
+        assertThat(scheduler.size(), is(1));
+    }
+
+    private PrefetchScheduler<String> scheduler(PrefetchScheduler.Task<String> task, int maxConcurrent) {
+        return new PrefetchScheduler<>(task, 60_000, 0, maxConcurrent, 3_600_000, now::get, new Random());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
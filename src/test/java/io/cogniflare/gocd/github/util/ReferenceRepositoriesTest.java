@@ -0,0 +1,129 @@
+package io.cogniflare.gocd.github.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReferenceRepositoriesTest {
+    private static final String REF_SPEC = "refs/tags/*:refs/tags/*";
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private File workspace;
+    private File origin;
+    private String url;
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private ReferenceRepositories references;
+
+    @Before
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("reference-repositories").toFile();
+        origin = new File(workspace, "origin");
+        url = "file://" + origin.getAbsolutePath();
+        references = new ReferenceRepositories(new File(workspace, "cache"), DAY, now::get);
+
+        origin.mkdirs();
+        GitCommand git = new GitCommand(origin);
+        git.run("init", "-q");
+        git.run("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "--allow-empty", "-m", "first");
+        git.run("tag", "v1.0.0");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    @Test
+    public void shouldCloneBorrowingFromReferenceRepository() throws IOException {
+        File destination = new File(workspace, "pipeline-a");
+
+        references.prepare(url, url, REF_SPEC, destination);
+
+        assertThat(references.referenceFor(url).isDirectory(), is(true));
+        assertThat(new File(destination, ".git/objects/info/alternates").isFile(), is(true));
+        assertThat(new GitCommand(destination).run("log", "--format=%s", "v1.0.0").trim(), is("first"));
+    }
+
+    @Test
+    public void shouldKeepCredentialsOutOfReferenceRepository() throws IOException {
+        String plainUrl = "https://github.com/owner/repo.git";
+
+        references.prepare(plainUrl, url, REF_SPEC, new File(workspace, "pipeline-a"));
+
+        GitCommand reference = new GitCommand(references.referenceFor(plainUrl));
+        assertThat(reference.run("config", "remote.origin.url").trim(), is(plainUrl));
+        assertThat(reference.run("tag").trim(), is("v1.0.0"));
+    }
+
+    @Test
+    public void shouldLeaveExistingWorkingCopyToFetchItself() throws IOException {
+        File destination = new File(workspace, "pipeline-a");
+        references.prepare(url, url, REF_SPEC, destination);
+        File marker = new File(destination, "marker");
+        FileUtils.touch(marker);
+        new GitCommand(origin).run("tag", "v2.0.0");
+
+        references.prepare(url, url, REF_SPEC, destination);
+
+        assertThat(marker.exists(), is(true));
+        assertThat(new GitCommand(references.referenceFor(url)).run("tag").trim(), is("v1.0.0"));
+    }
+
+    @Test
+    public void shouldKeepIdleReferencesWhileCheckoutsBorrowFromThem() throws IOException {
+        File destination = new File(workspace, "pipeline-a");
+        references.prepare(url, url, REF_SPEC, destination);
+        File reference = references.referenceFor(url);
+
+        now.addAndGet(2 * DAY);
+        references.prepare(url + "/", url, REF_SPEC, new File(workspace, "pipeline-b"));
+
+        assertThat(reference.exists(), is(true));
+        assertThat(new GitCommand(destination).run("log", "--format=%s", "v1.0.0").trim(), is("first"));
+    }
+
+    @Test
+    public void shouldPruneIdleReferencesNobodyBorrowsFrom() throws IOException {
+        File destination = new File(workspace, "pipeline-a");
+        references.prepare(url, url, REF_SPEC, destination);
+        File reference = references.referenceFor(url);
+        FileUtils.deleteDirectory(destination);
+
+        now.addAndGet(2 * DAY);
+        references.prepare(url + "/", url, REF_SPEC, new File(workspace, "pipeline-b"));
+
+        assertThat(reference.exists(), is(false));
+    }
+
+    @Test
+    public void shouldRecloneOnlyRepositoryOfCheckoutWhoseReferenceIsGone() throws IOException {
+        references.prepare(url, url, REF_SPEC, new File(workspace, "pipeline-a"));
+        File reference = references.referenceFor(url);
+        File destination = borrowingCheckout(reference, "pipeline-b");
+        File marker = new File(destination, "marker");
+        FileUtils.touch(marker);
+        FileUtils.deleteDirectory(reference);
+
+        references.prepare(url, url, REF_SPEC, destination);
+
+        assertThat(marker.exists(), is(true));
+        assertThat(new GitCommand(destination).run("log", "--format=%s", "v1.0.0").trim(), is("first"));
+    }
+
+    private File borrowingCheckout(File reference, String name) throws IOException {
+        File destination = new File(workspace, name);
+        new GitCommand(workspace).run("clone", "--quiet", "--no-checkout", "--reference", reference.getAbsolutePath(),
+                url, destination.getAbsolutePath());
+        assertThat(new File(destination, ".git/objects/info/alternates").isFile(), is(true));
+        return destination;
+    }
+}
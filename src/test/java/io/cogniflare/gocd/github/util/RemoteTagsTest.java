@@ -0,0 +1,24 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RemoteTagsTest {
+
+    @Test
+    public void shouldPeelAnnotatedTags() {
+        Map<String, String> tags = RemoteTags.parse(
+                "1111111111111111111111111111111111111111\trefs/tags/v1.0.0\n" +
+                "2222222222222222222222222222222222222222\trefs/tags/v1.0.0^{}\n" +
+                "3333333333333333333333333333333333333333\trefs/tags/v0.9.0\n" +
+                "4444444444444444444444444444444444444444\trefs/heads/master\n");
+
+        assertThat(tags.size(), is(2));
+        assertThat(tags.get("v1.0.0"), is("2222222222222222222222222222222222222222"));
+        assertThat(tags.get("v0.9.0"), is("3333333333333333333333333333333333333333"));
+    }
+}
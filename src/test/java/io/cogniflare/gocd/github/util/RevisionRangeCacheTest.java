@@ -0,0 +1,71 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RevisionRangeCacheTest {
+    private static final String REPOSITORY = "https://github.com/org/repo.git";
+
+    @Test
+    public void shouldReturnCachedRangeOfSameCommits() {
+        RevisionRangeCache cache = new RevisionRangeCache(1024 * 1024);
+        cache.put(REPOSITORY, "aaa", "bbb", new RevisionRangeCache.Range("{\"revision\":\"abc\"}", true));
+
+        RevisionRangeCache.Range range = cache.get(REPOSITORY, "aaa", "bbb").get();
+
+        assertThat(range.getJson(), is("{\"revision\":\"abc\"}"));
+        assertThat(range.isTruncated(), is(true));
+        assertThat(cache.get(REPOSITORY, "aaa", "ccc").isPresent(), is(false));
+        assertThat(cache.get("https://github.com/org/other.git", "aaa", "bbb").isPresent(), is(false));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedRangeOverBudget() {
+        String json = repeat('x', 1000);
+        RevisionRangeCache cache = new RevisionRangeCache(5000);
+        cache.put(REPOSITORY, "a", "b", new RevisionRangeCache.Range(json, false));
+        cache.put(REPOSITORY, "b", "c", new RevisionRangeCache.Range(json, false));
+        cache.get(REPOSITORY, "a", "b");
+
+        cache.put(REPOSITORY, "c", "d", new RevisionRangeCache.Range(json, false));
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(REPOSITORY, "a", "b").isPresent(), is(true));
+        assertThat(cache.get(REPOSITORY, "b", "c").isPresent(), is(false));
+        assertThat(cache.getSizeInBytes() <= 5000, is(true));
+    }
+
+    @Test
+    public void shouldNotCacheRangeLargerThanBudget() {
+        RevisionRangeCache cache = new RevisionRangeCache(1000);
+
+        cache.put(REPOSITORY, "a", "b", new RevisionRangeCache.Range(repeat('x', 1000), false));
+
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getSizeInBytes(), is(0L));
+    }
+
+    @Test
+    public void shouldAccountForReplacedRange() {
+        RevisionRangeCache cache = new RevisionRangeCache(1024 * 1024);
+        cache.put(REPOSITORY, "a", "b", new RevisionRangeCache.Range(repeat('x', 1000), false));
+        long size = cache.getSizeInBytes();
+
+        cache.put(REPOSITORY, "a", "b", new RevisionRangeCache.Range(repeat('x', 1000), true));
+
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getSizeInBytes(), is(size));
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder value = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            value.append(c);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SemanticVersionTest {
+
+    @Test
+    public void shouldParseTagNames() {
+        assertThat(SemanticVersion.parse("v1.2.3").isPresent(), is(true));
+        assertThat(SemanticVersion.parse("1.2").isPresent(), is(true));
+        assertThat(SemanticVersion.parse("1.2.3-rc.1+build.5").get().isPreRelease(), is(true));
+        assertThat(SemanticVersion.parse("release-1.2.3").isPresent(), is(false));
+        assertThat(SemanticVersion.parse("1.02.3").isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldOrderBySemverPrecedence() {
+        assertOrdered("1.0.0-alpha", "1.0.0-alpha.1");
+        assertOrdered("1.0.0-alpha.1", "1.0.0-alpha.beta");
+        assertOrdered("1.0.0-beta.2", "1.0.0-beta.11");
+        assertOrdered("1.0.0-rc.1", "1.0.0");
+        assertOrdered("v1.9.0", "v1.10.0");
+        assertOrdered("1.10.0", "2.0.0");
+    }
+
+    @Test
+    public void shouldIgnoreBuildMetadataAndPrefix() {
+        assertThat(SemanticVersion.parse("v1.2.3").get().compareTo(SemanticVersion.parse("1.2.3+build.1").get()), is(0));
+    }
+
+    private void assertOrdered(String lower, String higher) {
+        assertThat(lower + " < " + higher, SemanticVersion.parse(lower).get().compareTo(SemanticVersion.parse(higher).get()) < 0, is(true));
+        assertThat(higher + " > " + lower, SemanticVersion.parse(higher).get().compareTo(SemanticVersion.parse(lower).get()) > 0, is(true));
+    }
+}
@@ -0,0 +1,107 @@
+package io.cogniflare.gocd.github.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldShareCallInFlightBetweenCallersOfSameKey() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute("repo", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "v1.0.0";
+        }));
+        waitUntil(() -> calls.get() == 1);
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> flight.execute("repo", () -> "unexpected")));
+        }
+        waitUntil(() -> flight.getCoalesced() == 3);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS), is("v1.0.0"));
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS), is("v1.0.0"));
+        }
+        assertThat(calls.get(), is(1));
+        assertThat(flight.getExecuted(), is(1L));
+    }
+
+    @Test
+    public void shouldShareFailure() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute("repo", () -> {
+            started.countDown();
+            await(release);
+            throw new IOException("rate limited");
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executor.submit(() -> flight.execute("repo", () -> "unexpected"));
+        waitUntil(() -> flight.getCoalesced() == 1);
+        release.countDown();
+
+        for (Future<String> future : new Future[]{leader, follower}) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("expected the failure to be shared");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause().getMessage(), is("rate limited"));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCallAgainOnceCallCompleted() throws IOException {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.execute("repo", calls::incrementAndGet);
+        flight.execute("repo", calls::incrementAndGet);
+        flight.execute("other", calls::incrementAndGet);
+
+        assertThat(calls.get(), is(3));
+        assertThat(flight.getCoalesced(), is(0L));
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void waitUntil(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
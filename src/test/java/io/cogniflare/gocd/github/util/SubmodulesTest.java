@@ -0,0 +1,83 @@
+package io.cogniflare.gocd.github.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SubmodulesTest {
+    private File workspace;
+    private GitCommand superproject;
+    private String library;
+
+    @Before
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("submodules").toFile();
+        library = createRepository("library").getWorkingDir().getAbsolutePath();
+        createRepository("tools");
+        superproject = createRepository("superproject");
+        superproject.run("-c", "protocol.file.allow=always", "submodule", "add", "-q", library, "lib");
+        superproject.run("-c", "protocol.file.allow=always", "submodule", "add", "-q", new File(workspace, "tools").getAbsolutePath(), "tools");
+        commit(superproject, "add submodules");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    @Test
+    public void shouldFindMovedGitlinks() throws IOException {
+        String before = superproject.run("rev-parse", "HEAD").trim();
+        GitCommand lib = new GitCommand(new File(superproject.getWorkingDir(), "lib"));
+        commit(lib, "library change");
+        superproject.run("add", "lib");
+        commit(superproject, "bump library");
+
+        assertThat(new Submodules(superproject).changedPaths(before, "HEAD"), is(Collections.singleton("lib")));
+    }
+
+    @Test
+    public void shouldFindChangedGitmodulesEntries() throws IOException {
+        String before = superproject.run("rev-parse", "HEAD").trim();
+        superproject.run("config", "-f", ".gitmodules", "submodule.tools.branch", "main");
+        superproject.run("add", ".gitmodules");
+        commit(superproject, "track main");
+
+        assertThat(new Submodules(superproject).changedPaths(before, "HEAD"), is(Collections.singleton("tools")));
+    }
+
+    @Test
+    public void shouldFindSubmodulesThatAreNotCheckedOut() throws IOException {
+        String head = superproject.run("rev-parse", "HEAD").trim();
+        FileUtils.deleteDirectory(new File(superproject.getWorkingDir(), "lib"));
+
+        assertThat(new Submodules(superproject).changedPaths(head, head), is(Collections.singleton("lib")));
+    }
+
+    @Test
+    public void shouldReportNoHeadOutsideWorkingCopy() {
+        assertThat(new Submodules(new GitCommand(new File(workspace, "missing"))).head().isPresent(), is(false));
+    }
+
+    private GitCommand createRepository(String name) throws IOException {
+        File folder = new File(workspace, name);
+        folder.mkdirs();
+        GitCommand git = new GitCommand(folder);
+        git.run("init", "-q");
+        commit(git, "first");
+        return git;
+    }
+
+    private void commit(GitCommand git, String message) throws IOException {
+        git.run("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "--allow-empty", "-m", message);
+    }
+}
@@ -0,0 +1,59 @@
+package io.cogniflare.gocd.github.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TagFetchTest {
+    private File origin;
+    private File workingCopy;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        origin = Files.createTempDirectory("tag-fetch-origin").toFile();
+        workingCopy = new File(Files.createTempDirectory("tag-fetch").toFile(), "flyweight");
+        url = "file://" + origin.getAbsolutePath();
+
+        GitCommand git = new GitCommand(origin);
+        git.run("init", "-q");
+        for (String tag : Arrays.asList("v1.0.0", "v1.1.0", "v2.0.0")) {
+            git.run("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "--allow-empty", "-m", tag);
+            git.run("tag", tag);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(origin);
+        FileUtils.deleteQuietly(workingCopy.getParentFile());
+    }
+
+    @Test
+    public void shouldFetchOnlyRequestedTags() throws IOException {
+        new TagFetch(new GitCommand(workingCopy)).fetch(url, Collections.singletonList("+refs/tags/v2.0.0:refs/tags/v2.0.0"), 1, null);
+
+        GitCommand git = new GitCommand(workingCopy);
+        assertThat(git.run("tag").trim(), is("v2.0.0"));
+        assertThat(git.run("rev-list", "--count", "v2.0.0").trim(), is("1"));
+    }
+
+    @Test
+    public void shouldReuseExistingWorkingCopy() throws IOException {
+        TagFetch tagFetch = new TagFetch(new GitCommand(workingCopy));
+        tagFetch.fetch(url, Collections.singletonList("+refs/tags/v1.0.0:refs/tags/v1.0.0"), null, null);
+        tagFetch.fetch(url, Arrays.asList("+refs/tags/v2.0.0:refs/tags/v2.0.0", "+refs/tags/v1.1.0:refs/tags/v1.1.0"), null, null);
+
+        assertThat(new GitCommand(workingCopy).run("tag").trim(), is("v1.0.0\nv1.1.0\nv2.0.0"));
+    }
+}